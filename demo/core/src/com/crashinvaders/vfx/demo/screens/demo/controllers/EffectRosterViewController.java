@@ -17,7 +17,6 @@
 package com.crashinvaders.vfx.demo.screens.demo.controllers;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
@@ -124,12 +123,12 @@ public class EffectRosterViewController extends LmlViewController {
         }
         // Motion Blur (MIX)
         {
-            MotionBlurEffect filter = new MotionBlurEffect(Pixmap.Format.RGBA8888, MixEffect.Method.MIX, 0.75f);
+            MotionBlurEffect filter = new MotionBlurEffect(MixEffect.Method.MIX, 0.75f);
             effectsRoster.add(new EffectEntryModel("Motion Blur (MIX)", filter));
         }
         // Motion Blur (MAX)
         {
-            MotionBlurEffect filter = new MotionBlurEffect(Pixmap.Format.RGBA8888, MixEffect.Method.MAX, 0.75f);
+            MotionBlurEffect filter = new MotionBlurEffect(MixEffect.Method.MAX, 0.75f);
             effectsRoster.add(new EffectEntryModel("Motion Blur (MAX)", filter));
         }
         // Old TV
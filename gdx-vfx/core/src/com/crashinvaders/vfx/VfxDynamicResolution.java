@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Dynamic resolution controller for {@link VfxManager} (see {@link VfxManager#setDynamicResolution(VfxDynamicResolution)}).
+ * <p>
+ * The controller watches the frame time (or the GPU time of the effect processing, see {@link #setMeasureGpuTime(boolean)})
+ * and adjusts the render scale of the manager's internal buffers within the [min..max] range to keep the time within the budget.
+ * <p>
+ * The scale is quantized to a few fixed steps (see {@link #setScaleStep(float)}), so the buffers are reallocated rarely.
+ * The scale goes down as soon as the smoothed time exceeds the budget by {@link #setDownscaleThreshold(float) the threshold}
+ * and only goes up after the time stays well below the budget for {@link #setUpscaleDelay(int) a while}
+ * to avoid oscillation between the steps.
+ */
+public class VfxDynamicResolution {
+
+    private float timeBudget = 1f / 60f;
+    private float minScale = 0.5f;
+    private float maxScale = 1f;
+    private float scaleStep = 0.125f;
+
+    private float downscaleThreshold = 0.1f;
+    private float upscaleThreshold = 0.25f;
+    private int upscaleDelay = 60;
+    private int cooldownFrames = 15;
+    private float smoothing = 0.1f;
+
+    private boolean measureGpuTime = false;
+
+    private float scale = 1f;
+    private float smoothedTime = -1f;
+    private int framesSinceChange = 0;
+    private int framesUnderBudget = 0;
+    private int scaleChangeCount = 0;
+
+    public VfxDynamicResolution() {
+    }
+
+    /** @param timeBudget the target frame time in seconds (e.g. 1/60 for 60 FPS). */
+    public VfxDynamicResolution(float timeBudget, float minScale, float maxScale) {
+        setTimeBudget(timeBudget);
+        setScaleRange(minScale, maxScale);
+    }
+
+    /**
+     * Updates the controller with a new time sample.
+     * @param time the frame (or GPU) time in seconds.
+     * @return true if the scale has changed.
+     */
+    public boolean update(float time) {
+        if (time <= 0f) return false;
+
+        smoothedTime = smoothedTime < 0f ? time : smoothedTime + (time - smoothedTime) * smoothing;
+        framesSinceChange++;
+
+        if (framesSinceChange < cooldownFrames) return false;
+
+        if (smoothedTime > timeBudget * (1f + downscaleThreshold)) {
+            framesUnderBudget = 0;
+            return applyScale(scale - scaleStep);
+        }
+
+        if (smoothedTime < timeBudget * (1f - upscaleThreshold)) {
+            framesUnderBudget++;
+            if (framesUnderBudget >= upscaleDelay) {
+                framesUnderBudget = 0;
+                return applyScale(scale + scaleStep);
+            }
+        } else {
+            framesUnderBudget = 0;
+        }
+        return false;
+    }
+
+    /** Resets the collected statistics and sets the scale to the maximum value. */
+    public void reset() {
+        smoothedTime = -1f;
+        framesSinceChange = 0;
+        framesUnderBudget = 0;
+        scale = maxScale;
+    }
+
+    /** @return the current render scale of the internal buffers. */
+    public float getScale() {
+        return scale;
+    }
+
+    /** Forces the current scale. The value is quantized and clamped to the configured range. */
+    public void setScale(float scale) {
+        applyScale(scale);
+    }
+
+    public float getTimeBudget() {
+        return timeBudget;
+    }
+
+    /** @param timeBudget the target time in seconds. */
+    public void setTimeBudget(float timeBudget) {
+        if (timeBudget <= 0f) throw new IllegalArgumentException("Time budget should be a positive value.");
+        this.timeBudget = timeBudget;
+    }
+
+    public float getMinScale() {
+        return minScale;
+    }
+
+    public float getMaxScale() {
+        return maxScale;
+    }
+
+    public void setScaleRange(float minScale, float maxScale) {
+        if (minScale <= 0f || maxScale < minScale) {
+            throw new IllegalArgumentException("Illegal scale range: [" + minScale + ".." + maxScale + "]");
+        }
+        this.minScale = minScale;
+        this.maxScale = maxScale;
+        applyScale(scale);
+    }
+
+    public float getScaleStep() {
+        return scaleStep;
+    }
+
+    /** Sets the quantization step of the scale. The scale values are <code>maxScale - N * scaleStep</code> (clamped to minScale). */
+    public void setScaleStep(float scaleStep) {
+        if (scaleStep <= 0f) throw new IllegalArgumentException("Scale step should be a positive value.");
+        this.scaleStep = scaleStep;
+        applyScale(scale);
+    }
+
+    public float getDownscaleThreshold() {
+        return downscaleThreshold;
+    }
+
+    /** @param downscaleThreshold the relative time budget excess that triggers the downscale (e.g. 0.1 means 10% over the budget). */
+    public void setDownscaleThreshold(float downscaleThreshold) {
+        this.downscaleThreshold = downscaleThreshold;
+    }
+
+    public float getUpscaleThreshold() {
+        return upscaleThreshold;
+    }
+
+    /** @param upscaleThreshold the relative time budget headroom required to upscale (e.g. 0.25 means 25% under the budget). */
+    public void setUpscaleThreshold(float upscaleThreshold) {
+        this.upscaleThreshold = upscaleThreshold;
+    }
+
+    public int getUpscaleDelay() {
+        return upscaleDelay;
+    }
+
+    /** @param upscaleDelay the number of consecutive frames the time should stay under the upscale threshold before the scale goes up. */
+    public void setUpscaleDelay(int upscaleDelay) {
+        this.upscaleDelay = upscaleDelay;
+    }
+
+    public int getCooldownFrames() {
+        return cooldownFrames;
+    }
+
+    /** @param cooldownFrames the minimum number of frames between the scale changes. */
+    public void setCooldownFrames(int cooldownFrames) {
+        this.cooldownFrames = cooldownFrames;
+    }
+
+    public float getSmoothing() {
+        return smoothing;
+    }
+
+    /** @param smoothing the exponential moving average factor for the time samples in (0..1]. */
+    public void setSmoothing(float smoothing) {
+        if (smoothing <= 0f || smoothing > 1f) throw new IllegalArgumentException("Smoothing should be within (0..1] range.");
+        this.smoothing = smoothing;
+    }
+
+    public boolean isMeasureGpuTime() {
+        return measureGpuTime;
+    }
+
+    /**
+     * If true, the GPU time of the manager's effect processing ({@link VfxManager#applyEffects()})
+     * is measured with timer queries and compared to the budget instead of the frame time.
+     * Falls back to the frame time when timer queries aren't supported (see {@link com.crashinvaders.vfx.gl.VfxGpuTimer#isSupported()}).
+     */
+    public void setMeasureGpuTime(boolean measureGpuTime) {
+        this.measureGpuTime = measureGpuTime;
+    }
+
+    /** @return the smoothed time sample value in seconds or -1 if no samples were received yet. */
+    public float getSmoothedTime() {
+        return smoothedTime;
+    }
+
+    /** @return how many times the scale has changed. */
+    public int getScaleChangeCount() {
+        return scaleChangeCount;
+    }
+
+    private boolean applyScale(float newScale) {
+        // Quantize to the steps counting from the max scale.
+        int steps = MathUtils.round((maxScale - newScale) / scaleStep);
+        newScale = MathUtils.clamp(maxScale - steps * scaleStep, minScale, maxScale);
+
+        if (newScale == scale) return false;
+
+        scale = newScale;
+        framesSinceChange = 0;
+        scaleChangeCount++;
+        return true;
+    }
+}
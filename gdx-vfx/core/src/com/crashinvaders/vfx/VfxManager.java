@@ -21,12 +21,22 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.crashinvaders.vfx.effects.AbstractVfxEffect;
 import com.crashinvaders.vfx.effects.ChainVfxEffect;
 import com.crashinvaders.vfx.framebuffer.*;
+import com.crashinvaders.vfx.framegraph.VfxFrameGraph;
+import com.crashinvaders.vfx.fusion.VfxEffectFusion;
+import com.crashinvaders.vfx.gl.VfxGlState;
+import com.crashinvaders.vfx.gl.VfxGpuTimer;
+import com.crashinvaders.vfx.profiling.VfxGlStats;
+import com.crashinvaders.vfx.profiling.VfxProfiler;
 import com.crashinvaders.vfx.utils.PrioritizedArray;
 
 /**
@@ -49,12 +59,22 @@ public final class VfxManager implements Disposable {
     private static final Vector2 tmpVec = new Vector2();
 
     private final PrioritizedArray<ChainVfxEffect> effects = new PrioritizedArray<>();
-    private final Array<ChainVfxEffect> tmpEffectArray = new Array<>(); // Utility array instance.
+    /** The enabled effects in the chain order, collected again only when the chain or the effects' state changes. */
+    private final Array<ChainVfxEffect> enabledEffects = new Array<>();
+    private int enabledEffectsVersion = -1;
+    private int enabledStateVersion = -1;
+    /** Whether some of the effects don't extend {@link AbstractVfxEffect}, so their state cannot be tracked by the version. */
+    private boolean untrackedEffects = false;
+    private final Array<ChainVfxEffect> tmpFusedEffectArray = new Array<>(); // Utility array instance.
 
     private final VfxRenderContext context;
 
     private final VfxPingPongWrapper pingPongWrapper;
 
+    private final VfxFrameGraph frameGraph = new VfxFrameGraph();
+
+    private final VfxEffectFusion effectFusion = new VfxEffectFusion();
+
     private boolean capturing = false;
     private boolean disabled = false; //TODO Remove the property.
 
@@ -62,36 +82,184 @@ public final class VfxManager implements Disposable {
 
     private boolean blendingEnabled = false;
 
+    private boolean frameGraphEnabled = false;
+
+    private boolean effectFusionEnabled = false;
+
+    private boolean resultCachingEnabled = false;
+    /** Holds the latest input, while the result caching is enabled. */
+    private VfxFrameBuffer inputBuffer = null;
+    private int inputGeneration = 0;
+    private int passedThroughInputGeneration = -1;
+    // The state of the effect chain the cached result was rendered with.
+    private final Array<ChainVfxEffect> cachedEffectChain = new Array<>();
+    private final IntArray cachedEffectRevisions = new IntArray();
+    private int cachedInputGeneration = -1;
+    private boolean cachedResultValid = false;
+    private int resultCacheHits = 0;
+    private int resultCacheMisses = 0;
+
+    private VfxProfiler profiler = null;
+    private VfxGlStats glStats = null;
+
+    private VfxDynamicResolution dynamicResolution = null;
+    private VfxGpuTimer gpuTimer = null;
+    private boolean gpuTimerUnsupported = false;
+    private int gpuTimerResultCount = 0;
+    private boolean internalResizePending = false;
+    private float resizeSettleTime = 0f;
+    private long lastResizeTime = 0L;
+    private Texture.TextureFilter preservedMinFilter;
+    private Texture.TextureFilter preservedMagFilter;
+
+    /** The internal buffer size. */
     private int width, height;
+    /** The size specified through {@link #resize(int, int)}. */
+    private int logicalWidth, logicalHeight;
 
     public VfxManager(Format fboFormat) {
         this(fboFormat, Gdx.graphics.getBackBufferWidth(), Gdx.graphics.getBackBufferHeight());
     }
 
     public VfxManager(Format fboFormat, int bufferWidth, int bufferHeight) {
-        this.width = bufferWidth;
-        this.height = bufferHeight;
+        this.width = this.logicalWidth = bufferWidth;
+        this.height = this.logicalHeight = bufferHeight;
 
         this.context = new VfxRenderContext(fboFormat, bufferWidth, bufferHeight);
 
         // VfxFrameBufferPool will manage both ping-pong VfxFrameBuffer instances for us.
         this.pingPongWrapper = new VfxPingPongWrapper(context.getBufferPool());
+        context.getHistoryBuffers().registerWrapper(pingPongWrapper);
+    }
+
+    /**
+     * Creates a manager that renders within the externally owned context.
+     * Several managers may share the same context (e.g. for a split-screen), so the intermediate buffers
+     * the effects obtain get recycled between all of them and there's only one buffer renderer.
+     * Every manager owns just its own ping-pong buffer pair.
+     * <p>
+     * The manager {@link VfxRenderContext#retain() retains} the context and releases it upon {@link #dispose()}.
+     * <p>
+     * <b>NOTE:</b> The buffers of a context are of the single size, so all the managers sharing the context
+     * should be resized to the same size.
+     * The {@link #setEffectTextureParams(Texture.TextureWrap, Texture.TextureWrap, Texture.TextureFilter, Texture.TextureFilter) texture params}
+     * are shared as well.
+     */
+    public VfxManager(VfxRenderContext context) {
+        context.retain();
+
+        this.width = this.logicalWidth = context.getBufferWidth();
+        this.height = this.logicalHeight = context.getBufferHeight();
+
+        this.context = context;
+        this.pingPongWrapper = new VfxPingPongWrapper(context.getBufferPool());
+        context.getHistoryBuffers().registerWrapper(pingPongWrapper);
     }
 
     @Override
     public void dispose() {
+        if (inputBuffer != null) {
+            context.getBufferPool().free(inputBuffer);
+            inputBuffer = null;
+        }
+        if (gpuTimer != null) {
+            gpuTimer.dispose();
+            gpuTimer = null;
+        }
+        context.getHistoryBuffers().unregisterWrapper(pingPongWrapper);
         pingPongWrapper.reset();
-        context.dispose();
+        effectFusion.dispose();
+        context.release();
     }
 
+    /**
+     * @return the width of the internal buffers.
+     * It may differ from the value specified through {@link #resize(int, int)} when the dynamic resolution is in use
+     * or the last resize hasn't settled yet (see {@link #setResizeSettleTime(float)}).
+     */
     public int getWidth() {
         return width;
     }
 
+    /**
+     * @return the height of the internal buffers.
+     * It may differ from the value specified through {@link #resize(int, int)} when the dynamic resolution is in use
+     * or the last resize hasn't settled yet (see {@link #setResizeSettleTime(float)}).
+     */
     public int getHeight() {
         return height;
     }
 
+    /** @return the width specified through {@link #resize(int, int)}. */
+    public int getLogicalWidth() {
+        return logicalWidth;
+    }
+
+    /** @return the height specified through {@link #resize(int, int)}. */
+    public int getLogicalHeight() {
+        return logicalHeight;
+    }
+
+    /** @return true if the internal buffers are rendered at a different resolution than the one specified through {@link #resize(int, int)}. */
+    public boolean isResolutionScaled() {
+        return width != logicalWidth || height != logicalHeight;
+    }
+
+    public VfxProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Attaches the profiler to collect the timings of every effect of the chain. Pass null to detach.
+     * The manager doesn't own the profiler, it's your responsibility to dispose it.
+     */
+    public void setProfiler(VfxProfiler profiler) {
+        if (applyingEffects) throw new IllegalStateException("Cannot change the profiler when applying effects.");
+        this.profiler = profiler;
+        context.setProfiler(profiler);
+    }
+
+    public VfxGlStats getGlStats() {
+        return glStats;
+    }
+
+    /**
+     * Attaches the GL call counters. Pass null to detach.
+     * While attached, the GL calls of every {@link #applyEffects()} invocation are counted per frame and per effect.
+     * When detached, the GL calls are not intercepted at all.
+     */
+    public void setGlStats(VfxGlStats glStats) {
+        if (applyingEffects) throw new IllegalStateException("Cannot change the GL stats when applying effects.");
+        this.glStats = glStats;
+        context.setGlStats(glStats);
+    }
+
+    public VfxDynamicResolution getDynamicResolution() {
+        return dynamicResolution;
+    }
+
+    /**
+     * Attaches the dynamic resolution controller. Pass null to detach the current one and go back to the full resolution.
+     * <p>
+     * The controller is updated from {@link #update(float)} and scales the internal buffers relative to the size
+     * specified through {@link #resize(int, int)}. The result is upscaled transparently
+     * by the {@link #renderToScreen()} and {@link #renderToFbo(VfxFrameBuffer)} methods.
+     * <p>
+     * To not lose the buffers' content, the new scale is applied right before the next input gets supplied
+     * ({@link #cleanUpBuffers()}, {@link #beginInputCapture()} or {@link #useAsInput(Texture)}).
+     */
+    public void setDynamicResolution(VfxDynamicResolution dynamicResolution) {
+        if (capturing) throw new IllegalStateException("Cannot change the dynamic resolution when capturing a scene.");
+        if (applyingEffects) throw new IllegalStateException("Cannot change the dynamic resolution when applying effects.");
+
+        this.dynamicResolution = dynamicResolution;
+        if (dynamicResolution == null && gpuTimer != null) {
+            gpuTimer.dispose();
+            gpuTimer = null;
+        }
+        updateInternalSize(false);
+    }
+
     public boolean isCapturing() {
         return capturing;
     }
@@ -115,6 +283,7 @@ public final class VfxManager implements Disposable {
      */
     public void setBlendingEnabled(boolean blendingEnabled) {
         this.blendingEnabled = blendingEnabled;
+        invalidateResultCache();
     }
 
     /**
@@ -133,6 +302,128 @@ public final class VfxManager implements Disposable {
         this.context.getBufferPool().setTextureParams(textureWrapU, textureWrapV, textureFilterMin, textureFilterMag);
     }
 
+    public boolean isFrameGraphEnabled() {
+        return frameGraphEnabled;
+    }
+
+    /**
+     * Enables the frame-graph mode for the effect chain processing.
+     * Disabled by default.
+     * <p>
+     * In this mode the effect chain is compiled into a render plan (see {@link VfxFrameGraph}) once
+     * and recompiled only when the chain or the buffer size change.
+     * The intermediate buffers of the chain and of the {@link com.crashinvaders.vfx.effects.FrameGraphVfxEffect}s
+     * are planned upfront and those with non-overlapping lifetimes share the same {@link VfxFrameBuffer}.
+     */
+    public void setFrameGraphEnabled(boolean frameGraphEnabled) {
+        this.frameGraphEnabled = frameGraphEnabled;
+        frameGraph.invalidate();
+    }
+
+    /** @return the frame graph used to process the effect chain when {@link #isFrameGraphEnabled()} is true. */
+    public VfxFrameGraph getFrameGraph() {
+        return frameGraph;
+    }
+
+    public boolean isEffectFusionEnabled() {
+        return effectFusionEnabled;
+    }
+
+    /**
+     * Enables the fusion of the adjacent per-pixel effects of the chain (see {@link com.crashinvaders.vfx.effects.FusibleVfxEffect}).
+     * Disabled by default.
+     * <p>
+     * Every run of such effects is rendered in a single pass with a generated shader program,
+     * effects that cannot be fused are rendered the regular way.
+     * The fusion doesn't take place while the blending is enabled (see {@link #setBlendingEnabled(boolean)}),
+     * as it would change the result.
+     */
+    public void setEffectFusionEnabled(boolean effectFusionEnabled) {
+        this.effectFusionEnabled = effectFusionEnabled;
+    }
+
+    /** @return the fusion compiler used to process the effect chain when {@link #isEffectFusionEnabled()} is true. */
+    public VfxEffectFusion getEffectFusion() {
+        return effectFusion;
+    }
+
+    public boolean isResultCachingEnabled() {
+        return resultCachingEnabled;
+    }
+
+    /**
+     * Enables the result caching. Disabled by default.
+     * <p>
+     * When enabled, {@link #applyEffects()} skips the effect chain rendering entirely and keeps the previous result
+     * (see {@link #getResultBuffer()}) in case nothing has changed since the last call:
+     * no new input was supplied (through {@link #beginInputCapture()} or {@link #useAsInput(Texture)}),
+     * the chain consists of the same enabled effects and none of them has changed its parameters
+     * (see {@link AbstractVfxEffect#getRevision()}) or is time dependent (see {@link AbstractVfxEffect#isTimeDependent()}).
+     * Effects that don't extend {@link AbstractVfxEffect} cannot be tracked and always invalidate the cache.
+     * <p>
+     * The input is kept in a separate buffer to be able to re-apply the chain when only the effect parameters change,
+     * that costs one extra buffer and a full-screen copy upon every cache miss.
+     * So the mode pays off for the mostly static content (e.g. a paused game frame or a static background)
+     * and should be kept disabled for the content that changes every frame.
+     * <p>
+     * If the effect's output depends on some state that the manager cannot track,
+     * call {@link #invalidateResultCache()} upon the change.
+     */
+    public void setResultCachingEnabled(boolean resultCachingEnabled) {
+        if (capturing) throw new IllegalStateException("Cannot change the result caching mode when capturing a scene.");
+        if (applyingEffects) throw new IllegalStateException("Cannot change the result caching mode when applying effects.");
+        if (this.resultCachingEnabled == resultCachingEnabled) return;
+
+        this.resultCachingEnabled = resultCachingEnabled;
+        if (resultCachingEnabled) {
+            inputBuffer = context.getBufferPool().obtain();
+            // Carry over the current input.
+            context.getBufferRenderer().renderToFbo(pingPongWrapper.getDstBuffer(), inputBuffer);
+        } else {
+            // Put the latest input back, where the regular (non-caching) chain processing expects it.
+            context.getBufferRenderer().renderToFbo(inputBuffer, pingPongWrapper.getDstBuffer());
+            context.getBufferPool().free(inputBuffer);
+            inputBuffer = null;
+        }
+        inputGeneration++;
+        invalidateResultCache();
+    }
+
+    /** Forces the effect chain to be re-applied upon the next {@link #applyEffects()} call, when the result caching is enabled. */
+    public void invalidateResultCache() {
+        cachedResultValid = false;
+        cachedEffectChain.clear();
+        cachedEffectRevisions.clear();
+    }
+
+    /**
+     * @return true if {@link #applyEffects()} would reuse the previous result, as long as no new input is captured.
+     * The caller may skip the call then. Always false when the result caching is disabled.
+     */
+    public boolean isResultCacheValid() {
+        if (!resultCachingEnabled || disabled || capturing) return false;
+
+        Array<ChainVfxEffect> effectChain = filterEnabledEffects();
+        // The shader warmup is driven by the applyEffects() calls.
+        if (enabledEffectsVersion == -1) return false;
+        return effectChain.size > 0 && isCachedResultValid(effectChain);
+    }
+
+    /** @return the number of {@link #applyEffects()} calls that reused the previous result. */
+    public int getResultCacheHits() {
+        return resultCacheHits;
+    }
+
+    /** @return the number of {@link #applyEffects()} calls that had to render the effect chain while the result caching was enabled. */
+    public int getResultCacheMisses() {
+        return resultCacheMisses;
+    }
+
+    public void resetResultCacheStats() {
+        resultCacheHits = 0;
+        resultCacheMisses = 0;
+    }
+
     public boolean isApplyingEffects() {
         return applyingEffects;
     }
@@ -142,6 +433,14 @@ public final class VfxManager implements Disposable {
         return pingPongWrapper.getDstBuffer();
     }
 
+    /**
+     * @return the buffer the input is being captured into between {@link #beginInputCapture()} and {@link #endInputCapture()}.
+     * It's the same as {@link #getResultBuffer()} unless the result caching is enabled.
+     */
+    public VfxFrameBuffer getInputCaptureBuffer() {
+        return inputBuffer != null ? inputBuffer : pingPongWrapper.getDstBuffer();
+    }
+
     /** @return the internal ping-pong buffer. */
     public VfxPingPongWrapper getPingPongWrapper() {
         return pingPongWrapper;
@@ -166,16 +465,21 @@ public final class VfxManager implements Disposable {
     public void addEffect(ChainVfxEffect effect, int priority) {
         effects.add(effect, priority);
         effect.resize(width, height);
+        if (effect instanceof AbstractVfxEffect) {
+            ((AbstractVfxEffect) effect).requestWarmup(context.getShaderWarmup());
+        }
     }
 
     /** Removes the specified effect from the effect chain. */
     public void removeEffect(ChainVfxEffect effect) {
         effects.remove(effect);
+        effectFusion.invalidate(effect);
     }
 
     /** Removes all effects from the effect chain. */
     public void removeAllEffects() {
         effects.clear();
+        effectFusion.invalidateAll();
     }
 
     /** Changes the order of the effect in the effect chain. */
@@ -193,34 +497,116 @@ public final class VfxManager implements Disposable {
         if (applyingEffects) throw new IllegalStateException("Cannot clean up buffers when applying effects.");
         if (capturing) throw new IllegalStateException("Cannot clean up buffers when capturing a scene.");
 
-        pingPongWrapper.cleanUpBuffers(color);
+        applyPendingResize();
+        reclaimHistoryBuffers();
+
+        VfxGlState.beginTracking();
+        try {
+            pingPongWrapper.cleanUpBuffers(color);
+            if (inputBuffer != null) {
+                inputBuffer.begin();
+                Gdx.gl.glClearColor(color.r, color.g, color.b, color.a);
+                Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+                inputBuffer.end();
+            }
+        } finally {
+            VfxGlState.endTracking();
+        }
+        inputGeneration++;
     }
 
     public void resize(int width, int height) {
         Vector2 constrainedSize = constrainFrameBufferSize(width, height);
-        this.width = width = (int)constrainedSize.x;
-        this.height = height = (int)constrainedSize.y;
+        this.logicalWidth = (int)constrainedSize.x;
+        this.logicalHeight = (int)constrainedSize.y;
 
-        context.resize(width, height);
+        if (resizeSettleTime > 0f) {
+            lastResizeTime = TimeUtils.millis();
+            internalResizePending = true;
+            return;
+        }
+        updateInternalSize(true);
+    }
 
-        for (int i = 0; i < effects.size(); i++) {
-            effects.get(i).resize(width, height);
+    public float getResizeSettleTime() {
+        return resizeSettleTime;
+    }
+
+    /**
+     * Defers the internal buffers reallocation upon {@link #resize(int, int)} calls until the size stops changing
+     * for the time specified. Meanwhile the effects keep rendering at the previous internal size and the result
+     * is stretched to the new size by {@link #renderToScreen()} and {@link #renderToFbo(VfxFrameBuffer)},
+     * just like with the {@link #setDynamicResolution(VfxDynamicResolution) dynamic resolution}.
+     * <p>
+     * Useful when the size changes continuously (e.g. a desktop window is being dragged or a widget's size is animated),
+     * as otherwise every single step reallocates all the buffers.
+     * @param resizeSettleTime the time in seconds, zero (default) applies the new size immediately.
+     */
+    public void setResizeSettleTime(float resizeSettleTime) {
+        if (resizeSettleTime < 0f) {
+            throw new IllegalArgumentException("Resize settle time cannot be negative.");
         }
+        this.resizeSettleTime = resizeSettleTime;
     }
 
     //TODO Do we need this method?
     public void rebind() {
+        VfxGlState.invalidate();
         context.rebind();
+        effectFusion.rebind();
+        invalidateResultCache();
 
         for (int i = 0; i < effects.size(); i++) {
             effects.get(i).rebind();
         }
     }
 
+    /**
+     * Prepares the current effect chain for rendering, so its first frames don't hitch.
+     * Should be called during loading, after the effects are added and the manager is resized.
+     * <p>
+     * Compiles all the pending shader programs and renders the chain once with a blank input,
+     * so every frame buffer the effects obtain from the pool gets allocated up front and stays in the pool.
+     * The buffers' content is cleared afterwards.
+     * <p>
+     * To allocate the buffers without rendering, or gradually over several frames,
+     * use {@link VfxFrameBufferPool#prewarm(int)} or {@link VfxFrameBufferPool#schedulePrewarm(int)}
+     * of the {@link VfxRenderContext#getBufferPool() context's pool}.
+     */
+    public void prewarm() {
+        if (capturing) throw new IllegalStateException("Cannot pre-warm when capturing a scene.");
+        if (applyingEffects) throw new IllegalStateException("Cannot pre-warm when applying effects.");
+
+        if (internalResizePending) {
+            updateInternalSize(false);
+        }
+        context.getShaderWarmup().finishAll();
+
+        // The allocations of the dry run are not the hot path ones.
+        VfxFrameBufferPool bufferPool = context.getBufferPool();
+        int hotPathCreatedCount = bufferPool.hotPathCreatedCount;
+
+        boolean wasDisabled = disabled;
+        disabled = false;
+        cleanUpBuffers();
+        applyEffects();
+        disabled = wasDisabled;
+
+        bufferPool.hotPathCreatedCount = hotPathCreatedCount;
+        invalidateResultCache();
+        cleanUpBuffers();
+        // The time dependent effects shouldn't pick up the blank dry run frame.
+        context.getHistoryBuffers().invalidate();
+    }
+
     public void update(float delta) {
         for (int i = 0; i < effects.size(); i++) {
             effects.get(i).update(delta);
         }
+
+        if (dynamicResolution != null) {
+            updateDynamicResolution(delta);
+        }
     }
 
     /** Starts capturing the input buffer. */
@@ -230,8 +616,16 @@ public final class VfxManager implements Disposable {
         }
         if (capturing) return;
 
+        applyPendingResize();
+        reclaimHistoryBuffers();
+
         capturing = true;
-        pingPongWrapper.begin();
+        inputGeneration++;
+        if (inputBuffer != null) {
+            inputBuffer.begin();
+        } else {
+            pingPongWrapper.begin();
+        }
     }
 
     /** Stops capturing the input buffer. */
@@ -239,7 +633,11 @@ public final class VfxManager implements Disposable {
         if (!capturing) throw new IllegalStateException("The capturing is not started. Forgot to call #beginInputCapture()?");
 
         capturing = false;
-        pingPongWrapper.end();
+        if (inputBuffer != null) {
+            inputBuffer.end();
+        } else {
+            pingPongWrapper.end();
+        }
     }
 
     /** @see VfxManager#useAsInput(Texture)  */
@@ -257,7 +655,11 @@ public final class VfxManager implements Disposable {
             throw new IllegalStateException("Cannot update the input buffer when applying effects.");
         }
 
-        context.getBufferRenderer().renderToFbo(texture, pingPongWrapper.getDstBuffer());
+        applyPendingResize();
+        reclaimHistoryBuffers();
+
+        inputGeneration++;
+        context.getBufferRenderer().renderToFbo(texture, inputBuffer != null ? inputBuffer : pingPongWrapper.getDstBuffer());
     }
 
     /** Applies the effect chain. */
@@ -266,46 +668,106 @@ public final class VfxManager implements Disposable {
             throw new IllegalStateException("You should call VfxManager.endCapture() before applying the effects.");
         }
 
-        if (disabled) return;
+        reclaimHistoryBuffers();
 
-        Array<ChainVfxEffect> effectChain = filterEnabledEffects(tmpEffectArray);
-        if (effectChain.size == 0) {
-            effectChain.clear();
+        if (disabled) {
+            passThroughRetainedInput();
             return;
         }
 
-        applyingEffects = true;
+        context.update();
 
-        // Enable blending to preserve buffer's alpha values.
-        if (blendingEnabled) {
-            Gdx.gl.glEnable(GL20.GL_BLEND);
+        Array<ChainVfxEffect> effectChain = filterEnabledEffects();
+        if (effectChain.size == 0) {
+            passThroughRetainedInput();
+            return;
         }
 
-        Gdx.gl.glDisable(GL20.GL_CULL_FACE);
-        Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+        // Every effect pass rebinds the buffers, let them rely on the tracked GL state rather than query it.
+        VfxGlState.beginTracking();
+        try {
+            if (resultCachingEnabled) {
+                if (isCachedResultValid(effectChain)) {
+                    resultCacheHits++;
+                    return;
+                }
+                resultCacheMisses++;
+                passedThroughInputGeneration = -1;
+
+                // The effects are free to overwrite the src buffer, so the retained input is copied rather than swapped in.
+                context.getBufferRenderer().renderToFbo(inputBuffer, pingPongWrapper.getSrcBuffer());
+            } else {
+                pingPongWrapper.swap(); // Swap buffers to get the input buffer in the src buffer.
+            }
+
+            if (effectFusionEnabled && !blendingEnabled) {
+                effectChain = effectFusion.fuse(effectChain, tmpFusedEffectArray);
+            }
 
-        pingPongWrapper.swap(); // Swap buffers to get the input buffer in the src buffer.
-        pingPongWrapper.begin();
+            applyingEffects = true;
 
-        // Render the effect chain.
-        for (int i = 0; i < effectChain.size; i++) {
-            ChainVfxEffect effect = effectChain.get(i);
-            effect.render(context, pingPongWrapper);
-            if (i < effectChain.size - 1) {
-                pingPongWrapper.swap();
+            // The context may be shared with other managers that have their own profiling set up.
+            context.setProfiler(profiler);
+            context.setGlStats(glStats);
+
+            if (glStats != null) { glStats.beginFrame(); }
+            boolean measureGpuTime = beginGpuTimer();
+            if (profiler != null) { profiler.beginScope(VfxProfiler.ROOT_SCOPE_NAME); }
+
+            // Enable blending to preserve buffer's alpha values.
+            if (blendingEnabled) {
+                Gdx.gl.glEnable(GL20.GL_BLEND);
             }
-        }
-        effectChain.clear();
-        pingPongWrapper.end();
 
-        // Ensure default texture unit #0 is active.
-        Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+            Gdx.gl.glDisable(GL20.GL_CULL_FACE);
+            Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+
+            if (frameGraphEnabled) {
+                // Render the effect chain according to the compiled plan.
+                frameGraph.render(context, effectChain, pingPongWrapper);
+            } else {
+                pingPongWrapper.begin();
+
+                // Render the effect chain.
+                for (int i = 0; i < effectChain.size; i++) {
+                    ChainVfxEffect effect = effectChain.get(i);
+                    if (profiler != null) { profiler.beginScope(profiler.getName(effect)); }
+                    if (glStats != null) { glStats.beginEffect(glStats.getName(effect)); }
+                    effect.render(context, pingPongWrapper);
+                    if (glStats != null) { glStats.endEffect(); }
+                    if (profiler != null) { profiler.endScope(); }
+                    if (i < effectChain.size - 1) {
+                        // The src buffer is about to be drawn into, it shouldn't hold the history frame anymore.
+                        reclaimHistoryBuffers();
+                        pingPongWrapper.swap();
+                    }
+                }
+                pingPongWrapper.end();
+            }
+            if (resultCachingEnabled) {
+                // Effects may update their parameters during rendering, so the state is saved afterwards.
+                storeCachedResultState(enabledEffects);
+            }
+            tmpFusedEffectArray.clear();
 
-        if (blendingEnabled) {
-            Gdx.gl.glDisable(GL20.GL_BLEND);
-        }
+            // Ensure default texture unit #0 is active.
+            Gdx.gl.glActiveTexture(GL20.GL_TEXTURE0);
+
+            if (blendingEnabled) {
+                Gdx.gl.glDisable(GL20.GL_BLEND);
+            }
 
-        applyingEffects = false;
+            if (profiler != null) { profiler.endScope(); }
+            if (measureGpuTime) {
+                gpuTimer.end();
+            }
+            if (glStats != null) { glStats.endFrame(); }
+        } finally {
+            // An effect may throw, neither the tracked GL state nor the counting GL decorators should outlive the call.
+            if (glStats != null) { glStats.abortFrame(); }
+            VfxGlState.endTracking();
+            applyingEffects = false;
+        }
     }
 
     public void renderToScreen() {
@@ -315,7 +777,9 @@ public final class VfxManager implements Disposable {
 
         // Enable blending to preserve buffer's alpha values.
         if (blendingEnabled) { Gdx.gl.glEnable(GL20.GL_BLEND); }
+        beginUpscale();
         context.getBufferRenderer().renderToScreen(pingPongWrapper.getDstBuffer());
+        endUpscale();
         if (blendingEnabled) { Gdx.gl.glDisable(GL20.GL_BLEND); }
     }
 
@@ -326,7 +790,9 @@ public final class VfxManager implements Disposable {
 
         // Enable blending to preserve buffer's alpha values.
         if (blendingEnabled) { Gdx.gl.glEnable(GL20.GL_BLEND); }
+        beginUpscale();
         context.getBufferRenderer().renderToScreen(pingPongWrapper.getDstBuffer(), x, y, width, height);
+        endUpscale();
         if (blendingEnabled) { Gdx.gl.glDisable(GL20.GL_BLEND); }
     }
 
@@ -337,7 +803,9 @@ public final class VfxManager implements Disposable {
 
         // Enable blending to preserve buffer's alpha values.
         if (blendingEnabled) { Gdx.gl.glEnable(GL20.GL_BLEND); }
+        beginUpscale();
         context.getBufferRenderer().renderToFbo(pingPongWrapper.getDstBuffer(), output);
+        endUpscale();
         if (blendingEnabled) { Gdx.gl.glDisable(GL20.GL_BLEND); }
     }
 
@@ -350,14 +818,190 @@ public final class VfxManager implements Disposable {
         return false;
     }
 
-    private Array<ChainVfxEffect> filterEnabledEffects(Array<ChainVfxEffect> out) {
+    /** Applies the new internal size if one is pending and the last {@link #resize(int, int)} call has settled. */
+    private void applyPendingResize() {
+        if (!internalResizePending) return;
+        if (resizeSettleTime > 0f && TimeUtils.timeSinceMillis(lastResizeTime) < resizeSettleTime * 1000f) return;
+
+        updateInternalSize(false);
+    }
+
+    /**
+     * Resizes the internal buffers according to the logical size and the dynamic resolution scale.
+     * @param force if false, the resize is skipped in case the internal size is the same.
+     */
+    private void updateInternalSize(boolean force) {
+        internalResizePending = false;
+
+        float scale = dynamicResolution != null ? dynamicResolution.getScale() : 1f;
+        Vector2 constrainedSize = constrainFrameBufferSize(
+                MathUtils.round(logicalWidth * scale),
+                MathUtils.round(logicalHeight * scale));
+        int width = (int)constrainedSize.x;
+        int height = (int)constrainedSize.y;
+
+        if (!force && this.width == width && this.height == height) return;
+
+        this.width = width;
+        this.height = height;
+
+        context.resize(width, height);
+        inputGeneration++;
+        invalidateResultCache();
+
+        for (int i = 0; i < effects.size(); i++) {
+            effects.get(i).resize(width, height);
+        }
+    }
+
+    private void updateDynamicResolution(float delta) {
+        float time = delta;
+        if (dynamicResolution.isMeasureGpuTime() && profiler != null && profiler.isGpuTimingActive()) {
+            // The profiler measures the GPU time already (timer queries cannot overlap).
+            VfxProfiler.Entry entry = profiler.getEntry(VfxProfiler.ROOT_SCOPE_NAME);
+            if (entry == null || entry.getGpuStats().getTotalCount() == gpuTimerResultCount) return;
+            gpuTimerResultCount = entry.getGpuStats().getTotalCount();
+            time = entry.getGpuStats().getLast() / 1000f;
+        } else if (dynamicResolution.isMeasureGpuTime() && gpuTimer != null) {
+            // Only feed the new GPU time samples.
+            if (gpuTimer.getResultCount() == gpuTimerResultCount) return;
+            gpuTimerResultCount = gpuTimer.getResultCount();
+            time = gpuTimer.getLastResultSeconds();
+        }
+        if (dynamicResolution.update(time)) {
+            internalResizePending = true;
+        }
+    }
+
+    /** @return true if the GPU timer measurement was started. */
+    private boolean beginGpuTimer() {
+        if (dynamicResolution == null || !dynamicResolution.isMeasureGpuTime() || gpuTimerUnsupported) return false;
+        // Timer queries cannot overlap, the profiler's measurements are used instead.
+        if (profiler != null && profiler.isGpuTimingActive()) return false;
+
+        if (gpuTimer == null) {
+            if (!VfxGpuTimer.isSupported()) {
+                gpuTimerUnsupported = true;
+                return false;
+            }
+            gpuTimer = new VfxGpuTimer();
+        }
+        gpuTimer.begin();
+        return gpuTimer.isMeasuring();
+    }
+
+    /** Switches the result texture to linear filtering when it's going to be upscaled. */
+    private void beginUpscale() {
+        if (!isResolutionScaled()) return;
+
+        Texture texture = pingPongWrapper.getDstBuffer().getTexture();
+        preservedMinFilter = texture.getMinFilter();
+        preservedMagFilter = texture.getMagFilter();
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+    }
+
+    private void endUpscale() {
+        if (preservedMinFilter == null) return;
+
+        pingPongWrapper.getDstBuffer().getTexture().setFilter(preservedMinFilter, preservedMagFilter);
+        preservedMinFilter = null;
+        preservedMagFilter = null;
+    }
+
+    private boolean isCachedResultValid(Array<ChainVfxEffect> effectChain) {
+        if (!cachedResultValid) return false;
+        if (cachedInputGeneration != inputGeneration) return false;
+        if (cachedEffectChain.size != effectChain.size) return false;
+
+        for (int i = 0; i < effectChain.size; i++) {
+            ChainVfxEffect effect = effectChain.get(i);
+            if (cachedEffectChain.get(i) != effect) return false;
+            if (!(effect instanceof AbstractVfxEffect)) return false;
+
+            AbstractVfxEffect trackedEffect = (AbstractVfxEffect) effect;
+            if (trackedEffect.isTimeDependent()) return false;
+            if (cachedEffectRevisions.get(i) != trackedEffect.getRevision()) return false;
+        }
+        return true;
+    }
+
+    private void storeCachedResultState(Array<ChainVfxEffect> effectChain) {
+        cachedEffectChain.clear();
+        cachedEffectRevisions.clear();
+        for (int i = 0; i < effectChain.size; i++) {
+            ChainVfxEffect effect = effectChain.get(i);
+            cachedEffectChain.add(effect);
+            cachedEffectRevisions.add(effect instanceof AbstractVfxEffect ? ((AbstractVfxEffect) effect).getRevision() : 0);
+        }
+        cachedInputGeneration = inputGeneration;
+        cachedResultValid = true;
+    }
+
+    /** With no effects to apply, the input is the result. Only needed when the input is retained separately. */
+    private void passThroughRetainedInput() {
+        if (inputBuffer == null) return;
+
+        invalidateResultCache();
+        if (passedThroughInputGeneration == inputGeneration) return;
+
+        passedThroughInputGeneration = inputGeneration;
+        context.getBufferRenderer().renderToFbo(inputBuffer, pingPongWrapper.getDstBuffer());
+    }
+
+    /** Takes the history frames (see {@link VfxHistoryBuffers}) out of the ping-pong buffers before they're drawn into. */
+    private void reclaimHistoryBuffers() {
+        context.getHistoryBuffers().reclaim(pingPongWrapper);
+    }
+
+    private Array<ChainVfxEffect> filterEnabledEffects() {
+        if (isEnabledEffectsValid()) {
+            return enabledEffects;
+        }
+
+        enabledEffects.clear();
+        boolean warmupPending = false;
+        untrackedEffects = false;
         for (int i = 0; i < effects.size(); i++) {
             ChainVfxEffect effect = effects.get(i);
-            if (!effect.isDisabled()) {
-                out.add(effect);
+            if (!(effect instanceof AbstractVfxEffect)) {
+                untrackedEffects = true;
+            }
+            if (effect.isDisabled()) continue;
+
+            if (effect instanceof AbstractVfxEffect && !((AbstractVfxEffect) effect).isReady()) {
+                // The effect is passed through until its shaders are compiled.
+                ((AbstractVfxEffect) effect).requestWarmup(context.getShaderWarmup());
+                warmupPending = true;
+                continue;
             }
+            enabledEffects.add(effect);
+        }
+        // Keep collecting the effects every frame until all of them are ready.
+        enabledEffectsVersion = warmupPending ? -1 : effects.getVersion();
+        enabledStateVersion = AbstractVfxEffect.getStateVersion();
+        return enabledEffects;
+    }
+
+    /** @return true if none of the effects has been added, removed, enabled, disabled or got ready since the list was collected. */
+    private boolean isEnabledEffectsValid() {
+        if (enabledEffectsVersion != effects.getVersion()) return false;
+        if (enabledStateVersion != AbstractVfxEffect.getStateVersion()) return false;
+        // The effects that don't report their state changes are checked one by one.
+        return !untrackedEffects || isEnabledEffectsMatching();
+    }
+
+    /** @return true if the list of the enabled effects matches the current state of the effects. */
+    private boolean isEnabledEffectsMatching() {
+        int enabledIndex = 0;
+        for (int i = 0; i < effects.size(); i++) {
+            ChainVfxEffect effect = effects.get(i);
+            if (effect.isDisabled()) continue;
+
+            if (enabledIndex == enabledEffects.size || enabledEffects.get(enabledIndex) != effect) return false;
+            if (effect instanceof AbstractVfxEffect && !((AbstractVfxEffect) effect).isReady()) return false;
+            enabledIndex++;
         }
-        return out;
+        return enabledIndex == enabledEffects.size;
     }
 
     public static Vector2 constrainFrameBufferSize(int width, int height) {
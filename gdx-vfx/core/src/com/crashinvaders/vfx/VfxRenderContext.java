@@ -16,37 +16,143 @@
 
 package com.crashinvaders.vfx;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.utils.Disposable;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBufferPool;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBufferRenderer;
+import com.crashinvaders.vfx.framebuffer.VfxHistoryBuffers;
+import com.crashinvaders.vfx.profiling.VfxGlStats;
+import com.crashinvaders.vfx.profiling.VfxProfiler;
 import com.crashinvaders.vfx.utils.ViewportQuadMesh;
 
+/**
+ * Holds the resources shared by all the effects of a chain: the frame buffer pool, the buffer renderer,
+ * the history buffers of the time dependent effects and the shader warm-up.
+ * <p>
+ * A context can be shared between several {@link VfxManager}s (see {@link VfxManager#VfxManager(VfxRenderContext)}),
+ * so they reuse the same free buffers and the renderer. The shared context is reference counted,
+ * it's created with a single reference that belongs to the creator, every manager {@link #retain() retains} its own one.
+ * The context gets disposed when the last reference is {@link #release() released}.
+ */
 public class VfxRenderContext implements Disposable {
 
     private final VfxFrameBufferPool bufferPool;
     private final VfxFrameBufferRenderer bufferRenderer;
     private final Pixmap.Format pixelFormat;
+    private final boolean ownsBufferRenderer;
+    private final VfxRenderContext parent;
+    private final VfxShaderWarmup shaderWarmup;
+    private final VfxHistoryBuffers historyBuffers;
+
+    private VfxProfiler profiler = null;
+    private VfxGlStats glStats = null;
 
     private int bufferWidth;
     private int bufferHeight;
 
+    private int refCount = 1;
+    private long lastUpdateFrameId = -1L;
+
     public VfxRenderContext(Pixmap.Format pixelFormat, int bufferWidth, int bufferHeight) {
         this.bufferPool = new VfxFrameBufferPool(pixelFormat, bufferWidth, bufferHeight, 8);
         this.bufferRenderer = new VfxFrameBufferRenderer();
+        this.ownsBufferRenderer = true;
+        this.parent = null;
+        this.shaderWarmup = new VfxShaderWarmup(this);
+        this.historyBuffers = new VfxHistoryBuffers(bufferPool, bufferRenderer);
         this.pixelFormat = pixelFormat;
         this.bufferWidth = bufferWidth;
         this.bufferHeight = bufferHeight;
     }
 
+    /**
+     * Creates a context of a different buffer size, that shares the buffer renderer (and the viewport mesh) with the parent context.
+     * The context has its own buffer pool (with the parent pool's texture params),
+     * so the effects rendered within it obtain the buffers of the matching size.
+     * <p>
+     * The parent context should outlive the created one.
+     */
+    public VfxRenderContext(VfxRenderContext parent, int bufferWidth, int bufferHeight) {
+        this.bufferPool = new VfxFrameBufferPool(parent.pixelFormat, bufferWidth, bufferHeight, 4);
+        VfxFrameBufferPool parentPool = parent.bufferPool;
+        this.bufferPool.setTextureParams(
+                parentPool.getTextureWrapU(), parentPool.getTextureWrapV(),
+                parentPool.getTextureFilterMin(), parentPool.getTextureFilterMag());
+        this.bufferRenderer = parent.bufferRenderer;
+        this.ownsBufferRenderer = false;
+        this.parent = parent;
+        this.shaderWarmup = null;
+        this.historyBuffers = new VfxHistoryBuffers(bufferPool, bufferRenderer);
+        this.pixelFormat = parent.pixelFormat;
+        this.bufferWidth = bufferWidth;
+        this.bufferHeight = bufferHeight;
+    }
+
     @Override
     public void dispose() {
+        historyBuffers.dispose();
         bufferPool.dispose();
-        bufferRenderer.dispose();
+        if (shaderWarmup != null) {
+            shaderWarmup.dispose();
+        }
+        if (ownsBufferRenderer) {
+            bufferRenderer.dispose();
+        }
+    }
+
+    /** Adds a reference to the context. Every call should be paired with {@link #release()}. */
+    public void retain() {
+        if (refCount <= 0) throw new IllegalStateException("The context is already disposed.");
+        refCount++;
+    }
+
+    /**
+     * Removes a reference from the context and disposes it when there's none left.
+     * @return true if the context got disposed.
+     */
+    public boolean release() {
+        if (refCount <= 0) throw new IllegalStateException("The context is already disposed.");
+        refCount--;
+        if (refCount == 0) {
+            dispose();
+            return true;
+        }
+        return false;
     }
 
+    /** @return the number of the references to the context. */
+    public int getRefCount() {
+        return refCount;
+    }
+
+    /**
+     * Advances the per frame tasks: the {@link #getShaderWarmup() shader warm-up},
+     * the {@link #getBufferPool() buffer pool} and the {@link #getHistoryBuffers() history buffers} housekeeping.
+     * Can be called by every user of the context, the tasks are only performed once per frame.
+     */
+    public void update() {
+        long frameId = Gdx.graphics.getFrameId();
+        if (lastUpdateFrameId == frameId) return;
+        lastUpdateFrameId = frameId;
+
+        if (shaderWarmup != null) {
+            shaderWarmup.update();
+        }
+        bufferPool.update();
+        historyBuffers.update();
+    }
+
+    /**
+     * Resizes the buffer pool.
+     * <b>NOTE:</b> The buffers of all the users of a shared context get resized, so they should all be of the same size.
+     */
     public void resize(int bufferWidth, int bufferHeight) {
+        if (this.bufferWidth != bufferWidth || this.bufferHeight != bufferHeight) {
+            // The history buffers get reinitialized by the pool.
+            historyBuffers.invalidate();
+        }
         this.bufferWidth = bufferWidth;
         this.bufferHeight = bufferHeight;
         this.bufferPool.resize(bufferWidth, bufferHeight);
@@ -56,8 +162,15 @@ public class VfxRenderContext implements Disposable {
         return bufferPool;
     }
 
+    /** @return the previous frames storage for the time dependent effects. Child contexts have their own one (of their buffer size). */
+    public VfxHistoryBuffers getHistoryBuffers() {
+        return historyBuffers;
+    }
+
     public void rebind() {
-        bufferRenderer.rebind();
+        if (ownsBufferRenderer) {
+            bufferRenderer.rebind();
+        }
     }
 
     public Pixmap.Format getPixelFormat() {
@@ -72,6 +185,29 @@ public class VfxRenderContext implements Disposable {
         return bufferRenderer.getMesh();
     }
 
+    /** @return the scheduler that compiles the programs of the lazily initialized effects. Child contexts share the parent's one. */
+    public VfxShaderWarmup getShaderWarmup() {
+        return parent != null ? parent.getShaderWarmup() : shaderWarmup;
+    }
+
+    /** @return the active profiler or null if there's none. Child contexts report to the parent's profiler. */
+    public VfxProfiler getProfiler() {
+        return parent != null ? parent.getProfiler() : profiler;
+    }
+
+    public void setProfiler(VfxProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /** @return the active GL call counters or null if there's none. Child contexts report to the parent's counters. */
+    public VfxGlStats getGlStats() {
+        return parent != null ? parent.getGlStats() : glStats;
+    }
+
+    public void setGlStats(VfxGlStats glStats) {
+        this.glStats = glStats;
+    }
+
     public int getBufferWidth() {
         return bufferWidth;
     }
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.crashinvaders.vfx.effects.ShaderVfxEffect;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+
+/**
+ * Compiles the shader programs of the lazily initialized effects (see {@link ShaderVfxEffect#lazyCompilation})
+ * a few programs per frame, so building an effect chain mid-game doesn't cause a hitch.
+ * <p>
+ * Every program is optionally drawn once into a 1x1 buffer, as many drivers defer the actual compilation until the first draw call.
+ * <p>
+ * {@link VfxManager} updates the warm-up of its context upon every {@link VfxManager#applyEffects()} call
+ * and passes the effects through until they are ready.
+ */
+public class VfxShaderWarmup implements Disposable {
+
+    private final Array<ShaderVfxEffect> pendingEffects = new Array<>();
+    private final VfxRenderContext context;
+
+    private int programsPerFrame = 1;
+    private boolean probeDrawEnabled = true;
+    private VfxFrameBuffer probeBuffer = null;
+
+    public VfxShaderWarmup(VfxRenderContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void dispose() {
+        pendingEffects.clear();
+        if (probeBuffer != null) {
+            probeBuffer.dispose();
+            probeBuffer = null;
+        }
+    }
+
+    /** Queues the effect's program for the compilation. Does nothing if the effect is ready or already queued. */
+    public void add(ShaderVfxEffect effect) {
+        if (effect.isReady() || pendingEffects.contains(effect, true)) return;
+        pendingEffects.add(effect);
+    }
+
+    /** Compiles the next few queued programs (up to {@link #getProgramsPerFrame()}). */
+    public void update() {
+        int count = Math.min(programsPerFrame, pendingEffects.size);
+        for (int i = 0; i < count; i++) {
+            warmUp(pendingEffects.removeIndex(0));
+        }
+    }
+
+    /** Compiles all the queued programs at once (e.g. during a loading screen). */
+    public void finishAll() {
+        while (pendingEffects.size > 0) {
+            warmUp(pendingEffects.removeIndex(0));
+        }
+    }
+
+    /** @return the number of the queued programs. */
+    public int getPendingCount() {
+        return pendingEffects.size;
+    }
+
+    public int getProgramsPerFrame() {
+        return programsPerFrame;
+    }
+
+    /** Sets the maximum number of the programs to be compiled per {@link #update()} call. Default is 1. */
+    public void setProgramsPerFrame(int programsPerFrame) {
+        if (programsPerFrame < 1) throw new IllegalArgumentException("Programs per frame should be a positive number.");
+        this.programsPerFrame = programsPerFrame;
+    }
+
+    public boolean isProbeDrawEnabled() {
+        return probeDrawEnabled;
+    }
+
+    /** Enables drawing every compiled program once into a 1x1 buffer to force the driver to finish the compilation. Enabled by default. */
+    public void setProbeDrawEnabled(boolean probeDrawEnabled) {
+        this.probeDrawEnabled = probeDrawEnabled;
+    }
+
+    private void warmUp(ShaderVfxEffect effect) {
+        VfxFrameBuffer probe = null;
+        if (probeDrawEnabled) {
+            if (probeBuffer == null) {
+                probeBuffer = new VfxFrameBuffer(context.getPixelFormat());
+                probeBuffer.setOwner(this);
+                probeBuffer.initialize(1, 1);
+            }
+            probe = probeBuffer;
+        }
+        effect.warmUp(context, probe);
+    }
+}
@@ -16,9 +16,14 @@
 
 package com.crashinvaders.vfx.effects;
 
+import com.crashinvaders.vfx.VfxShaderWarmup;
+
 public abstract class AbstractVfxEffect implements VfxEffect {
 
+    private static int stateVersion = 0;
+
     private boolean disabled;
+    private int revision = 0;
 
     @Override
     public boolean isDisabled() {
@@ -27,6 +32,59 @@ public abstract class AbstractVfxEffect implements VfxEffect {
 
     @Override
     public void setDisabled(boolean disabled) {
+        if (this.disabled == disabled) return;
+
         this.disabled = disabled;
+        markStateChanged();
+    }
+
+    /**
+     * @return the revision number of the effect's parameters.
+     * The value changes every time a parameter that affects the effect's output is changed.
+     * {@link com.crashinvaders.vfx.VfxManager} uses it to find out whether the previous result is still valid.
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return true if the effect's output changes over time (e.g. it's animated from {@link #update(float)}) or
+     * depends on the previous frames, so the result can never be reused, even if the input stays the same.
+     */
+    public boolean isTimeDependent() {
+        return false;
+    }
+
+    /**
+     * @return false if the effect is not ready to render yet (e.g. its shaders are not compiled).
+     * {@link com.crashinvaders.vfx.VfxManager} passes such effects through.
+     */
+    public boolean isReady() {
+        return true;
+    }
+
+    /** Queues the pending shader programs of the effect (if any) for the compilation. */
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        // Do nothing by default.
+    }
+
+    /** Should be called whenever a parameter that affects the effect's output gets changed. */
+    protected void markChanged() {
+        revision++;
+    }
+
+    /**
+     * @return the number that changes every time any effect gets enabled, disabled or ready.
+     * {@link com.crashinvaders.vfx.VfxManager} uses it to find out whether its list of the enabled effects is still valid.
+     * <p>
+     * The number is shared by all the effects, so the changes of the nested effects (e.g. wrapped ones) are tracked as well.
+     */
+    public static int getStateVersion() {
+        return stateVersion;
+    }
+
+    /** Should be called whenever the value of {@link #isReady()} changes. */
+    protected static void markStateChanged() {
+        stateVersion++;
     }
-}
\ No newline at end of file
+}
@@ -17,6 +17,7 @@
 package com.crashinvaders.vfx.effects;
 
 import com.badlogic.gdx.utils.Array;
+import com.crashinvaders.vfx.VfxShaderWarmup;
 
 /**
  * Base class for an effect that is a composition of some other {@link VfxEffect}s.
@@ -57,13 +58,62 @@ public abstract class CompositeVfxEffect extends AbstractVfxEffect {
         }
     }
 
+    /** @return the combined revision of the effect and all the managed effects. */
+    @Override
+    public int getRevision() {
+        int revision = super.getRevision();
+        for (int i = 0; i < managedEffects.size; i++) {
+            VfxEffect effect = managedEffects.get(i);
+            if (effect instanceof AbstractVfxEffect) {
+                revision += ((AbstractVfxEffect) effect).getRevision();
+            }
+        }
+        return revision;
+    }
+
+    /** @return true if any of the managed effects is time dependent (or its state cannot be tracked). */
+    @Override
+    public boolean isTimeDependent() {
+        for (int i = 0; i < managedEffects.size; i++) {
+            VfxEffect effect = managedEffects.get(i);
+            if (!(effect instanceof AbstractVfxEffect) || ((AbstractVfxEffect) effect).isTimeDependent()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return true if all the managed effects are ready. */
+    @Override
+    public boolean isReady() {
+        for (int i = 0; i < managedEffects.size; i++) {
+            VfxEffect effect = managedEffects.get(i);
+            if (effect instanceof AbstractVfxEffect && !((AbstractVfxEffect) effect).isReady()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        for (int i = 0; i < managedEffects.size; i++) {
+            VfxEffect effect = managedEffects.get(i);
+            if (effect instanceof AbstractVfxEffect) {
+                ((AbstractVfxEffect) effect).requestWarmup(warmup);
+            }
+        }
+    }
+
     protected <T extends VfxEffect> T register(T effect) {
         managedEffects.add(effect);
+        markChanged();
         return effect;
     }
 
     protected <T extends VfxEffect> T unregister(T effect) {
         managedEffects.removeValue(effect, true);
+        markChanged();
         return effect;
     }
 }
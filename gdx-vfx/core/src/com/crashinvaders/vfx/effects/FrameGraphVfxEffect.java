@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.effects;
+
+import com.crashinvaders.vfx.framegraph.VfxFrameGraph;
+
+/**
+ * A chain effect that is able to describe its render passes and their buffer dependencies upfront.
+ * <p>
+ * When {@link com.crashinvaders.vfx.VfxManager} runs in the frame-graph mode
+ * (see {@link com.crashinvaders.vfx.VfxManager#setFrameGraphEnabled(boolean)}),
+ * such effects are not rendered through {@link #render(com.crashinvaders.vfx.VfxRenderContext, com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper)},
+ * but through the passes they declare. All the intermediate buffers are then provided by the {@link VfxFrameGraph}
+ * and may share the same {@link com.crashinvaders.vfx.framebuffer.VfxFrameBuffer} with other transient buffers of the chain.
+ * <p>
+ * Regular {@link #render(com.crashinvaders.vfx.VfxRenderContext, com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper)}
+ * method should still be implemented for the regular (non frame-graph) mode.
+ */
+public interface FrameGraphVfxEffect extends ChainVfxEffect {
+
+    /**
+     * Declares the render passes of the effect.
+     * The method is called once per frame-graph compilation (not every frame),
+     * so the pass structure shall not depend on the effect's per-frame state.
+     * If it does, call {@link VfxFrameGraph#invalidate()} whenever the structure changes.
+     * @param builder the frame graph builder to declare passes and transient buffers with.
+     * @param input the resource handle of the effect's input buffer.
+     * @param output the resource handle of the buffer where the effect's result is expected to be.
+     */
+    void declarePasses(VfxFrameGraph.Builder builder, int input, int output);
+}
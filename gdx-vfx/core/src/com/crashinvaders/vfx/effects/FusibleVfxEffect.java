@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.effects;
+
+import com.crashinvaders.vfx.fusion.FusionUniforms;
+import com.crashinvaders.vfx.fusion.VfxEffectFusion;
+
+/**
+ * A per-pixel (pointwise) chain effect that reads exactly one texel of the input buffer
+ * at the fragment's own coordinates and doesn't depend on any other state of the buffer.
+ * <p/>
+ * When a few of such effects follow each other in the {@link com.crashinvaders.vfx.VfxManager}'s effect chain,
+ * they can be stitched by {@link VfxEffectFusion} into a single generated shader pass,
+ * instead of paying for a full-screen read and write per effect.
+ * <p/>
+ * The effect still has to provide a regular {@link #render(com.crashinvaders.vfx.VfxRenderContext, com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper)}
+ * implementation, it's used whenever the effect cannot be fused (e.g. it's the only pointwise effect in a row).
+ */
+public interface FusibleVfxEffect extends ChainVfxEffect {
+
+    /**
+     * @return the identifier of the fusion source code variant.
+     * Effects that return the same value must provide the same {@link #getFusionSource()}.
+     */
+    String getFusionId();
+
+    /**
+     * @return the GLSL code of the effect's fragment body. The code should declare the function
+     * <pre>vec4 $apply(vec4 color, vec2 uv)</pre>
+     * that receives the input color (the output of the previous effect) and the texture coordinates
+     * and returns the result color.
+     * <p/>
+     * Every global identifier (uniforms, constants, helper functions) should start with the
+     * {@link VfxEffectFusion#PREFIX_PLACEHOLDER} symbol, it's replaced with a unique prefix per effect
+     * to avoid name clashes within the generated shader.
+     * <p/>
+     * To keep a single source of truth, the regular shader file of the effect may <code>#include</code> the same code
+     * and call <code>u_apply()</code>, the placeholder turns into {@link VfxEffectFusion#STANDALONE_PREFIX} there.
+     */
+    String getFusionSource();
+
+    /**
+     * Updates the effect's uniforms of the generated shader. The program is bound at the moment of the call.
+     * The uniform names are expected without the prefix placeholder.
+     */
+    void applyFusionUniforms(FusionUniforms uniforms);
+}
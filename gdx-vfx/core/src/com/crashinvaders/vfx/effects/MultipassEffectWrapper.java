@@ -17,6 +17,7 @@
 package com.crashinvaders.vfx.effects;
 
 import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.VfxShaderWarmup;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 
 public class MultipassEffectWrapper extends AbstractVfxEffect implements ChainVfxEffect {
@@ -48,6 +49,33 @@ public class MultipassEffectWrapper extends AbstractVfxEffect implements ChainVf
         effect.dispose();
     }
 
+    @Override
+    public int getRevision() {
+        int revision = super.getRevision();
+        if (effect instanceof AbstractVfxEffect) {
+            revision += ((AbstractVfxEffect) effect).getRevision();
+        }
+        return revision;
+    }
+
+    @Override
+    public boolean isTimeDependent() {
+        // The wrapped effect's state cannot be tracked unless it's an AbstractVfxEffect.
+        return !(effect instanceof AbstractVfxEffect) || ((AbstractVfxEffect) effect).isTimeDependent();
+    }
+
+    @Override
+    public boolean isReady() {
+        return !(effect instanceof AbstractVfxEffect) || ((AbstractVfxEffect) effect).isReady();
+    }
+
+    @Override
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        if (effect instanceof AbstractVfxEffect) {
+            ((AbstractVfxEffect) effect).requestWarmup(warmup);
+        }
+    }
+
     @Override
     public void render(VfxRenderContext context, VfxPingPongWrapper buffers) {
         // Simply swap buffers to simulate render skip.
@@ -74,5 +102,6 @@ public class MultipassEffectWrapper extends AbstractVfxEffect implements ChainVf
             throw new IllegalArgumentException("Passes value cannot be a negative number.");
         }
         this.passes = passes;
+        markChanged();
     }
 }
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.effects;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.VfxShaderWarmup;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
+
+/**
+ * Renders the wrapped effect at a fraction of the chain's resolution.
+ * <p>
+ * The input is downsampled into a smaller buffer, the effect is applied there and the result is upsampled back
+ * with bilinear filtering. Works great for the effects that blur the image anyway
+ * (e.g. {@link com.crashinvaders.vfx.effects.GaussianBlurEffect GaussianBlurEffect}), as the result looks almost the same,
+ * while the fragment cost of the effect drops by the square of the divisor.
+ * <p>
+ * The wrapped effect receives a render context of the reduced size,
+ * so any buffer it obtains from {@link VfxRenderContext#getBufferPool()} is of the reduced size as well.
+ */
+public class ScaledEffectWrapper extends AbstractVfxEffect implements ChainVfxEffect {
+
+    private final ChainVfxEffect effect;
+    private int divisor;
+
+    private int width = 1;
+    private int height = 1;
+
+    private VfxRenderContext scaledContext = null;
+    private VfxPingPongWrapper scaledBuffers = null;
+
+    /** @param divisor the resolution divisor (e.g. 2 for the half and 4 for the quarter resolution). */
+    public ScaledEffectWrapper(ChainVfxEffect effect, int divisor) {
+        this.effect = effect;
+        setDivisor(divisor);
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        resizeScaled();
+    }
+
+    @Override
+    public void update(float delta) {
+        effect.update(delta);
+    }
+
+    @Override
+    public void rebind() {
+        effect.rebind();
+    }
+
+    @Override
+    public void dispose() {
+        effect.dispose();
+        if (scaledBuffers != null) {
+            scaledBuffers.reset();
+            scaledBuffers = null;
+        }
+        if (scaledContext != null) {
+            scaledContext.dispose();
+            scaledContext = null;
+        }
+    }
+
+    @Override
+    public int getRevision() {
+        int revision = super.getRevision();
+        if (effect instanceof AbstractVfxEffect) {
+            revision += ((AbstractVfxEffect) effect).getRevision();
+        }
+        return revision;
+    }
+
+    @Override
+    public boolean isTimeDependent() {
+        // The wrapped effect's state cannot be tracked unless it's an AbstractVfxEffect.
+        return !(effect instanceof AbstractVfxEffect) || ((AbstractVfxEffect) effect).isTimeDependent();
+    }
+
+    @Override
+    public boolean isReady() {
+        return !(effect instanceof AbstractVfxEffect) || ((AbstractVfxEffect) effect).isReady();
+    }
+
+    @Override
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        if (effect instanceof AbstractVfxEffect) {
+            ((AbstractVfxEffect) effect).requestWarmup(warmup);
+        }
+    }
+
+    @Override
+    public void render(VfxRenderContext context, VfxPingPongWrapper buffers) {
+        if (divisor == 1) {
+            effect.render(context, buffers);
+            return;
+        }
+
+        if (scaledContext == null) {
+            scaledContext = new VfxRenderContext(context, getScaledWidth(), getScaledHeight());
+            scaledBuffers = new VfxPingPongWrapper(scaledContext.getBufferPool());
+        }
+        // The private context's pool and history buffers need the per frame housekeeping too.
+        scaledContext.update();
+
+        // The dst buffer is going to be rendered into by the buffer renderer, it cannot stay bound meanwhile.
+        boolean capturing = buffers.isCapturing();
+        if (capturing) { buffers.getDstBuffer().end(); }
+
+        // Downsample.
+        renderFiltered(context, buffers.getSrcBuffer(), scaledBuffers.getSrcBuffer());
+
+        // Apply the effect at the reduced resolution.
+        scaledBuffers.begin();
+        effect.render(scaledContext, scaledBuffers);
+        scaledBuffers.end();
+
+        // Upsample.
+        renderFiltered(context, scaledBuffers.getDstBuffer(), buffers.getDstBuffer());
+
+        if (capturing) { buffers.getDstBuffer().begin(); }
+    }
+
+    public ChainVfxEffect getEffect() {
+        return effect;
+    }
+
+    public int getDivisor() {
+        return divisor;
+    }
+
+    /** @param divisor the resolution divisor (e.g. 2 for the half and 4 for the quarter resolution). */
+    public void setDivisor(int divisor) {
+        if (divisor < 1) {
+            throw new IllegalArgumentException("Divisor should be a positive number.");
+        }
+        if (this.divisor == divisor) return;
+
+        this.divisor = divisor;
+        resizeScaled();
+        markChanged();
+    }
+
+    private int getScaledWidth() {
+        return Math.max(1, width / divisor);
+    }
+
+    private int getScaledHeight() {
+        return Math.max(1, height / divisor);
+    }
+
+    private void resizeScaled() {
+        int scaledWidth = getScaledWidth();
+        int scaledHeight = getScaledHeight();
+        if (scaledContext != null) {
+            scaledContext.resize(scaledWidth, scaledHeight);
+        }
+        effect.resize(scaledWidth, scaledHeight);
+    }
+
+    private static void renderFiltered(VfxRenderContext context, VfxFrameBuffer src, VfxFrameBuffer dst) {
+        Texture texture = src.getTexture();
+        Texture.TextureFilter minFilter = texture.getMinFilter();
+        Texture.TextureFilter magFilter = texture.getMagFilter();
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        context.getBufferRenderer().renderToFbo(src, dst);
+        texture.setFilter(minFilter, magFilter);
+    }
+}
@@ -23,9 +23,20 @@ import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
 import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.VfxShaderWarmup;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-
-/** Base class for any shader based single-pass filter. */
+import com.crashinvaders.vfx.gl.VfxProgramRegistry;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
+import com.crashinvaders.vfx.profiling.VfxProfiler;
+import com.crashinvaders.vfx.utils.UniformBatcher;
+
+/**
+ * Base class for any shader based single-pass filter.
+ * <p/>
+ * <b>NOTE:</b> The <code>setUniform()</code> methods stage the values in {@link #uniforms} rather than upload them right away.
+ * The staged values get uploaded by {@link #renderShader(VfxRenderContext, VfxFrameBuffer)}.
+ * The subclasses that draw with the {@link #program} by other means should call {@link #flushUniforms()} once the program is bound.
+ */
 @SuppressWarnings("unchecked")
 public abstract class ShaderVfxEffect extends AbstractVfxEffect {
 
@@ -38,15 +49,77 @@ public abstract class ShaderVfxEffect extends AbstractVfxEffect {
     public static final int TEXTURE_HANDLE6 = 6;
     public static final int TEXTURE_HANDLE7 = 7;
 
-    protected final ShaderProgram program;
+    /**
+     * When enabled, the effects created with a {@link VfxShaderRequest} don't compile their programs in the constructor.
+     * The programs get compiled by {@link VfxShaderWarmup} (or right before the first render),
+     * {@link com.crashinvaders.vfx.VfxManager} passes the effects through until then.
+     */
+    public static boolean lazyCompilation = false;
+
+    /** The effect's program. May be null for the lazily initialized effect, see {@link #isReady()}. */
+    protected ShaderProgram program;
+    /** Stages the uniform values until the program gets bound for rendering. */
+    protected final UniformBatcher uniforms;
+
+    private VfxShaderRequest shaderRequest;
 
     public ShaderVfxEffect(ShaderProgram program) {
         this.program = program;
+        this.uniforms = new UniformBatcher(program);
+    }
+
+    /** The program is compiled right away, unless {@link #lazyCompilation} is enabled. */
+    public ShaderVfxEffect(VfxShaderRequest shaderRequest) {
+        this.shaderRequest = shaderRequest;
+        this.uniforms = new UniformBatcher(null);
+        if (!lazyCompilation) {
+            compileShader();
+        }
     }
 
     @Override
     public void dispose() {
-        program.dispose();
+        shaderRequest = null;
+        if (program == null) return;
+
+        // The shared programs are disposed by the registry once the last user releases them.
+        if (!VfxProgramRegistry.release(program)) {
+            program.dispose();
+        }
+    }
+
+    /** @return true if the program is compiled. */
+    @Override
+    public boolean isReady() {
+        return program != null;
+    }
+
+    @Override
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        if (program == null) {
+            warmup.add(this);
+        }
+    }
+
+    /** Compiles the requested program. Does nothing if the program is already compiled (or the effect is disposed). */
+    public void compileShader() {
+        if (program != null || shaderRequest == null) return;
+
+        program = shaderRequest.obtain();
+        uniforms.setProgram(program);
+        markChanged();
+        markStateChanged();
+    }
+
+    /**
+     * Compiles the program and draws it once into the probe buffer (if provided),
+     * so the driver finishes the compilation before the effect is actually used.
+     */
+    public void warmUp(VfxRenderContext context, VfxFrameBuffer probe) {
+        compileShader();
+        if (program != null && probe != null) {
+            renderShader(context, probe);
+        }
     }
 
     @Override
@@ -56,7 +129,7 @@ public abstract class ShaderVfxEffect extends AbstractVfxEffect {
 
     @Override
     public void rebind() {
-        // Do nothing by default.
+        uniforms.rebind();
     }
 
     @Override
@@ -69,125 +142,108 @@ public abstract class ShaderVfxEffect extends AbstractVfxEffect {
     }
 
     protected void renderShader(VfxRenderContext context, VfxFrameBuffer dst) {
+        if (program == null) {
+            // The effect is used before the warm-up got to it.
+            compileShader();
+        }
+
+        // Shader passes of the composite effects are profiled separately.
+        VfxProfiler profiler = context.getProfiler();
+        boolean profilerScope = false;
+        if (profiler != null) {
+            String name = profiler.getName(this);
+            profilerScope = !name.equals(profiler.getCurrentScopeName());
+            if (profilerScope) { profiler.beginScope(name); }
+        }
+
         boolean manualBufferBind = !dst.isDrawing();
         if (manualBufferBind) { dst.begin(); }
 
         program.begin();
+        flushUniforms();
         context.getViewportMesh().render(program);
         program.end();
 
         if (manualBufferBind) { dst.end(); }
+
+        if (profilerScope) { profiler.endScope(); }
     }
 
     /**
-     * Updates shader's uniform of float type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
+     * Uploads the staged uniform values. The program should be bound.
+     * Called by {@link #renderShader(VfxRenderContext, VfxFrameBuffer)},
+     * the subclasses that render with the program themselves should call it as well.
      */
+    protected void flushUniforms() {
+        uniforms.flush();
+    }
+
+    /** Updates shader's uniform of float type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, float value) {
-        program.begin();
-        program.setUniformf(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of int type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of int type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, int value) {
-        program.begin();
-        program.setUniformi(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of vec2 type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of vec2 type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, Vector2 value) {
-        program.begin();
-        program.setUniformf(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of vec3 type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of vec3 type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, Vector3 value) {
-        program.begin();
-        program.setUniformf(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of vec4 type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of vec4 type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, Color value) {
-        program.begin();
-        program.setUniformf(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of mat3 type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of mat3 type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, Matrix3 value) {
-        program.begin();
-        program.setUniformMatrix(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
-    /**
-     * Updates shader's uniform of mat4 type.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
-     */
+    /** Updates shader's uniform of mat4 type. The value is uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call. */
     protected void setUniform(String uniformName, Matrix4 value) {
-        program.begin();
-        program.setUniformMatrix(uniformName, value);
-        program.end();
+        uniforms.set(uniformName, value);
+        markChanged();
     }
 
     /**
-     * Updates shader's uniform array.
-     * <p/>
-     * <b>NOTE:</b> This is an utility method that will bind/unbind the shader program internally on every call.
-     * If you need to update multiple uniforms, please consider calling methods directly from {@link ShaderProgram}.
+     * Updates shader's uniform array. The values are copied and uploaded upon the next {@link #renderShader(VfxRenderContext, VfxFrameBuffer)} call.
      * @param elementSize Defines the type of the uniform array: float[], vec2[], vec3[] or vec4[].
      * Expected value is within the range of [1..4] (inclusively). */
     protected void setUniform(String uniformName, int elementSize, float[] values, int offset, int length) {
-        program.begin();
-        switch (elementSize) {
-            case 1:
-                program.setUniform1fv(uniformName, values, offset, length);
-                break;
-            case 2:
-                program.setUniform2fv(uniformName, values, offset, length);
-                break;
-            case 3:
-                program.setUniform3fv(uniformName, values, offset, length);
-                break;
-            case 4:
-                program.setUniform4fv(uniformName, values, offset, length);
-                break;
-            default:
-                throw new IllegalArgumentException("elementSize has illegal value: " + elementSize + ". Possible values are 1..4");
-        }
-        program.end();
+        uniforms.set(uniformName, elementSize, values, offset, length);
+        markChanged();
+    }
+
+    /** Updates shader's uniform of float type using the slot obtained from {@link UniformBatcher#register(String)}. */
+    protected void setUniform(int slot, float value) {
+        uniforms.set(slot, value);
+        markChanged();
+    }
+
+    /** Updates shader's uniform of vec2 type using the slot obtained from {@link UniformBatcher#register(String)}. */
+    protected void setUniform(int slot, float x, float y) {
+        uniforms.set(slot, x, y);
+        markChanged();
+    }
+
+    /** Updates shader's uniform of vec3 type using the slot obtained from {@link UniformBatcher#register(String)}. */
+    protected void setUniform(int slot, float x, float y, float z) {
+        uniforms.set(slot, x, y, z);
+        markChanged();
     }
 }
@@ -16,8 +16,6 @@
 
 package com.crashinvaders.vfx.framebuffer;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
@@ -29,6 +27,7 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 import com.badlogic.gdx.utils.Pool;
 import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxGlState;
 import com.crashinvaders.vfx.gl.VfxGlViewport;
 
 /**
@@ -86,6 +85,7 @@ public class VfxFrameBuffer implements Disposable {
     private int previousFboHandle;
 
     private FrameBuffer fbo = null;
+    private Object owner = null;
     private boolean initialized;
     private boolean drawing;
 
@@ -99,19 +99,26 @@ public class VfxFrameBuffer implements Disposable {
     }
 
     public void initialize(int width, int height) {
-        if (initialized) { dispose(); }
+        if (initialized) {
+            // Keep the buffer registered within the memory tracker.
+            initialized = false;
+            fbo.dispose();
+            fbo = null;
+        }
 
         initialized = true;
 
         int boundFboHandle = getBoundFboHandle();
         fbo = new FrameBuffer(pixelFormat, width, height, false);
         fbo.getColorBufferTexture().setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
-        Gdx.gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, boundFboHandle);
+        VfxGlState.bindFramebuffer(boundFboHandle);
 
         OrthographicCamera cam = tmpCam;
         cam.setToOrtho(false, width, height);
         localProjection.set(cam.combined);
         localTransform.set(zeroTransform);
+
+        VfxMemoryTracker.onInitialized(this);
     }
 
     public void reset() {
@@ -121,6 +128,8 @@ public class VfxFrameBuffer implements Disposable {
 
         fbo.dispose();
         fbo = null;
+
+        VfxMemoryTracker.onReset(this);
     }
 
     public FrameBuffer getFbo() {
@@ -135,6 +144,16 @@ public class VfxFrameBuffer implements Disposable {
         return pixelFormat;
     }
 
+    /** @return the object the buffer's memory is accounted to by {@link VfxMemoryTracker}. */
+    public Object getOwner() {
+        return owner;
+    }
+
+    /** @param owner the object the buffer's memory should be accounted to by {@link VfxMemoryTracker}. */
+    public void setOwner(Object owner) {
+        this.owner = owner;
+    }
+
     public boolean isInitialized() {
         return initialized;
     }
@@ -183,8 +202,8 @@ public class VfxFrameBuffer implements Disposable {
         renderers.flush();
         previousFboHandle = getBoundFboHandle();
         preservedViewport.set(getViewport());
-        Gdx.gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, fbo.getFramebufferHandle());
-        Gdx.gl20.glViewport(0, 0, getFbo().getWidth(), getFbo().getHeight());
+        VfxGlState.bindFramebuffer(fbo.getFramebufferHandle());
+        VfxGlState.setViewport(0, 0, fbo.getWidth(), fbo.getHeight());
         renderers.assignLocalMatrices(localProjection, localTransform);
     }
 
@@ -194,26 +213,24 @@ public class VfxFrameBuffer implements Disposable {
         if (!initialized) throw new IllegalStateException("VfxFrameBuffer must be initialized first");
         if (!drawing) throw new IllegalStateException("Is not drawing");
 
-        if (getBoundFboHandle() != fbo.getFramebufferHandle()) {
+        if (VfxGlState.debugChecks && VfxGLUtils.getBoundFboHandle() != fbo.getFramebufferHandle()) {
             throw new IllegalStateException("Current bound OpenGL FBO's handle doesn't match to wrapped one. It seems like begin/end order was violated.");
         }
 
         drawing = false;
 
         renderers.flush();
-        Gdx.gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, previousFboHandle);
-        Gdx.gl20.glViewport(preservedViewport.x, preservedViewport.y, preservedViewport.width, preservedViewport.height);
+        VfxGlState.bindFramebuffer(previousFboHandle);
+        VfxGlState.setViewport(preservedViewport);
         renderers.restoreOwnMatrices();
     }
 
     protected int getBoundFboHandle() {
-        int boundFboHandle = VfxGLUtils.getBoundFboHandle();
-        return boundFboHandle;
+        return VfxGlState.getBoundFboHandle();
     }
 
     protected VfxGlViewport getViewport() {
-        VfxGlViewport viewport = VfxGLUtils.getViewport();
-        return viewport;
+        return VfxGlState.getViewport();
     }
 
     private static class RendererManager implements Renderer {
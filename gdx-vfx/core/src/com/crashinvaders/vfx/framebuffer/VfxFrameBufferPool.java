@@ -22,19 +22,48 @@ import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.ObjectSet;
 
-//TODO Add javadoc.
+/**
+ * Pools {@link VfxFrameBuffer} instances.
+ * <p>
+ * The buffers obtained with {@link #obtain()} are of the pool's size and pixel format.
+ * They follow the pool's {@link #resize(int, int)} calls, even those that are currently in use are reinitialized.
+ * <p>
+ * The buffers of any other size or format (e.g. half resolution intermediates) are obtained with {@link #obtain(int, int, Pixmap.Format)}.
+ * The free buffers are kept in separate lists per size and format.
+ * The free buffers that don't match the pool's configuration get disposed once they stay unused
+ * for more than {@link #setMaxIdleFrames(int) max idle frames}, the least recently used ones go first.
+ * The frames are counted by {@link #update()} calls.
+ */
 public class VfxFrameBufferPool implements Disposable {
     private static final String TAG = VfxFrameBufferPool.class.getSimpleName();
 
     /** The highest number of free buffer instances. Can be reset any time. */
     public int freePeak;
+    /** The number of the buffers created by the pool. Can be reset any time. */
+    public int createdCount;
+    /**
+     * The number of the buffers created from within the obtain methods, as no free buffer was available.
+     * Those are allocated in the middle of rendering and may cause a hitch, consider {@link #prewarm(int) pre-warming}.
+     * Can be reset any time.
+     */
+    public int hotPathCreatedCount;
 
     /** A collection of all the buffers created and managed by the pool. */
     protected final Array<VfxFrameBuffer> managedBuffers;
-    /** A pool of spare buffers that are ready to be obtained. */
+    /** A pool of spare buffers that are ready to be obtained (the least recently freed go first). */
     protected final Array<VfxFrameBuffer> freeBuffers;
 
+    /** The free buffers grouped by {@link #toKey(int, int, Pixmap.Format) size and format}. */
+    private final LongMap<Array<VfxFrameBuffer>> freeBuffersByKey = new LongMap<>();
+    /** The frame index at the moment a buffer was freed. */
+    private final ObjectIntMap<VfxFrameBuffer> freeFrames = new ObjectIntMap<>();
+    /** The buffers obtained with {@link #obtain()} and are currently in use. */
+    private final ObjectSet<VfxFrameBuffer> poolSizedBuffers = new ObjectSet<>();
+
     private int width;
     private int height;
     private Pixmap.Format pixelFormat;
@@ -44,6 +73,13 @@ public class VfxFrameBufferPool implements Disposable {
     private Texture.TextureFilter textureFilterMin = Texture.TextureFilter.Nearest;
     private Texture.TextureFilter textureFilterMag = Texture.TextureFilter.Nearest;
 
+    private int maxIdleFrames = 120;
+    private int frameIndex = 0;
+
+    private int scheduledPrewarmCount = 0;
+    private int prewarmBuffersPerFrame = 1;
+    private boolean prewarming = false;
+
     private boolean disposed = false;
 
     public VfxFrameBufferPool() {
@@ -56,7 +92,9 @@ public class VfxFrameBufferPool implements Disposable {
         this.pixelFormat = pixelFormat;
 
         this.managedBuffers = new Array<>(false, initialCapacity);
-        this.freeBuffers = new Array<>(false, initialCapacity);
+        this.freeBuffers = new Array<>(true, initialCapacity);
+
+        VfxMemoryTracker.registerPool(this);
     }
 
     @Override
@@ -66,32 +104,118 @@ public class VfxFrameBufferPool implements Disposable {
             Gdx.app.error(TAG, "At the moment of disposal, " +
                     "the pool still has some managed buffers unfreed (" + unfreedBufferAmount +"). " +
                     "Someone's using them and hasn't freed?");
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < managedBuffers.size; i++) {
+                VfxFrameBuffer buffer = managedBuffers.get(i);
+                Throwable callSite = VfxMemoryTracker.getCallSite(buffer);
+                if (callSite != null && !freeBuffers.contains(buffer, true)) {
+                    VfxMemoryTracker.appendCallSite(sb.append("Unfreed "), buffer, callSite);
+                }
+            }
+            if (sb.length() > 0) {
+                Gdx.app.error(TAG, sb.toString());
+            }
         }
 
         disposed = true;
+        VfxMemoryTracker.unregisterPool(this);
 
         for (int i = 0; i < managedBuffers.size; i++) {
             managedBuffers.get(i).dispose();
         }
         managedBuffers.clear();
         freeBuffers.clear();
+        freeBuffersByKey.clear();
+        freeFrames.clear();
+        poolSizedBuffers.clear();
     }
 
     public void resize(int width, int height) {
+        long previousKey = toKey(this.width, this.height, pixelFormat);
+
         this.width = width;
         this.height = height;
 
+        if (previousKey != toKey(width, height, pixelFormat)) {
+            disposeFree(previousKey);
+        }
         cleanupInvalid();
     }
 
     /**
-     * Returns a buffer from this pool. The buffer may be
+     * Advances the frame counter and disposes the free buffers of the foreign size or format
+     * that stayed idle for too long. Should be called once per frame.
+     */
+    public void update() {
+        frameIndex++;
+
+        long poolKey = toKey(width, height, pixelFormat);
+
+        if (scheduledPrewarmCount > 0) {
+            int missingCount = scheduledPrewarmCount - getFreeCount(poolKey);
+            int created = createFree(Math.min(missingCount, prewarmBuffersPerFrame), width, height, pixelFormat);
+            // Don't keep allocating every frame once the memory budget is reached.
+            if (created >= missingCount || VfxMemoryTracker.isOverBudget()) {
+                scheduledPrewarmCount = 0;
+            }
+        }
+
+        if (maxIdleFrames < 0) return;
+
+        for (int i = 0; i < freeBuffers.size; i++) {
+            VfxFrameBuffer buffer = freeBuffers.get(i);
+            int idleFrames = frameIndex - freeFrames.get(buffer, frameIndex);
+            // The buffers are ordered by the time they were freed.
+            if (idleFrames <= maxIdleFrames) break;
+
+            long key = toKey(buffer);
+            if (key == poolKey) continue;
+
+            freeBuffers.removeIndex(i--);
+            removeFree(buffer, key);
+            managedBuffers.removeValue(buffer, true);
+            buffer.dispose();
+        }
+    }
+
+    /**
+     * Returns a buffer of the pool's size and pixel format. The buffer may be
      * new (from {@link #createBuffer()}) or reused (previously {@link #free(VfxFrameBuffer) freed}).
+     * <p>
+     * The buffer gets reinitialized when the pool is {@link #resize(int, int) resized} while it's in use.
      */
     public VfxFrameBuffer obtain() {
         if (disposed) throw new IllegalStateException("Instance is already disposed");
 
-        return freeBuffers.size == 0 ? createBuffer() : freeBuffers.pop();
+        VfxFrameBuffer buffer = obtainFree(toKey(width, height, pixelFormat));
+        if (buffer == null) {
+            buffer = createBuffer();
+            hotPathCreatedCount++;
+        }
+        poolSizedBuffers.add(buffer);
+        VfxMemoryTracker.onObtained(buffer);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer of the specified size and pixel format. The buffer may be
+     * new (from {@link #createBuffer(int, int, Pixmap.Format)}) or reused (previously {@link #free(VfxFrameBuffer) freed}).
+     * <p>
+     * The buffer is not affected by the pool's {@link #resize(int, int)} calls.
+     */
+    public VfxFrameBuffer obtain(int width, int height, Pixmap.Format pixelFormat) {
+        if (disposed) throw new IllegalStateException("Instance is already disposed");
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Buffer size should be positive: " + width + "x" + height);
+        if (pixelFormat == null) throw new IllegalArgumentException("pixelFormat cannot be null.");
+
+        VfxFrameBuffer buffer = obtainFree(toKey(width, height, pixelFormat));
+        if (buffer == null) {
+            buffer = createBuffer(width, height, pixelFormat);
+            hotPathCreatedCount++;
+        }
+        VfxMemoryTracker.onObtained(buffer);
+        return buffer;
     }
 
     /**
@@ -103,17 +227,68 @@ public class VfxFrameBufferPool implements Disposable {
         if (disposed) throw new IllegalStateException("Instance is already disposed");
         if (buffer == null) throw new IllegalArgumentException("buffer cannot be null.");
 
-        if (!validateBuffer(buffer)) {
+        VfxMemoryTracker.onFreed(buffer);
+
+        boolean poolSized = poolSizedBuffers.remove(buffer);
+        if (!buffer.isInitialized() || (poolSized && !validateBuffer(buffer))) {
             managedBuffers.removeValue(buffer, true);
             buffer.dispose();
             return;
         }
 
-        freeBuffers.add(buffer);
-        freePeak = Math.max(freePeak, freeBuffers.size);
+        addFree(buffer, toKey(buffer));
         resetBuffer(buffer);
     }
 
+    /**
+     * Creates the buffers of the pool's size and pixel format up front, so there are at least the number of free buffers specified.
+     * Call it during loading to avoid the buffers being allocated in the middle of rendering.
+     * @see #schedulePrewarm(int)
+     */
+    public void prewarm(int count) {
+        prewarm(count, width, height, pixelFormat);
+    }
+
+    /**
+     * Creates the buffers of the size and pixel format specified up front, so there are at least the number of free buffers specified.
+     * The pre-warming stops early once {@link VfxMemoryTracker} goes over the budget.
+     * <p>
+     * <b>NOTE:</b> The free buffers of a foreign size or format are still subject to the {@link #setMaxIdleFrames(int) idle eviction}.
+     */
+    public void prewarm(int count, int width, int height, Pixmap.Format pixelFormat) {
+        if (disposed) throw new IllegalStateException("Instance is already disposed");
+
+        createFree(count - getFreeCount(toKey(width, height, pixelFormat)), width, height, pixelFormat);
+    }
+
+    /**
+     * Same as {@link #prewarm(int)}, but the buffers are created gradually
+     * from the next {@link #update()} calls ({@link #setPrewarmBuffersPerFrame(int) a few per frame}).
+     * The scheduled pre-warming is dropped once {@link VfxMemoryTracker} goes over the budget.
+     */
+    public void schedulePrewarm(int count) {
+        if (disposed) throw new IllegalStateException("Instance is already disposed");
+
+        scheduledPrewarmCount = Math.max(scheduledPrewarmCount, count);
+    }
+
+    /** @return the number of the buffers that are yet to be created by the {@link #schedulePrewarm(int) scheduled pre-warming}. */
+    public int getPendingPrewarmCount() {
+        return Math.max(0, scheduledPrewarmCount - getFreeCount(toKey(width, height, pixelFormat)));
+    }
+
+    public int getPrewarmBuffersPerFrame() {
+        return prewarmBuffersPerFrame;
+    }
+
+    /** @param prewarmBuffersPerFrame the number of buffers the {@link #schedulePrewarm(int) scheduled pre-warming} creates per frame. */
+    public void setPrewarmBuffersPerFrame(int prewarmBuffersPerFrame) {
+        if (prewarmBuffersPerFrame < 1) {
+            throw new IllegalArgumentException("The number of buffers per frame should be a positive number.");
+        }
+        this.prewarmBuffersPerFrame = prewarmBuffersPerFrame;
+    }
+
     /** Removes all the free buffers from the pool. */
     public void clearFree() {
         for (int i = 0; i < freeBuffers.size; i++) {
@@ -122,6 +297,27 @@ public class VfxFrameBufferPool implements Disposable {
             buffer.dispose();
         }
         freeBuffers.clear();
+        freeBuffersByKey.clear();
+        freeFrames.clear();
+    }
+
+    /**
+     * Disposes the least recently used free buffers one by one until {@link VfxMemoryTracker} is back within the budget.
+     * @return the number of the buffers disposed.
+     */
+    int evictFree() {
+        // The buffers being pre-warmed would be evicted right away.
+        if (prewarming) return 0;
+
+        int count = 0;
+        while (freeBuffers.size > 0 && VfxMemoryTracker.isOverBudget()) {
+            VfxFrameBuffer buffer = freeBuffers.removeIndex(0);
+            removeFree(buffer, toKey(buffer));
+            managedBuffers.removeValue(buffer, true);
+            buffer.dispose();
+            count++;
+        }
+        return count;
     }
 
     /** @return the number of the free buffers available. */
@@ -129,10 +325,40 @@ public class VfxFrameBufferPool implements Disposable {
         return freeBuffers.size;
     }
 
+    /** @return the number of the free buffers available for the specified size and pixel format. */
+    public int getFreeCount(int width, int height, Pixmap.Format pixelFormat) {
+        return getFreeCount(toKey(width, height, pixelFormat));
+    }
+
+    /** @return the number of all the buffers created by the pool and not disposed yet (both free and in use). */
+    public int getManagedCount() {
+        return managedBuffers.size;
+    }
+
+    /** @return the number of frames a free buffer of a foreign size or format is kept for. */
+    public int getMaxIdleFrames() {
+        return maxIdleFrames;
+    }
+
+    /**
+     * @param maxIdleFrames the number of {@link #update()} calls a free buffer of a size or format
+     *                      other than the pool's one survives without being obtained.
+     *                      A negative value disables the eviction.
+     */
+    public void setMaxIdleFrames(int maxIdleFrames) {
+        this.maxIdleFrames = maxIdleFrames;
+    }
+
     protected VfxFrameBuffer createBuffer() {
+        return createBuffer(width, height, pixelFormat);
+    }
+
+    protected VfxFrameBuffer createBuffer(int width, int height, Pixmap.Format pixelFormat) {
         VfxFrameBuffer buffer = new VfxFrameBuffer(pixelFormat);
+        buffer.setOwner(this);
         buffer.initialize(width, height);
         managedBuffers.add(buffer);
+        createdCount++;
         return buffer;
     }
 
@@ -154,21 +380,13 @@ public class VfxFrameBufferPool implements Disposable {
                 this.pixelFormat == buffer.getPixelFormat();
     }
 
-    /** Checks if the buffers are valid. Those which are not will be reconstructed or deleted if they are free. */
+    /** Checks if the pool sized buffers that are currently in use are valid. Those which are not will be reconstructed. */
     protected void cleanupInvalid() {
-        for (int i = 0; i < managedBuffers.size; i++) {
-            VfxFrameBuffer buffer = managedBuffers.get(i);
+        for (ObjectSet.ObjectSetIterator<VfxFrameBuffer> iter = poolSizedBuffers.iterator(); iter.hasNext; ) {
+            VfxFrameBuffer buffer = iter.next();
             if (!validateBuffer(buffer)) {
                 // Buffer is invalid - means we have to reinitialize it according to the current configuration.
-                // FBO reinitialization is an expensive operation, no reason doing it for the buffers that are currently not in use.
-                // So in case a buffer is free, we just dispose and delete it.
-                boolean wasFree = freeBuffers.removeValue(buffer, true);
-                if (wasFree) {
-                    managedBuffers.removeValue(buffer, true);
-                    buffer.dispose();
-                } else {
-                    buffer.initialize(width, height);
-                }
+                buffer.initialize(width, height);
             }
         }
     }
@@ -189,4 +407,98 @@ public class VfxFrameBufferPool implements Disposable {
             texture.setFilter(textureFilterMin, textureFilterMag);
         }
     }
+
+    public Texture.TextureWrap getTextureWrapU() {
+        return textureWrapU;
+    }
+
+    public Texture.TextureWrap getTextureWrapV() {
+        return textureWrapV;
+    }
+
+    public Texture.TextureFilter getTextureFilterMin() {
+        return textureFilterMin;
+    }
+
+    public Texture.TextureFilter getTextureFilterMag() {
+        return textureFilterMag;
+    }
+
+    /**
+     * Creates up to the number of free buffers specified, stops when the memory budget is exceeded.
+     * @return the number of the buffers created.
+     */
+    private int createFree(int count, int width, int height, Pixmap.Format pixelFormat) {
+        long key = toKey(width, height, pixelFormat);
+        int created = 0;
+        prewarming = true;
+        try {
+            while (created < count && !VfxMemoryTracker.isOverBudget()) {
+                VfxFrameBuffer buffer = createBuffer(width, height, pixelFormat);
+                addFree(buffer, key);
+                resetBuffer(buffer);
+                created++;
+            }
+        } finally {
+            prewarming = false;
+        }
+        return created;
+    }
+
+    private int getFreeCount(long key) {
+        Array<VfxFrameBuffer> buffers = freeBuffersByKey.get(key);
+        return buffers == null ? 0 : buffers.size;
+    }
+
+    private void addFree(VfxFrameBuffer buffer, long key) {
+        Array<VfxFrameBuffer> buffers = freeBuffersByKey.get(key);
+        if (buffers == null) {
+            buffers = new Array<>(false, 4);
+            freeBuffersByKey.put(key, buffers);
+        }
+        buffers.add(buffer);
+        freeBuffers.add(buffer);
+        freeFrames.put(buffer, frameIndex);
+        freePeak = Math.max(freePeak, freeBuffers.size);
+    }
+
+    private VfxFrameBuffer obtainFree(long key) {
+        Array<VfxFrameBuffer> buffers = freeBuffersByKey.get(key);
+        if (buffers == null || buffers.size == 0) return null;
+
+        VfxFrameBuffer buffer = buffers.pop();
+        freeBuffers.removeValue(buffer, true);
+        freeFrames.remove(buffer, 0);
+        return buffer;
+    }
+
+    private void removeFree(VfxFrameBuffer buffer, long key) {
+        freeBuffersByKey.get(key).removeValue(buffer, true);
+        freeFrames.remove(buffer, 0);
+    }
+
+    /** Disposes all the free buffers of the size and format specified. FBO reinitialization is expensive, the free buffers are not worth it. */
+    private void disposeFree(long key) {
+        Array<VfxFrameBuffer> buffers = freeBuffersByKey.get(key);
+        if (buffers == null) return;
+
+        for (int i = 0; i < buffers.size; i++) {
+            VfxFrameBuffer buffer = buffers.get(i);
+            freeBuffers.removeValue(buffer, true);
+            freeFrames.remove(buffer, 0);
+            managedBuffers.removeValue(buffer, true);
+            buffer.dispose();
+        }
+        buffers.clear();
+    }
+
+    private static long toKey(VfxFrameBuffer buffer) {
+        FrameBuffer fbo = buffer.getFbo();
+        return toKey(fbo.getWidth(), fbo.getHeight(), buffer.getPixelFormat());
+    }
+
+    /** Packs the buffer size and pixel format into a single key. */
+    private static long toKey(int width, int height, Pixmap.Format pixelFormat) {
+        return ((long) width << 32) | ((long) height << 8) | pixelFormat.ordinal();
+    }
 }
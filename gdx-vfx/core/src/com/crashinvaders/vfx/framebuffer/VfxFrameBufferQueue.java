@@ -39,7 +39,9 @@ public class VfxFrameBufferQueue implements Disposable {
         }
         buffers = new Array<>(true, fboAmount);
         for (int i = 0; i < fboAmount; i++) {
-            buffers.add(new VfxFrameBuffer(pixelFormat));
+            VfxFrameBuffer buffer = new VfxFrameBuffer(pixelFormat);
+            buffer.setOwner(this);
+            buffers.add(buffer);
         }
     }
 
@@ -72,6 +74,13 @@ public class VfxFrameBufferQueue implements Disposable {
         }
     }
 
+    /** @param owner the object the buffers' memory should be accounted to by {@link VfxMemoryTracker}. */
+    public void setOwner(Object owner) {
+        for (int i = 0; i < buffers.size; i++) {
+            buffers.get(i).setOwner(owner);
+        }
+    }
+
     public VfxFrameBuffer getCurrent() {
         return buffers.get(currentIdx);
     }
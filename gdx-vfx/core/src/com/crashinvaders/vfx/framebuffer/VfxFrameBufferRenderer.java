@@ -20,6 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.utils.Disposable;
+import com.crashinvaders.vfx.gl.VfxGlState;
 import com.crashinvaders.vfx.utils.ViewportQuadMesh;
 
 /**
@@ -94,7 +95,7 @@ public class VfxFrameBufferRenderer implements Disposable {
         srcTexture.bind(0);
 
         // Update viewport to fit the area specified.
-        Gdx.graphics.getGL20().glViewport(x, y, width, height);
+        VfxGlState.setViewport(x, y, width, height);
 
         shader.begin();
         mesh.render(shader);
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.framebuffer;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Keeps the previous frames for the time dependent effects (e.g. motion blur or trails).
+ * <p>
+ * An effect requests a {@link History} of the number of frames it needs under its own key
+ * and {@link History#commit(VfxPingPongWrapper) commits} its output into it every frame.
+ * The history buffers are the regular pool sized buffers of the context's {@link VfxFrameBufferPool},
+ * so they follow the pool resizes (the history gets {@link #invalidate() invalidated} then)
+ * and they're reported to {@link VfxMemoryTracker} under the key as the owner.
+ * <p>
+ * Committing the output of a {@link #registerWrapper(VfxPingPongWrapper) registered} ping-pong wrapper
+ * (e.g. the {@link com.crashinvaders.vfx.VfxManager}'s one) doesn't copy anything.
+ * The output buffer itself becomes the newest history frame, while it's lent to the wrapper for the rest of the frame.
+ * The wrapper gets a replacement buffer from the pool upon {@link #reclaim(VfxPingPongWrapper)},
+ * which its owner should call before the wrapper's buffers are drawn into again.
+ * The oldest history frame goes back to the pool, so in the steady state the buffers just rotate.
+ * The output of any other wrapper is copied into the history.
+ * <p>
+ * The histories that weren't used for {@link #setMaxIdleFrames(int) a while} are released automatically.
+ */
+public class VfxHistoryBuffers implements Disposable {
+
+    private final VfxFrameBufferPool bufferPool;
+    private final VfxFrameBufferRenderer bufferRenderer;
+    private final ObjectMap<Object, History> histories = new ObjectMap<>();
+    private final Array<VfxPingPongWrapper> wrappers = new Array<>();
+    // Parallel arrays of the history buffers that are currently used by the ping-pong wrappers.
+    private final Array<VfxFrameBuffer> lentBuffers = new Array<>();
+    private final Array<VfxPingPongWrapper> lentWrappers = new Array<>();
+
+    private int maxIdleFrames = 120;
+    private long frameIndex = 0L;
+    private int copyCount = 0;
+
+    public VfxHistoryBuffers(VfxFrameBufferPool bufferPool, VfxFrameBufferRenderer bufferRenderer) {
+        this.bufferPool = bufferPool;
+        this.bufferRenderer = bufferRenderer;
+    }
+
+    @Override
+    public void dispose() {
+        for (History history : histories.values()) {
+            history.releaseFrames();
+        }
+        histories.clear();
+        wrappers.clear();
+    }
+
+    /**
+     * Returns the history of the key specified, creating it if there's none yet.
+     * Should be called upon every use, as it keeps the history from being released as idle.
+     * @param frameCount the number of the previous frames to keep.
+     */
+    public History obtain(Object key, int frameCount) {
+        if (key == null) throw new IllegalArgumentException("key cannot be null.");
+        if (frameCount < 1) throw new IllegalArgumentException("Frame count should be a positive number.");
+
+        History history = histories.get(key);
+        if (history == null) {
+            history = new History(key);
+            histories.put(key, history);
+        }
+        history.setFrameCount(frameCount);
+        history.lastUsedFrame = frameIndex;
+        return history;
+    }
+
+    /** Releases the history of the key specified (if any), the buffers go back to the pool. */
+    public void free(Object key) {
+        History history = histories.remove(key);
+        if (history != null) {
+            history.releaseFrames();
+        }
+    }
+
+    /** Advances the frame counter and releases the idle histories. Called once per frame by the context. */
+    public void update() {
+        frameIndex++;
+        if (maxIdleFrames < 0) return;
+
+        for (ObjectMap.Values<History> iter = histories.values(); iter.hasNext(); ) {
+            History history = iter.next();
+            if (frameIndex - history.lastUsedFrame > maxIdleFrames) {
+                history.releaseFrames();
+                iter.remove();
+            }
+        }
+    }
+
+    /** Marks all the histories empty, e.g. when their buffers got resized. The buffers are kept for reuse. */
+    public void invalidate() {
+        for (History history : histories.values()) {
+            history.validFrames = 0;
+        }
+    }
+
+    /** Allows the history to take over the output buffers of the wrapper, instead of copying them (see the class docs). */
+    public void registerWrapper(VfxPingPongWrapper wrapper) {
+        if (!wrappers.contains(wrapper, true)) {
+            wrappers.add(wrapper);
+        }
+    }
+
+    /** Reclaims the buffers lent to the wrapper and stops lending to it. */
+    public void unregisterWrapper(VfxPingPongWrapper wrapper) {
+        reclaim(wrapper);
+        wrappers.removeValue(wrapper, true);
+    }
+
+    /**
+     * Replaces the history buffers the wrapper still uses with the pool buffers.
+     * The source buffer is always replaced, the destination one only if the wrapper is not capturing.
+     */
+    public void reclaim(VfxPingPongWrapper wrapper) {
+        for (int i = lentWrappers.size - 1; i >= 0; i--) {
+            if (lentWrappers.get(i) != wrapper) continue;
+
+            VfxFrameBuffer buffer = lentBuffers.get(i);
+            if (wrapper.getSrcBuffer() == buffer) {
+                wrapper.exchangeSrcBuffer(bufferPool.obtain());
+            } else if (wrapper.getDstBuffer() == buffer) {
+                if (wrapper.isCapturing()) continue;
+                wrapper.exchangeDstBuffer(bufferPool.obtain());
+            }
+            lentBuffers.removeIndex(i);
+            lentWrappers.removeIndex(i);
+        }
+    }
+
+    /** @return the number of the histories currently kept. */
+    public int getHistoryCount() {
+        return histories.size;
+    }
+
+    /** @return the number of the buffers the histories currently hold. */
+    public int getBufferCount() {
+        int count = 0;
+        for (History history : histories.values()) {
+            count += history.frames.size;
+        }
+        return count;
+    }
+
+    /** @return the number of the commits that had to copy the output (the wrapper was not registered). */
+    public int getCopyCount() {
+        return copyCount;
+    }
+
+    /** @see #setMaxIdleFrames(int) */
+    public int getMaxIdleFrames() {
+        return maxIdleFrames;
+    }
+
+    /** @param maxIdleFrames the number of the frames an unused history is kept for. Negative value disables the release. */
+    public void setMaxIdleFrames(int maxIdleFrames) {
+        this.maxIdleFrames = maxIdleFrames;
+    }
+
+    private boolean isLent(VfxFrameBuffer buffer) {
+        return lentBuffers.contains(buffer, true);
+    }
+
+    /** Gives the buffer back to the pool, or leaves it with the wrapper it's lent to. */
+    private void releaseBuffer(VfxFrameBuffer buffer) {
+        buffer.setOwner(bufferPool);
+
+        int lentIndex = lentBuffers.indexOf(buffer, true);
+        if (lentIndex != -1) {
+            lentBuffers.removeIndex(lentIndex);
+            lentWrappers.removeIndex(lentIndex);
+            return;
+        }
+        bufferPool.free(buffer);
+    }
+
+    public class History {
+        private final Object key;
+        // The newest frame goes first.
+        private final Array<VfxFrameBuffer> frames = new Array<>(true, 2);
+        private int frameCount = 1;
+        private int validFrames = 0;
+        private long lastUsedFrame;
+
+        History(Object key) {
+            this.key = key;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        /** @return the number of the frames committed since the history was created or invalidated (up to the frame count). */
+        public int getValidFrameCount() {
+            return validFrames;
+        }
+
+        /**
+         * @param age zero for the latest committed frame, one for the one before it and so on.
+         * @return the frame or null if there's no valid frame of that age yet.
+         */
+        public VfxFrameBuffer getFrame(int age) {
+            return age < validFrames ? frames.get(age) : null;
+        }
+
+        /**
+         * Makes the content of the wrapper's destination buffer the newest frame of the history.
+         * The wrapper keeps its destination buffer content intact, so the output can still be used further down the chain.
+         */
+        public void commit(VfxPingPongWrapper buffers) {
+            lastUsedFrame = frameIndex;
+
+            VfxFrameBuffer output = buffers.getDstBuffer();
+            VfxFrameBuffer dropped = frames.size == frameCount ? frames.pop() : null;
+
+            VfxFrameBuffer frame;
+            if (wrappers.contains(buffers, true)) {
+                // The output buffer itself becomes the history frame, the wrapper gets a replacement upon the reclaim.
+                if (dropped != null) {
+                    releaseBuffer(dropped);
+                }
+                lentBuffers.add(output);
+                lentWrappers.add(buffers);
+                frame = output;
+            } else {
+                frame = dropped;
+                if (frame == null || isLent(frame)) {
+                    if (frame != null) {
+                        releaseBuffer(frame);
+                    }
+                    frame = bufferPool.obtain();
+                }
+                bufferRenderer.renderToFbo(output, frame);
+                copyCount++;
+            }
+            frame.setOwner(key);
+            frames.insert(0, frame);
+            validFrames = Math.min(validFrames + 1, frameCount);
+        }
+
+        /** Marks the history empty. The buffers are kept for reuse. */
+        public void invalidate() {
+            validFrames = 0;
+        }
+
+        void setFrameCount(int frameCount) {
+            this.frameCount = frameCount;
+            while (frames.size > frameCount) {
+                releaseBuffer(frames.pop());
+            }
+            validFrames = Math.min(validFrames, frameCount);
+        }
+
+        void releaseFrames() {
+            for (int i = 0; i < frames.size; i++) {
+                releaseBuffer(frames.get(i));
+            }
+            frames.clear();
+            validFrames = 0;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.framebuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectLongMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Keeps track of the estimated video memory taken by all the {@link VfxFrameBuffer} instances.
+ * <p>
+ * Every buffer reports to the tracker upon {@link VfxFrameBuffer#initialize(int, int)} and {@link VfxFrameBuffer#reset()}.
+ * The memory is accounted per pixel format and per {@link VfxFrameBuffer#setOwner(Object) owner}.
+ * <p>
+ * When a {@link #setBudget(long) budget} is set and an allocation exceeds it,
+ * the least recently used free buffers of all the {@link VfxFrameBufferPool}s are disposed first.
+ * If that's not enough, a warning is logged (once per budget overflow).
+ * <p>
+ * Set {@link #trackCallSites} to record the stack trace of every buffer allocation and pool obtain call,
+ * so the leaked buffers can be pinned down with {@link #getCallSite(VfxFrameBuffer)} or {@link #buildReport(StringBuilder)}.
+ * The pools log the call sites of the buffers left unfreed at the moment of disposal.
+ */
+public class VfxMemoryTracker {
+    private static final String TAG = VfxMemoryTracker.class.getSimpleName();
+
+    /** Whether the stack traces of the buffer allocations and pool obtain calls should be recorded. Costly, for debugging only. */
+    public static boolean trackCallSites = false;
+
+    private static final Array<VfxFrameBuffer> liveBuffers = new Array<>(false, 16);
+    private static final ObjectLongMap<VfxFrameBuffer> bufferBytes = new ObjectLongMap<>();
+    private static final ObjectMap<VfxFrameBuffer, Throwable> callSites = new ObjectMap<>();
+    private static final Array<VfxFrameBufferPool> pools = new Array<>(false, 4);
+    private static final ObjectLongMap<String> tmpBytesByName = new ObjectLongMap<>();
+
+    private static long totalBytes = 0L;
+    private static long peakBytes = 0L;
+    private static long budget = 0L;
+    private static boolean budgetWarned = false;
+
+    /** @return the estimated size (in bytes) of all the initialized buffers. */
+    public static long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /** @return the highest value of {@link #getTotalBytes()} since the start or the last {@link #resetPeak()} call. */
+    public static long getPeakBytes() {
+        return peakBytes;
+    }
+
+    public static void resetPeak() {
+        peakBytes = totalBytes;
+    }
+
+    /** @return the number of the initialized buffers. */
+    public static int getBufferCount() {
+        return liveBuffers.size;
+    }
+
+    /** @return the estimated size (in bytes) of the initialized buffers of the pixel format specified. */
+    public static long getBytes(Pixmap.Format pixelFormat) {
+        long bytes = 0L;
+        for (int i = 0; i < liveBuffers.size; i++) {
+            VfxFrameBuffer buffer = liveBuffers.get(i);
+            if (buffer.getPixelFormat() == pixelFormat) {
+                bytes += bufferBytes.get(buffer, 0L);
+            }
+        }
+        return bytes;
+    }
+
+    /** @return the estimated size (in bytes) of the initialized buffers that belong to the owner specified. */
+    public static long getBytes(Object owner) {
+        long bytes = 0L;
+        for (int i = 0; i < liveBuffers.size; i++) {
+            VfxFrameBuffer buffer = liveBuffers.get(i);
+            if (buffer.getOwner() == owner) {
+                bytes += bufferBytes.get(buffer, 0L);
+            }
+        }
+        return bytes;
+    }
+
+    public static long getBudget() {
+        return budget;
+    }
+
+    /** @param budget the memory limit (in bytes) for all the buffers, zero disables the limit. */
+    public static void setBudget(long budget) {
+        if (budget < 0L) {
+            throw new IllegalArgumentException("Budget cannot be negative.");
+        }
+        VfxMemoryTracker.budget = budget;
+        budgetWarned = false;
+        enforceBudget();
+    }
+
+    public static boolean isOverBudget() {
+        return budget > 0L && totalBytes > budget;
+    }
+
+    /**
+     * @return the stack trace recorded when the buffer was last allocated or obtained from a pool
+     * or null if {@link #trackCallSites} was disabled at the time.
+     */
+    public static Throwable getCallSite(VfxFrameBuffer buffer) {
+        return callSites.get(buffer);
+    }
+
+    /** Appends the memory usage per pixel format and per owner. */
+    public static StringBuilder buildReport(StringBuilder sb) {
+        sb.append("total: ").append(totalBytes / 1024L).append("KB in ").append(liveBuffers.size).append(" buffers")
+                .append(", peak: ").append(peakBytes / 1024L).append("KB");
+        if (budget > 0L) {
+            sb.append(", budget: ").append(budget / 1024L).append("KB");
+        }
+        sb.append('\n');
+
+        tmpBytesByName.clear();
+        for (int i = 0; i < liveBuffers.size; i++) {
+            VfxFrameBuffer buffer = liveBuffers.get(i);
+            tmpBytesByName.getAndIncrement(buffer.getPixelFormat().name(), 0L, bufferBytes.get(buffer, 0L));
+        }
+        appendBytes(sb, "format", tmpBytesByName);
+
+        tmpBytesByName.clear();
+        for (int i = 0; i < liveBuffers.size; i++) {
+            VfxFrameBuffer buffer = liveBuffers.get(i);
+            tmpBytesByName.getAndIncrement(getOwnerName(buffer.getOwner()), 0L, bufferBytes.get(buffer, 0L));
+        }
+        appendBytes(sb, "owner", tmpBytesByName);
+        tmpBytesByName.clear();
+
+        if (callSites.size > 0) {
+            for (ObjectMap.Entry<VfxFrameBuffer, Throwable> entry : callSites) {
+                appendCallSite(sb.append("call site of "), entry.key, entry.value);
+            }
+        }
+        return sb;
+    }
+
+    /** Estimates the size of the color buffer texture. The GPU may pad it, so the real size could be a bit larger. */
+    public static long estimateBytes(int width, int height, Pixmap.Format pixelFormat) {
+        return (long) width * height * getBytesPerPixel(pixelFormat);
+    }
+
+    static void onInitialized(VfxFrameBuffer buffer) {
+        FrameBuffer fbo = buffer.getFbo();
+        long bytes = estimateBytes(fbo.getWidth(), fbo.getHeight(), buffer.getPixelFormat());
+        long previousBytes = bufferBytes.remove(buffer, -1L);
+        if (previousBytes >= 0L) {
+            // Reinitialized with a different size.
+            totalBytes -= previousBytes;
+        } else {
+            liveBuffers.add(buffer);
+        }
+        bufferBytes.put(buffer, bytes);
+        totalBytes += bytes;
+        peakBytes = Math.max(peakBytes, totalBytes);
+
+        if (trackCallSites && !callSites.containsKey(buffer)) {
+            callSites.put(buffer, new Throwable("Buffer allocation"));
+        }
+
+        enforceBudget();
+    }
+
+    static void onReset(VfxFrameBuffer buffer) {
+        if (!liveBuffers.removeValue(buffer, true)) return;
+        totalBytes -= bufferBytes.remove(buffer, 0L);
+        callSites.remove(buffer);
+
+        if (!isOverBudget()) {
+            budgetWarned = false;
+        }
+    }
+
+    /** Called by the pools when a buffer is handed out. */
+    static void onObtained(VfxFrameBuffer buffer) {
+        if (trackCallSites) {
+            callSites.put(buffer, new Throwable("Buffer obtain"));
+        }
+    }
+
+    /** Called by the pools when a buffer is returned. */
+    static void onFreed(VfxFrameBuffer buffer) {
+        if (callSites.size > 0) {
+            callSites.remove(buffer);
+        }
+    }
+
+    static void registerPool(VfxFrameBufferPool pool) {
+        pools.add(pool);
+    }
+
+    static void unregisterPool(VfxFrameBufferPool pool) {
+        pools.removeValue(pool, true);
+    }
+
+    static void appendCallSite(StringBuilder sb, VfxFrameBuffer buffer, Throwable callSite) {
+        sb.append(getOwnerName(buffer.getOwner())).append(" buffer:\n");
+        StackTraceElement[] stackTrace = callSite.getStackTrace();
+        for (int i = 0; i < stackTrace.length; i++) {
+            sb.append("\tat ").append(stackTrace[i]).append('\n');
+        }
+    }
+
+    private static void enforceBudget() {
+        if (!isOverBudget()) return;
+
+        // Free pooled buffers are the cheapest to give up.
+        for (int i = 0; i < pools.size && isOverBudget(); i++) {
+            pools.get(i).evictFree();
+        }
+
+        if (isOverBudget() && !budgetWarned) {
+            budgetWarned = true;
+            Gdx.app.error(TAG, "Frame buffers exceed the memory budget: " +
+                    totalBytes / 1024L + "KB of " + budget / 1024L + "KB in use.");
+        }
+    }
+
+    private static void appendBytes(StringBuilder sb, String title, ObjectLongMap<String> bytesByName) {
+        sb.append(title).append(':');
+        for (ObjectLongMap.Entry<String> entry : bytesByName) {
+            sb.append(' ').append(entry.key).append('=').append(entry.value / 1024L).append("KB");
+        }
+        sb.append('\n');
+    }
+
+    private static String getOwnerName(Object owner) {
+        return owner == null ? "unowned" : owner.getClass().getSimpleName();
+    }
+
+    private static int getBytesPerPixel(Pixmap.Format pixelFormat) {
+        switch (pixelFormat) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            case RGBA8888:
+            default:
+                return 4;
+        }
+    }
+}
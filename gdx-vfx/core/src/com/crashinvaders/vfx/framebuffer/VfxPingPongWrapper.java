@@ -157,6 +157,35 @@ public class VfxPingPongWrapper implements Pool.Poolable {
         return capturing;
     }
 
+    /**
+     * Replaces the destination buffer with the one specified. The caller takes ownership of the replaced buffer.
+     * <p>
+     * If the wrapper was initialized with {@link VfxFrameBufferPool},
+     * the new buffer shall be obtained from the same pool, as it will be freed to it upon {@link #reset()}.
+     * @return the replaced buffer.
+     */
+    public VfxFrameBuffer exchangeDstBuffer(VfxFrameBuffer buffer) {
+        if (capturing) {
+            throw new IllegalStateException("Destination buffer cannot be exchanged during capturing stage.");
+        }
+        VfxFrameBuffer replaced = bufDst;
+        bufDst = buffer;
+        return replaced;
+    }
+
+    /**
+     * Replaces the source buffer with the one specified. The caller takes ownership of the replaced buffer.
+     * <p>
+     * If the wrapper was initialized with {@link VfxFrameBufferPool},
+     * the new buffer shall be obtained from the same pool, as it will be freed to it upon {@link #reset()}.
+     * @return the replaced buffer.
+     */
+    public VfxFrameBuffer exchangeSrcBuffer(VfxFrameBuffer buffer) {
+        VfxFrameBuffer replaced = bufSrc;
+        bufSrc = buffer;
+        return replaced;
+    }
+
     /** @return the source texture of the current ping-pong chain. */
     public Texture getSrcTexture() {
         return bufSrc.getFbo().getColorBufferTexture();
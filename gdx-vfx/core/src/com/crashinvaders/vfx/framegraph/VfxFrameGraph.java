@@ -0,0 +1,519 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.framegraph;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Pool;
+import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.effects.ChainVfxEffect;
+import com.crashinvaders.vfx.effects.FrameGraphVfxEffect;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBufferPool;
+import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
+import com.crashinvaders.vfx.profiling.VfxGlStats;
+import com.crashinvaders.vfx.profiling.VfxProfiler;
+
+/**
+ * Compiles {@link com.crashinvaders.vfx.VfxManager}'s effect chain into a render plan and executes it.
+ * <p>
+ * Every effect of the chain is represented by one or more passes. Each pass declares the buffers (resources) it reads and writes.
+ * Effects that implement {@link FrameGraphVfxEffect} declare their passes themselves,
+ * any other {@link ChainVfxEffect} is represented by a single pass that reads the chain's current buffer
+ * and writes the next one (just like the regular ping-pong chain processing).
+ * <p>
+ * Once the plan is compiled, the lifetime of every transient resource is known,
+ * and the resources whose lifetimes don't overlap are assigned to the same physical {@link VfxFrameBuffer}.
+ * The manager's ping-pong buffer pair is always the part of the physical buffer set,
+ * any extra buffers are obtained from {@link VfxFrameBufferPool} only for the time of the chain rendering.
+ * <p>
+ * The plan is recompiled only when the effect chain or the buffer size change,
+ * or when {@link #invalidate()} is called explicitly.
+ */
+public class VfxFrameGraph {
+
+    /** Resource handle of the chain's input buffer. */
+    public static final int INPUT = 0;
+    /** Resource handle of the buffer where the chain's result is expected to be. */
+    public static final int OUTPUT = 1;
+
+    private static final int SLOT_INPUT = 0;
+    private static final int UNUSED = -1;
+
+    private final Builder builder = new Builder();
+    private final Array<Pass> passes = new Array<>();
+    private final Pool<Pass> passPool = new Pool<Pass>() {
+        @Override
+        protected Pass newObject() {
+            return new Pass();
+        }
+    };
+
+    // Per resource data (indexed by resource handle).
+    private final IntArray resFirstUse = new IntArray();
+    private final IntArray resLastUse = new IntArray();
+    private final IntArray resFirstWrite = new IntArray();
+    private final IntArray resSlot = new IntArray();
+    private final IntArray resOrder = new IntArray();
+    private int resourceCount;
+    private int usedTransientCount;
+
+    // Per physical buffer (slot) data.
+    private final IntArray slotFreeAt = new IntArray();
+    private int slotCount;
+    private int peakLiveCount;
+
+    private final Array<ChainVfxEffect> compiledChain = new Array<>();
+    private int compiledWidth = -1;
+    private int compiledHeight = -1;
+    private boolean invalidated = true;
+    private int compileCount = 0;
+
+    private final Array<VfxFrameBuffer> slotBuffers = new Array<>();
+    private final Array<VfxFrameBuffer> obtainedBuffers = new Array<>();
+    private final PassContext passContext = new PassContext();
+
+    /** Forces the plan to be recompiled upon the next render call. */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    /** @return true if the plan for the chain and the size specified is compiled and up to date. */
+    public boolean isCompiled(Array<ChainVfxEffect> chain, int width, int height) {
+        if (invalidated) return false;
+        if (compiledWidth != width || compiledHeight != height) return false;
+        if (compiledChain.size != chain.size) return false;
+        for (int i = 0; i < chain.size; i++) {
+            if (compiledChain.get(i) != chain.get(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the plan for the chain, if it's not compiled yet.
+     * There's no need to call this method manually, the plan will be compiled on demand within {@link #render(VfxRenderContext, Array, VfxPingPongWrapper)}.
+     * Although this might be useful to know the amount of buffers the chain needs upfront.
+     */
+    public void compile(Array<ChainVfxEffect> chain, int width, int height) {
+        if (isCompiled(chain, width, height)) return;
+
+        passPool.freeAll(passes);
+        passes.clear();
+        resourceCount = 2; // INPUT and OUTPUT.
+
+        if (chain.size == 0) {
+            throw new IllegalArgumentException("Cannot compile a frame graph for an empty effect chain.");
+        }
+
+        int link = INPUT;
+        for (int i = 0; i < chain.size; i++) {
+            ChainVfxEffect effect = chain.get(i);
+            int next = i < chain.size - 1 ? builder.createTransient() : OUTPUT;
+            if (effect instanceof FrameGraphVfxEffect) {
+                ((FrameGraphVfxEffect) effect).declarePasses(builder, link, next);
+            } else {
+                Pass pass = passPool.obtain().initialize(effect.getClass().getSimpleName(), null, effect);
+                passes.add(pass.read(link).write(next));
+            }
+            link = next;
+        }
+
+        computeLifetimes();
+        assignSlots();
+
+        compiledChain.clear();
+        compiledChain.addAll(chain);
+        compiledWidth = width;
+        compiledHeight = height;
+        invalidated = false;
+        compileCount++;
+    }
+
+    /**
+     * Renders the effect chain according to the compiled plan.
+     * The chain's input is expected to be in the src buffer of the ping-pong wrapper.
+     * Upon completion, the result will be in the dst buffer of the wrapper.
+     */
+    public void render(VfxRenderContext context, Array<ChainVfxEffect> chain, VfxPingPongWrapper buffers) {
+        if (buffers.isCapturing()) {
+            throw new IllegalStateException("Ping-pong wrapper should not be in capturing state.");
+        }
+        compile(chain, context.getBufferWidth(), context.getBufferHeight());
+
+        VfxFrameBufferPool pool = context.getBufferPool();
+
+        slotBuffers.clear();
+        slotBuffers.add(buffers.getSrcBuffer());
+        slotBuffers.add(buffers.getDstBuffer());
+        for (int i = 2; i < slotCount; i++) {
+            VfxFrameBuffer buffer = pool.obtain();
+            obtainedBuffers.add(buffer);
+            slotBuffers.add(buffer);
+        }
+
+        VfxProfiler profiler = context.getProfiler();
+        VfxGlStats glStats = context.getGlStats();
+        for (int i = 0; i < passes.size; i++) {
+            Pass pass = passes.get(i);
+            if (profiler != null) { profiler.beginScope(pass.name); }
+            if (glStats != null) { glStats.beginEffect(pass.name); }
+            passContext.begin(context, pass, i);
+            if (pass.renderer != null) {
+                pass.renderer.render(context, passContext);
+            } else {
+                pass.chainEffect.render(context, passContext.getPingPong());
+            }
+            passContext.end();
+            if (glStats != null) { glStats.endEffect(); }
+            if (profiler != null) { profiler.endScope(); }
+        }
+
+        // Physical buffers may have been exchanged between the slots, make sure the result is where it's expected.
+        VfxFrameBuffer result = slotBuffers.get(resSlot.get(OUTPUT));
+        if (result == buffers.getSrcBuffer()) {
+            buffers.swap();
+        } else if (result != buffers.getDstBuffer()) {
+            // The result ended up in one of the pool buffers, just trade it for the wrapper's one.
+            VfxFrameBuffer replaced = buffers.exchangeDstBuffer(result);
+            obtainedBuffers.set(obtainedBuffers.indexOf(result, true), replaced);
+        }
+
+        for (int i = 0; i < obtainedBuffers.size; i++) {
+            pool.free(obtainedBuffers.get(i));
+        }
+        obtainedBuffers.clear();
+        slotBuffers.clear();
+    }
+
+    /** @return the number of physical buffers the compiled plan uses per frame (including the manager's ping-pong pair). */
+    public int getBufferCount() {
+        return slotCount;
+    }
+
+    /**
+     * @return the highest number of the buffer resources alive at the same time within the compiled plan.
+     * That's the least amount of the physical buffers any chain processing needs, the plan never takes more (but at least 2).
+     */
+    public int getPeakLiveCount() {
+        return peakLiveCount;
+    }
+
+    /** @return the number of physical buffers the compiled plan would use if none of the transient buffers were aliased. */
+    public int getUnaliasedBufferCount() {
+        return 2 + usedTransientCount;
+    }
+
+    /** @return the number of transient resources (buffers) declared by the compiled plan. */
+    public int getTransientCount() {
+        return usedTransientCount;
+    }
+
+    /** @return the number of passes of the compiled plan. */
+    public int getPassCount() {
+        return passes.size;
+    }
+
+    /** @return the compiled plan's passes in the execution order. */
+    public Array<Pass> getPasses() {
+        return passes;
+    }
+
+    /** @return how many times the plan was (re)compiled. */
+    public int getCompileCount() {
+        return compileCount;
+    }
+
+    private void computeLifetimes() {
+        resFirstUse.clear();
+        resLastUse.clear();
+        resFirstWrite.clear();
+        for (int i = 0; i < resourceCount; i++) {
+            resFirstUse.add(Integer.MAX_VALUE);
+            resLastUse.add(UNUSED);
+            resFirstWrite.add(Integer.MAX_VALUE);
+        }
+
+        for (int passIdx = 0; passIdx < passes.size; passIdx++) {
+            Pass pass = passes.get(passIdx);
+            for (int i = 0; i < pass.reads.size; i++) {
+                int res = pass.reads.get(i);
+                resFirstUse.set(res, Math.min(resFirstUse.get(res), passIdx));
+                resLastUse.set(res, Math.max(resLastUse.get(res), passIdx));
+            }
+            for (int i = 0; i < pass.writes.size; i++) {
+                int res = pass.writes.get(i);
+                resFirstUse.set(res, Math.min(resFirstUse.get(res), passIdx));
+                resLastUse.set(res, Math.max(resLastUse.get(res), passIdx));
+                resFirstWrite.set(res, Math.min(resFirstWrite.get(res), passIdx));
+            }
+        }
+
+        // The input is available before the first pass and the output must survive the last one.
+        resFirstUse.set(INPUT, -1);
+        resFirstWrite.set(INPUT, -1);
+        resLastUse.set(OUTPUT, passes.size);
+
+        if (resFirstWrite.get(OUTPUT) == Integer.MAX_VALUE) {
+            throw new IllegalStateException("None of the frame graph passes writes to the chain's output.");
+        }
+        for (int res = 2; res < resourceCount; res++) {
+            if (resLastUse.get(res) != UNUSED && resFirstWrite.get(res) > resFirstUse.get(res)) {
+                throw new IllegalStateException("Frame graph transient resource #" + res + " is read before it's written.");
+            }
+        }
+    }
+
+    private void assignSlots() {
+        resSlot.clear();
+        resSlot.setSize(resourceCount);
+        resSlot.set(INPUT, SLOT_INPUT);
+
+        // The output is not pinned to a slot, it goes to whichever ping-pong buffer (or pooled one) is free by then.
+        // The render method moves the result to the wrapper's dst buffer afterwards.
+        slotFreeAt.clear();
+        slotFreeAt.add(resLastUse.get(INPUT));
+        slotFreeAt.add(UNUSED);
+        slotCount = 2;
+
+        // Sort the output and the used transient resources by the start of their lifetime (insertion sort, the amount is small).
+        resOrder.clear();
+        usedTransientCount = 0;
+        for (int res = OUTPUT; res < resourceCount; res++) {
+            if (resLastUse.get(res) == UNUSED) {
+                resSlot.set(res, UNUSED);
+                continue;
+            }
+            int pos = resOrder.size;
+            while (pos > 0 && resFirstUse.get(resOrder.get(pos - 1)) > resFirstUse.get(res)) {
+                pos--;
+            }
+            resOrder.insert(pos, res);
+            if (res != OUTPUT) usedTransientCount++;
+        }
+
+        // Greedy interval assignment. A resource may occupy a slot only if the slot's
+        // previous occupant is dead before the resource's first use.
+        // Being processed in the order of their first use, the resources take no more slots
+        // than the peak number of the simultaneously alive ones.
+        for (int i = 0; i < resOrder.size; i++) {
+            int res = resOrder.get(i);
+            int firstUse = resFirstUse.get(res);
+            int lastUse = resLastUse.get(res);
+
+            int slot = UNUSED;
+            for (int s = 0; s < slotCount; s++) {
+                if (slotFreeAt.get(s) < firstUse) {
+                    slot = s;
+                    break;
+                }
+            }
+            if (slot == UNUSED) {
+                slot = slotCount++;
+                slotFreeAt.add(UNUSED);
+            }
+            slotFreeAt.set(slot, lastUse);
+            resSlot.set(res, slot);
+        }
+
+        // The regular ping-pong chain processing needs at least as many buffers as there are alive resources at once
+        // (the ping-pong pair plus whatever the effect in charge holds), the plan must never take more than that.
+        peakLiveCount = computePeakLiveCount();
+        if (slotCount > Math.max(2, peakLiveCount)) {
+            throw new IllegalStateException("Frame graph plan takes " + slotCount + " buffers, " +
+                    "while no more than " + Math.max(2, peakLiveCount) + " are alive at once.");
+        }
+    }
+
+    /** @return the highest number of the resources that are alive at the same time. */
+    private int computePeakLiveCount() {
+        int peak = 0;
+        for (int passIdx = -1; passIdx <= passes.size; passIdx++) {
+            int alive = 0;
+            for (int res = 0; res < resourceCount; res++) {
+                if (resLastUse.get(res) != UNUSED && resFirstUse.get(res) <= passIdx && passIdx <= resLastUse.get(res)) {
+                    alive++;
+                }
+            }
+            peak = Math.max(peak, alive);
+        }
+        return peak;
+    }
+
+    /** Used by the effects to declare their passes and transient resources during frame graph compilation. */
+    public class Builder {
+
+        // Closed CTOR
+        Builder() { }
+
+        /** Declares a new transient buffer resource. Its lifetime is defined by the passes that use it. */
+        public int createTransient() {
+            return resourceCount++;
+        }
+
+        /**
+         * Appends a new pass to the plan.
+         * The pass' renderer is not called during compilation, only when the plan is executed.
+         * Use {@link Pass#read(int)} and {@link Pass#write(int)} to declare the pass' dependencies.
+         */
+        public Pass addPass(String name, PassRenderer renderer) {
+            if (renderer == null) throw new IllegalArgumentException("Renderer cannot be null.");
+            Pass pass = passPool.obtain().initialize(name, renderer, null);
+            passes.add(pass);
+            return pass;
+        }
+    }
+
+    /** A single render pass of the compiled plan. */
+    public static class Pass implements Pool.Poolable {
+        private final IntArray reads = new IntArray(4);
+        private final IntArray writes = new IntArray(2);
+        private String name;
+        private PassRenderer renderer;
+        private ChainVfxEffect chainEffect;
+
+        Pass initialize(String name, PassRenderer renderer, ChainVfxEffect chainEffect) {
+            this.name = name;
+            this.renderer = renderer;
+            this.chainEffect = chainEffect;
+            return this;
+        }
+
+        @Override
+        public void reset() {
+            reads.clear();
+            writes.clear();
+            name = null;
+            renderer = null;
+            chainEffect = null;
+        }
+
+        /** Declares that the pass reads from the resource. */
+        public Pass read(int resource) {
+            reads.add(resource);
+            return this;
+        }
+
+        /** Declares that the pass writes to the resource. */
+        public Pass write(int resource) {
+            writes.add(resource);
+            return this;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getReadCount() {
+            return reads.size;
+        }
+
+        public int getWriteCount() {
+            return writes.size;
+        }
+
+        public int getRead(int index) {
+            return reads.get(index);
+        }
+
+        public int getWrite(int index) {
+            return writes.get(index);
+        }
+
+        @Override
+        public String toString() {
+            return name + " r" + reads + " w" + writes;
+        }
+    }
+
+    /** Provides physical buffers for the pass being rendered. */
+    public class PassContext {
+        private final VfxPingPongWrapper pingPong = new VfxPingPongWrapper();
+        private VfxRenderContext context;
+        private Pass pass;
+        private int passIndex;
+        private boolean pingPongActive;
+
+        // Closed CTOR
+        PassContext() { }
+
+        void begin(VfxRenderContext context, Pass pass, int passIndex) {
+            this.context = context;
+            this.pass = pass;
+            this.passIndex = passIndex;
+        }
+
+        void end() {
+            if (pingPongActive) {
+                pingPongActive = false;
+                pingPong.end();
+
+                // The pass may have swapped the ping-pong buffers an odd number of times.
+                int srcRes = pass.reads.get(0);
+                int dstRes = pass.writes.get(0);
+                VfxFrameBuffer expectedDst = slotBuffers.get(resSlot.get(dstRes));
+                if (pingPong.getDstBuffer() != expectedDst) {
+                    if (resLastUse.get(srcRes) == passIndex) {
+                        // The src resource is dead after this pass, just exchange the physical buffers.
+                        int srcSlot = resSlot.get(srcRes);
+                        int dstSlot = resSlot.get(dstRes);
+                        slotBuffers.swap(srcSlot, dstSlot);
+                    } else {
+                        context.getBufferRenderer().renderToFbo(pingPong.getDstBuffer(), expectedDst);
+                    }
+                }
+                pingPong.reset();
+            }
+            context = null;
+            pass = null;
+        }
+
+        public Pass getPass() {
+            return pass;
+        }
+
+        /** @return the physical buffer of the pass' read resource at the index specified (in declaration order). */
+        public VfxFrameBuffer getReadBuffer(int index) {
+            return slotBuffers.get(resSlot.get(pass.reads.get(index)));
+        }
+
+        /** @return the physical buffer of the pass' write resource at the index specified (in declaration order). */
+        public VfxFrameBuffer getWriteBuffer(int index) {
+            return slotBuffers.get(resSlot.get(pass.writes.get(index)));
+        }
+
+        /**
+         * @return a ping-pong wrapper over the pass' first read (src) and first write (dst) buffers.
+         * The wrapper is already in capturing state, the pass may swap it any number of times.
+         */
+        public VfxPingPongWrapper getPingPong() {
+            if (!pingPongActive) {
+                if (pass.reads.size == 0 || pass.writes.size == 0) {
+                    throw new IllegalStateException("Pass \"" + pass.name + "\" should declare at least one read and one write resource to use ping-pong wrapper.");
+                }
+                pingPongActive = true;
+                pingPong.initialize(getReadBuffer(0), getWriteBuffer(0));
+                pingPong.begin();
+            }
+            return pingPong;
+        }
+    }
+
+    /** Renders a single frame graph pass. */
+    public interface PassRenderer {
+        void render(VfxRenderContext context, PassContext pass);
+    }
+}
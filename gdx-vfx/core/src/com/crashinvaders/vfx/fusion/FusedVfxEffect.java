@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.fusion;
+
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.effects.AbstractVfxEffect;
+import com.crashinvaders.vfx.effects.ChainVfxEffect;
+import com.crashinvaders.vfx.effects.FusibleVfxEffect;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
+
+/**
+ * A single render pass that applies a run of {@link FusibleVfxEffect}s using the generated shader program.
+ * <p/>
+ * The instances are created and managed by {@link VfxEffectFusion}.
+ * The fused effect doesn't own neither the program nor the member effects,
+ * so the lifecycle methods do nothing.
+ */
+public class FusedVfxEffect extends AbstractVfxEffect implements ChainVfxEffect {
+
+    private static final String U_TEXTURE0 = "u_texture0";
+
+    private final Array<FusibleVfxEffect> members = new Array<>();
+    private final Array<FusionUniforms> memberUniforms = new Array<>();
+    private final ShaderProgram program;
+    private final String signature;
+    private int textureLocation = -1;
+
+    FusedVfxEffect(ShaderProgram program, String signature, Array<ChainVfxEffect> chain, int offset, int length) {
+        this.program = program;
+        this.signature = signature;
+        for (int i = 0; i < length; i++) {
+            members.add((FusibleVfxEffect) chain.get(offset + i));
+            memberUniforms.add(new FusionUniforms(program, VfxEffectFusion.memberPrefix(i)));
+        }
+        rebind();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        // Do nothing, the member effects are managed by the owner.
+    }
+
+    @Override
+    public void rebind() {
+        for (int i = 0; i < memberUniforms.size; i++) {
+            memberUniforms.get(i).invalidate();
+        }
+        textureLocation = program.fetchUniformLocation(U_TEXTURE0, false);
+    }
+
+    @Override
+    public void update(float delta) {
+        // Do nothing, the member effects are managed by the owner.
+    }
+
+    @Override
+    public void dispose() {
+        // Do nothing, the program is owned by VfxEffectFusion.
+    }
+
+    @Override
+    public void render(VfxRenderContext context, VfxPingPongWrapper buffers) {
+        render(context, buffers.getSrcBuffer(), buffers.getDstBuffer());
+    }
+
+    public void render(VfxRenderContext context, VfxFrameBuffer src, VfxFrameBuffer dst) {
+        // Bind src buffer's texture as a primary one.
+        src.getTexture().bind(0);
+
+        boolean manualBufferBind = !dst.isDrawing();
+        if (manualBufferBind) { dst.begin(); }
+
+        program.begin();
+        program.setUniformi(textureLocation, 0);
+        for (int i = 0; i < members.size; i++) {
+            members.get(i).applyFusionUniforms(memberUniforms.get(i));
+        }
+        context.getViewportMesh().render(program);
+        program.end();
+
+        if (manualBufferBind) { dst.end(); }
+    }
+
+    /** @return true if the effect is a fusion of the exact effect instances of the chain's run specified. */
+    boolean matches(Array<ChainVfxEffect> chain, int offset, int length) {
+        if (members.size != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (members.get(i) != chain.get(offset + i)) return false;
+        }
+        return true;
+    }
+
+    boolean contains(ChainVfxEffect effect) {
+        for (int i = 0; i < members.size; i++) {
+            if (members.get(i) == effect) return true;
+        }
+        return false;
+    }
+
+    public Array<FusibleVfxEffect> getMembers() {
+        return members;
+    }
+
+    public ShaderProgram getProgram() {
+        return program;
+    }
+
+    /** @return the chain signature (the member's fusion IDs) the program was generated for. */
+    public String getSignature() {
+        return signature;
+    }
+
+    @Override
+    public String toString() {
+        return "FusedVfxEffect[" + signature + "]";
+    }
+}
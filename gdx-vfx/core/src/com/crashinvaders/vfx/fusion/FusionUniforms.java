@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.fusion;
+
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Provides access to the uniforms of a single {@link com.crashinvaders.vfx.effects.FusibleVfxEffect}
+ * within the generated fusion shader.
+ * Uniform names are resolved to the prefixed ones and the locations are cached upon the first use.
+ */
+public class FusionUniforms {
+
+    private static final int UNRESOLVED = Integer.MIN_VALUE;
+
+    private final ObjectIntMap<String> locations = new ObjectIntMap<>();
+    private final ShaderProgram program;
+    private final String prefix;
+
+    FusionUniforms(ShaderProgram program, String prefix) {
+        this.program = program;
+        this.prefix = prefix;
+    }
+
+    /** Drops the cached uniform locations. Should be called once the program gets recompiled (e.g. after the GL context loss). */
+    void invalidate() {
+        locations.clear();
+    }
+
+    /** @return the uniform location or -1 in case the uniform doesn't exist (e.g. it was optimized out by the compiler). */
+    public int getLocation(String uniformName) {
+        int location = locations.get(uniformName, UNRESOLVED);
+        if (location == UNRESOLVED) {
+            location = program.fetchUniformLocation(prefix + uniformName, false);
+            locations.put(uniformName, location);
+        }
+        return location;
+    }
+
+    /** Updates the uniform of float type. */
+    public void set(String uniformName, float value) {
+        int location = getLocation(uniformName);
+        if (location < 0) return;
+        program.setUniformf(location, value);
+    }
+
+    /** Updates the uniform of vec2 type. */
+    public void set(String uniformName, float value1, float value2) {
+        int location = getLocation(uniformName);
+        if (location < 0) return;
+        program.setUniformf(location, value1, value2);
+    }
+
+    /** Updates the uniform of int type. */
+    public void set(String uniformName, int value) {
+        int location = getLocation(uniformName);
+        if (location < 0) return;
+        program.setUniformi(location, value);
+    }
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.fusion;
+
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.crashinvaders.vfx.effects.ChainVfxEffect;
+import com.crashinvaders.vfx.effects.FusibleVfxEffect;
+import com.crashinvaders.vfx.gl.VfxGLUtils;
+
+/**
+ * Fusion compiler for the effect chain.
+ * <p/>
+ * Looks up the runs of adjacent {@link FusibleVfxEffect}s in the chain and replaces each of them
+ * with a single {@link FusedVfxEffect} pass that uses a generated shader program.
+ * The programs are cached by the chain signature (the sequence of the member's fusion IDs),
+ * so the same combination of the effects is compiled only once.
+ * Effects that can't be fused are passed through as is and rendered the regular (multi-pass) way.
+ */
+public class VfxEffectFusion implements Disposable {
+
+    /** The symbol that prefixes global identifiers in the {@link FusibleVfxEffect#getFusionSource()} code. */
+    public static final String PREFIX_PLACEHOLDER = "$";
+    /**
+     * The prefix that replaces the {@link #PREFIX_PLACEHOLDER} when a fusion snippet is included into a regular shader file
+     * (see {@link VfxGLUtils#compileShader(com.badlogic.gdx.files.FileHandle, com.badlogic.gdx.files.FileHandle, String)}),
+     * so the same snippet serves both the standalone and the fused pass.
+     */
+    public static final String STANDALONE_PREFIX = "u_";
+
+    private static final String VERTEX_SOURCE =
+            "#ifdef GL_ES\n" +
+            "    #define PRECISION mediump\n" +
+            "    precision PRECISION float;\n" +
+            "#else\n" +
+            "    #define PRECISION\n" +
+            "#endif\n" +
+            "attribute vec4 a_position;\n" +
+            "attribute vec2 a_texCoord0;\n" +
+            "varying vec2 v_texCoords;\n" +
+            "void main() {\n" +
+            "    v_texCoords = a_texCoord0;\n" +
+            "    gl_Position = a_position;\n" +
+            "}";
+
+    private static final String FRAGMENT_HEADER =
+            "#ifdef GL_ES\n" +
+            "    #define PRECISION mediump\n" +
+            "    precision PRECISION float;\n" +
+            "    precision PRECISION int;\n" +
+            "#else\n" +
+            "    #define PRECISION\n" +
+            "#endif\n" +
+            "varying vec2 v_texCoords;\n" +
+            "uniform sampler2D u_texture0;\n";
+
+    private static final int MIN_RUN_LENGTH = 2;
+
+    private final ObjectMap<String, ShaderProgram> programs = new ObjectMap<>();
+    private final Array<FusedVfxEffect> fusedEffects = new Array<>();
+    private final StringBuilder sb = new StringBuilder();
+
+    private int compileCount = 0;
+
+    @Override
+    public void dispose() {
+        fusedEffects.clear();
+        for (ShaderProgram program : programs.values()) {
+            program.dispose();
+        }
+        programs.clear();
+    }
+
+    /**
+     * Writes the chain to the output array replacing each run of adjacent {@link FusibleVfxEffect}s
+     * with the respective {@link FusedVfxEffect} instance.
+     * The returned fused instances are cached and stay the same as long as the chain's run consists of the same effects.
+     * @return the output array.
+     */
+    public Array<ChainVfxEffect> fuse(Array<ChainVfxEffect> chain, Array<ChainVfxEffect> out) {
+        int i = 0;
+        while (i < chain.size) {
+            int runEnd = i;
+            while (runEnd < chain.size && chain.get(runEnd) instanceof FusibleVfxEffect) {
+                runEnd++;
+            }
+            int runLength = runEnd - i;
+            if (runLength >= MIN_RUN_LENGTH) {
+                out.add(obtainFusedEffect(chain, i, runLength));
+                i = runEnd;
+            } else {
+                out.add(chain.get(i));
+                i++;
+            }
+        }
+        return out;
+    }
+
+    /** Drops the cached fused effects that include the effect specified (e.g. when it's being removed from the chain). */
+    public void invalidate(ChainVfxEffect effect) {
+        for (int i = fusedEffects.size - 1; i >= 0; i--) {
+            if (fusedEffects.get(i).contains(effect)) {
+                fusedEffects.removeIndex(i);
+            }
+        }
+    }
+
+    /** Drops all the cached fused effects. The compiled programs are kept. */
+    public void invalidateAll() {
+        fusedEffects.clear();
+    }
+
+    /** Should be called after the GL context restoration. */
+    public void rebind() {
+        for (int i = 0; i < fusedEffects.size; i++) {
+            fusedEffects.get(i).rebind();
+        }
+    }
+
+    /** @return the amount of the programs compiled so far. */
+    public int getCompileCount() {
+        return compileCount;
+    }
+
+    /** @return the amount of the programs currently cached. */
+    public int getProgramCount() {
+        return programs.size;
+    }
+
+    private FusedVfxEffect obtainFusedEffect(Array<ChainVfxEffect> chain, int offset, int length) {
+        for (int i = 0; i < fusedEffects.size; i++) {
+            FusedVfxEffect fusedEffect = fusedEffects.get(i);
+            if (fusedEffect.matches(chain, offset, length)) {
+                return fusedEffect;
+            }
+        }
+
+        String signature = buildSignature(chain, offset, length);
+        ShaderProgram program = programs.get(signature);
+        if (program == null) {
+            program = VfxGLUtils.compileShaderSource("fusion[" + signature + "]",
+                    VERTEX_SOURCE, generateFragmentSource(chain, offset, length));
+            programs.put(signature, program);
+            compileCount++;
+        }
+
+        FusedVfxEffect fusedEffect = new FusedVfxEffect(program, signature, chain, offset, length);
+        fusedEffects.add(fusedEffect);
+        return fusedEffect;
+    }
+
+    private String buildSignature(Array<ChainVfxEffect> chain, int offset, int length) {
+        sb.setLength(0);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append('|');
+            sb.append(((FusibleVfxEffect) chain.get(offset + i)).getFusionId());
+        }
+        return sb.toString();
+    }
+
+    private String generateFragmentSource(Array<ChainVfxEffect> chain, int offset, int length) {
+        sb.setLength(0);
+        sb.append(FRAGMENT_HEADER);
+        for (int i = 0; i < length; i++) {
+            FusibleVfxEffect effect = (FusibleVfxEffect) chain.get(offset + i);
+            sb.append("\n// ").append(effect.getFusionId()).append('\n');
+            sb.append(effect.getFusionSource().replace(PREFIX_PLACEHOLDER, memberPrefix(i))).append('\n');
+        }
+        sb.append("\nvoid main() {\n");
+        sb.append("    vec4 color = texture2D(u_texture0, v_texCoords);\n");
+        for (int i = 0; i < length; i++) {
+            sb.append("    color = ").append(memberPrefix(i)).append("apply(color, v_texCoords);\n");
+        }
+        sb.append("    gl_FragColor = color;\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    static String memberPrefix(int index) {
+        return "f" + index + "_";
+    }
+}
@@ -23,8 +23,10 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.utils.BufferUtils;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.crashinvaders.vfx.fusion.VfxEffectFusion;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -36,6 +38,9 @@ public class VfxGLUtils {
     private static final ByteBuffer tmpByteBuffer = BufferUtils.newByteBuffer(32);
     private static final VfxGlViewport tmpViewport = new VfxGlViewport();
 
+    private static int compiledProgramCount = 0;
+    private static long totalCompileTime = 0L;
+
     /** The code that is always added to the vertex shader code.
      * Note that this is added as-is, you should include a newline (`\n`) if needed. */
     public static String prependVertexCode = "";
@@ -100,17 +105,56 @@ public class VfxGLUtils {
 
         String prependVert = prependVertexCode + defines;
         String prependFrag = prependFragmentCode + defines;
-        String srcVert = vertexFile.readString();
-        String srcFrag = fragmentFile.readString();
+        // The fusion snippets may be included into the regular shaders, their identifiers get the usual uniform prefix.
+        String srcVert = VfxShaderSources.get(vertexFile).replace(VfxEffectFusion.PREFIX_PLACEHOLDER, VfxEffectFusion.STANDALONE_PREFIX);
+        String srcFrag = VfxShaderSources.get(fragmentFile).replace(VfxEffectFusion.PREFIX_PLACEHOLDER, VfxEffectFusion.STANDALONE_PREFIX);
+
+        return createProgram(vertexFile.name() + "/" + fragmentFile.name(), prependVert + "\n" + srcVert, prependFrag + "\n" + srcFrag);
+    }
+
+    /**
+     * Compiles a shader program from the source code provided (e.g. generated at runtime).
+     * {@link #prependVertexCode} and {@link #prependFragmentCode} are added to the respective sources.
+     * @param name the program name to be used in the log and error messages.
+     */
+    public static ShaderProgram compileShaderSource(String name, String vertexSource, String fragmentSource) {
+        if (vertexSource == null) {
+            throw new IllegalArgumentException("Vertex shader source cannot be null.");
+        }
+        if (fragmentSource == null) {
+            throw new IllegalArgumentException("Fragment shader source cannot be null.");
+        }
 
-        ShaderProgram shader = new ShaderProgram(prependVert + "\n" + srcVert, prependFrag + "\n" + srcFrag);
+        Gdx.app.log(TAG, "Compiling \"" + name + "\"...");
+
+        return createProgram(name, prependVertexCode + "\n" + vertexSource, prependFragmentCode + "\n" + fragmentSource);
+    }
+
+    private static ShaderProgram createProgram(String name, String vertexSource, String fragmentSource) {
+        long startTime = TimeUtils.nanoTime();
+        ShaderProgram shader = new ShaderProgram(vertexSource, fragmentSource);
+        long compileTime = TimeUtils.timeSinceNanos(startTime);
 
         if (!shader.isCompiled()) {
-            throw new GdxRuntimeException("Shader compile error: " + vertexFile.name() + "/" + fragmentFile.name() + "\n" + shader.getLog());
+            throw new GdxRuntimeException("Shader compile error: " + name + "\n" + shader.getLog());
         }
+
+        compiledProgramCount++;
+        totalCompileTime += compileTime;
+        Gdx.app.debug(TAG, "\"" + name + "\" compiled in " + (compileTime / 1000L) / 1000f + "ms.");
         return shader;
     }
 
+    /** @return the number of shader programs compiled through this class since the application start. */
+    public static int getCompiledProgramCount() {
+        return compiledProgramCount;
+    }
+
+    /** @return the total time (in milliseconds) spent on compiling and linking the shader programs since the application start. */
+    public static float getTotalCompileTime() {
+        return (totalCompileTime / 1000L) / 1000f;
+    }
+
     //region GL state queries
 
     /** Enable pipeline state queries: beware the pipeline can stall! */
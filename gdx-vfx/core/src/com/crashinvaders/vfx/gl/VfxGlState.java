@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.gl;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * Software-tracked framebuffer binding and viewport state.
+ * <p>
+ * Querying GL state (<code>glGetIntegerv()</code>, or <code>getParameter()</code> on WebGL) stalls the pipeline,
+ * so the library changes the framebuffer binding and the viewport through this class and reads the shadow values instead.
+ * <p>
+ * The shadow state is only trusted within a tracked section ({@link #beginTracking()}/{@link #endTracking()}),
+ * as outside of one the code we don't control may freely change the GL state.
+ * Each value is queried from GL at most once per outermost tracked section, upon its first read (and again after {@link #invalidate()}).
+ * A value set through this class before it's read is not queried at all.
+ * Outside of the tracked sections every read falls back to the actual GL query of the value requested.
+ * <p>
+ * If you change the framebuffer binding or the viewport directly while a section is tracked
+ * (e.g. from a custom effect), call {@link #invalidate()} or use {@link #bindFramebuffer(int)}/{@link #setViewport(int, int, int, int)}.
+ */
+public class VfxGlState {
+
+    /**
+     * Enables the validation of the shadow state against the actual GL state and the begin/end order checks of
+     * {@link com.crashinvaders.vfx.framebuffer.VfxFrameBuffer}.
+     * The checks issue GL state queries, so they are switched off by default.
+     */
+    public static boolean debugChecks = false;
+
+    private static final VfxGlViewport viewport = new VfxGlViewport();
+    private static int boundFboHandle;
+    private static boolean fboSeeded = false;
+    private static boolean viewportSeeded = false;
+    private static int trackingDepth = 0;
+
+    /** Starts a section within which the shadow state is trusted. Every call should be paired with {@link #endTracking()}. */
+    public static void beginTracking() {
+        if (trackingDepth++ == 0) {
+            // The state is queried lazily, some sections may not need it at all.
+            invalidate();
+        }
+    }
+
+    public static void endTracking() {
+        if (trackingDepth == 0) throw new IllegalStateException("There is no tracked section. Forgot to call beginTracking()?");
+        if (--trackingDepth == 0) {
+            invalidate();
+        }
+    }
+
+    public static boolean isTracking() {
+        return trackingDepth > 0;
+    }
+
+    /** Drops the shadow state, it will be queried from GL on the next read. Call it after the GL context is restored. */
+    public static void invalidate() {
+        fboSeeded = false;
+        viewportSeeded = false;
+    }
+
+    /** Queries the actual GL state into the shadow one. */
+    public static void seed() {
+        seedFboHandle();
+        seedViewport();
+    }
+
+    public static int getBoundFboHandle() {
+        if (!fboSeeded || trackingDepth == 0) {
+            seedFboHandle();
+        } else if (debugChecks) {
+            validateFboHandle();
+        }
+        return boundFboHandle;
+    }
+
+    /** @return the shadow viewport instance. Don't modify it, copy the values instead. */
+    public static VfxGlViewport getViewport() {
+        if (!viewportSeeded || trackingDepth == 0) {
+            seedViewport();
+        } else if (debugChecks) {
+            validateViewport();
+        }
+        return viewport;
+    }
+
+    public static void bindFramebuffer(int handle) {
+        Gdx.gl20.glBindFramebuffer(GL20.GL_FRAMEBUFFER, handle);
+        boundFboHandle = handle;
+        fboSeeded = true;
+    }
+
+    public static void setViewport(int x, int y, int width, int height) {
+        Gdx.gl20.glViewport(x, y, width, height);
+        viewport.set(x, y, width, height);
+        viewportSeeded = true;
+    }
+
+    /** @see #setViewport(int, int, int, int) */
+    public static void setViewport(VfxGlViewport viewport) {
+        setViewport(viewport.x, viewport.y, viewport.width, viewport.height);
+    }
+
+    private static void seedFboHandle() {
+        boundFboHandle = VfxGLUtils.getBoundFboHandle();
+        fboSeeded = true;
+    }
+
+    private static void seedViewport() {
+        viewport.set(VfxGLUtils.getViewport());
+        viewportSeeded = true;
+    }
+
+    private static void validateFboHandle() {
+        int actualFboHandle = VfxGLUtils.getBoundFboHandle();
+        if (actualFboHandle != boundFboHandle) {
+            throw new IllegalStateException("Tracked FBO handle (" + boundFboHandle + ") doesn't match to the bound one (" + actualFboHandle + "). " +
+                    "It seems like the framebuffer was changed bypassing VfxGlState.");
+        }
+    }
+
+    private static void validateViewport() {
+        VfxGlViewport actualViewport = VfxGLUtils.getViewport();
+        if (actualViewport.x != viewport.x || actualViewport.y != viewport.y ||
+                actualViewport.width != viewport.width || actualViewport.height != viewport.height) {
+            throw new IllegalStateException("Tracked viewport (" + viewport + ") doesn't match to the actual one (" + actualViewport + "). " +
+                    "It seems like the viewport was changed bypassing VfxGlState.");
+        }
+    }
+}
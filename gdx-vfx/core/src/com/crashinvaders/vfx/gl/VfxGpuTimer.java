@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.gl;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.glutils.GLVersion;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.nio.IntBuffer;
+
+/**
+ * Measures GPU time of a sequence of GL commands using asynchronous timer queries.
+ * <p>
+ * The results are never awaited, a few queries are kept in flight and the result is picked up
+ * once the GPU is done with the commands (usually a frame or two later).
+ * <p>
+ * Timer queries are only available on desktop OpenGL 3.3+ (or with <code>GL_ARB_timer_query</code>)
+ * and on OpenGL ES 3.0+ with <code>GL_EXT_disjoint_timer_query</code> extension.
+ * Check {@link #isSupported()} before creating an instance.
+ * <p>
+ * <b>NOTE:</b> Timer queries cannot be nested, only one timer of the kind may be active at a time.
+ */
+public class VfxGpuTimer implements Disposable {
+
+    /** <code>GL_TIME_ELAPSED</code> (same as <code>GL_TIME_ELAPSED_EXT</code>). */
+    public static final int GL_TIME_ELAPSED = 0x88BF;
+    /** <code>GL_GPU_DISJOINT_EXT</code> */
+    public static final int GL_GPU_DISJOINT = 0x8FBB;
+
+    private static final int QUERY_COUNT = 4;
+
+    private final IntBuffer tmpIntBuf = BufferUtils.newIntBuffer(QUERY_COUNT);
+    private final int[] queries = new int[QUERY_COUNT];
+    private final boolean[] pending = new boolean[QUERY_COUNT];
+    private final boolean checkDisjoint;
+
+    private int writeIndex = 0;
+    private int readIndex = 0;
+    private boolean measuring = false;
+
+    private long lastResultNanos = -1L;
+    private int resultCount = 0;
+
+    /** @return true if the current GL context supports the timer queries. */
+    public static boolean isSupported() {
+        if (Gdx.gl30 == null) return false;
+
+        GLVersion glVersion = Gdx.graphics.getGLVersion();
+        switch (glVersion.getType()) {
+            case OpenGL:
+                return glVersion.isVersionEqualToOrHigher(3, 3) || Gdx.graphics.supportsExtension("GL_ARB_timer_query");
+            case GLES:
+                return Gdx.graphics.supportsExtension("GL_EXT_disjoint_timer_query");
+            default:
+                return false;
+        }
+    }
+
+    public VfxGpuTimer() {
+        if (!isSupported()) {
+            throw new IllegalStateException("GPU timer queries are not supported by the current GL context.");
+        }
+        checkDisjoint = Gdx.graphics.getGLVersion().getType() == GLVersion.Type.GLES;
+
+        tmpIntBuf.clear();
+        Gdx.gl30.glGenQueries(QUERY_COUNT, tmpIntBuf);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = tmpIntBuf.get(i);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        tmpIntBuf.clear();
+        tmpIntBuf.put(queries);
+        tmpIntBuf.flip();
+        Gdx.gl30.glDeleteQueries(QUERY_COUNT, tmpIntBuf);
+    }
+
+    /**
+     * Starts the measurement.
+     * The call is ignored (as well as the respective {@link #end()}) when all the queries are still in flight.
+     */
+    public void begin() {
+        if (measuring) throw new IllegalStateException("The timer is already measuring. Forgot to call end()?");
+
+        poll();
+        if (pending[writeIndex]) return;
+
+        Gdx.gl30.glBeginQuery(GL_TIME_ELAPSED, queries[writeIndex]);
+        measuring = true;
+    }
+
+    /** Stops the measurement. */
+    public void end() {
+        if (!measuring) return;
+
+        Gdx.gl30.glEndQuery(GL_TIME_ELAPSED);
+        pending[writeIndex] = true;
+        writeIndex = (writeIndex + 1) % QUERY_COUNT;
+        measuring = false;
+    }
+
+    /**
+     * Picks up the results of the completed queries (if any). Never blocks.
+     * It's called from {@link #begin()}, so there's no need to call it manually in most of the cases.
+     * @return true if there is a new result available.
+     */
+    public boolean poll() {
+        boolean updated = false;
+        while (pending[readIndex]) {
+            int query = queries[readIndex];
+
+            tmpIntBuf.clear();
+            Gdx.gl30.glGetQueryObjectuiv(query, GL30.GL_QUERY_RESULT_AVAILABLE, tmpIntBuf);
+            if (tmpIntBuf.get(0) == 0) break;
+
+            tmpIntBuf.clear();
+            Gdx.gl30.glGetQueryObjectuiv(query, GL30.GL_QUERY_RESULT, tmpIntBuf);
+            long nanos = tmpIntBuf.get(0) & 0xFFFFFFFFL;
+
+            pending[readIndex] = false;
+            readIndex = (readIndex + 1) % QUERY_COUNT;
+
+            if (checkDisjoint && isDisjoint()) {
+                // The GPU timings got invalid (e.g. due to frequency change), the result cannot be trusted.
+                continue;
+            }
+            lastResultNanos = nanos;
+            resultCount++;
+            updated = true;
+        }
+        return updated;
+    }
+
+    /** @return the latest available GPU time in nanoseconds or -1 if there's no result yet. */
+    public long getLastResultNanos() {
+        return lastResultNanos;
+    }
+
+    /** @return the latest available GPU time in seconds or -1 if there's no result yet. */
+    public float getLastResultSeconds() {
+        return lastResultNanos < 0L ? -1f : lastResultNanos / 1000000000f;
+    }
+
+    /** @return the total number of the results received so far. */
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    public boolean isMeasuring() {
+        return measuring;
+    }
+
+    private boolean isDisjoint() {
+        tmpIntBuf.clear();
+        Gdx.gl.glGetIntegerv(GL_GPU_DISJOINT, tmpIntBuf);
+        return tmpIntBuf.get(0) != 0;
+    }
+}
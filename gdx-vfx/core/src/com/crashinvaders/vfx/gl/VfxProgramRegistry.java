@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.gl;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Hands out reference counted shader programs shared between all the users of identical shader code.
+ * <p>
+ * A program is compiled upon the first {@link #obtain(FileHandle, FileHandle, String)} call for the particular
+ * vertex/fragment shader and defines combination and is disposed once the last user calls {@link #release(ShaderProgram)}.
+ * The programs are managed by libGDX, so they stay valid across the GL context loss.
+ * <p>
+ * <b>NOTE:</b> A shared program's uniform state is shared as well.
+ * The users should stage their uniform values through {@link com.crashinvaders.vfx.utils.UniformBatcher},
+ * which re-uploads the full state whenever another user touched the program last (see {@link #claimUniformState(ShaderProgram, Object)}).
+ */
+public class VfxProgramRegistry {
+
+    private static final ObjectMap<String, Entry> entriesByKey = new ObjectMap<>();
+    private static final ObjectMap<ShaderProgram, Entry> entriesByProgram = new ObjectMap<>();
+    private static int reuseCount = 0;
+
+    /** @see #obtain(FileHandle, FileHandle, String) */
+    public static ShaderProgram obtain(FileHandle vertexFile, FileHandle fragmentFile) {
+        return obtain(vertexFile, fragmentFile, "");
+    }
+
+    /**
+     * @return the shared program compiled with {@link VfxGLUtils#compileShader(FileHandle, FileHandle, String)}.
+     * Every call should be paired with {@link #release(ShaderProgram)}.
+     */
+    public static ShaderProgram obtain(FileHandle vertexFile, FileHandle fragmentFile, String defines) {
+        if (vertexFile == null) {
+            throw new IllegalArgumentException("Vertex shader file cannot be null.");
+        }
+        if (fragmentFile == null) {
+            throw new IllegalArgumentException("Fragment shader file cannot be null.");
+        }
+        if (defines == null) {
+            throw new IllegalArgumentException("Defines cannot be null.");
+        }
+
+        // The shader files don't change at runtime, so the file paths stand for the sources.
+        String key = vertexFile.type() + ":" + vertexFile.path() + "\n" +
+                fragmentFile.type() + ":" + fragmentFile.path() + "\n" +
+                defines + "\n" +
+                VfxGLUtils.prependVertexCode + "\n" +
+                VfxGLUtils.prependFragmentCode;
+
+        Entry entry = entriesByKey.get(key);
+        if (entry == null) {
+            entry = register(key, VfxGLUtils.compileShader(vertexFile, fragmentFile, defines));
+        } else {
+            reuseCount++;
+        }
+        entry.refCount++;
+        return entry.program;
+    }
+
+    /**
+     * @return the shared program compiled with {@link VfxGLUtils#compileShaderSource(String, String, String)}.
+     * Every call should be paired with {@link #release(ShaderProgram)}.
+     */
+    public static ShaderProgram obtainSource(String name, String vertexSource, String fragmentSource) {
+        String key = vertexSource + "\n\0\n" + fragmentSource + "\n\0\n" +
+                VfxGLUtils.prependVertexCode + "\n" +
+                VfxGLUtils.prependFragmentCode;
+
+        Entry entry = entriesByKey.get(key);
+        if (entry == null) {
+            entry = register(key, VfxGLUtils.compileShaderSource(name, vertexSource, fragmentSource));
+        } else {
+            reuseCount++;
+        }
+        entry.refCount++;
+        return entry.program;
+    }
+
+    /**
+     * Decrements the program's reference counter and disposes the program when nobody uses it anymore.
+     * @return false if the program wasn't obtained from the registry (it's left untouched then).
+     */
+    public static boolean release(ShaderProgram program) {
+        Entry entry = entriesByProgram.get(program);
+        if (entry == null) return false;
+
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            entriesByKey.remove(entry.key);
+            entriesByProgram.remove(program);
+            program.dispose();
+        }
+        return true;
+    }
+
+    /** @return true if the program is managed by the registry. */
+    public static boolean isShared(ShaderProgram program) {
+        return entriesByProgram.containsKey(program);
+    }
+
+    /** @return the number of the active users of the program or 0 if the program is not managed by the registry. */
+    public static int getRefCount(ShaderProgram program) {
+        Entry entry = entriesByProgram.get(program);
+        return entry == null ? 0 : entry.refCount;
+    }
+
+    /**
+     * @return the number of times an already compiled program was handed out instead of compiling a new one.
+     * Together with {@link VfxGLUtils#getCompiledProgramCount()} it gives the registry hit rate.
+     */
+    public static int getReuseCount() {
+        return reuseCount;
+    }
+
+    /** @return the number of distinct programs currently alive. */
+    public static int getProgramCount() {
+        return entriesByProgram.size;
+    }
+
+    /**
+     * Marks the owner as the last one who uploaded the uniform values to the shared program.
+     * @return true if the owner has changed, meaning the owner should upload its complete uniform state.
+     */
+    public static boolean claimUniformState(ShaderProgram program, Object owner) {
+        Entry entry = entriesByProgram.get(program);
+        if (entry == null || entry.uniformOwner == owner) return false;
+
+        entry.uniformOwner = owner;
+        return true;
+    }
+
+    private static Entry register(String key, ShaderProgram program) {
+        Entry entry = new Entry(key, program);
+        entriesByKey.put(key, entry);
+        entriesByProgram.put(program, entry);
+        return entry;
+    }
+
+    private static class Entry {
+        final String key;
+        final ShaderProgram program;
+        int refCount = 0;
+        Object uniformOwner = null;
+
+        Entry(String key, ShaderProgram program) {
+            this.key = key;
+            this.program = program;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.gl;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+/**
+ * Describes a shader program to be compiled later (e.g. by {@link com.crashinvaders.vfx.VfxShaderWarmup}).
+ * The program is obtained from {@link VfxProgramRegistry}, so it should be released through the registry as well.
+ */
+public class VfxShaderRequest {
+
+    private final FileHandle vertexFile;
+    private final FileHandle fragmentFile;
+    private final String defines;
+
+    public VfxShaderRequest(FileHandle vertexFile, FileHandle fragmentFile) {
+        this(vertexFile, fragmentFile, "");
+    }
+
+    public VfxShaderRequest(FileHandle vertexFile, FileHandle fragmentFile, String defines) {
+        if (vertexFile == null) {
+            throw new IllegalArgumentException("Vertex shader file cannot be null.");
+        }
+        if (fragmentFile == null) {
+            throw new IllegalArgumentException("Fragment shader file cannot be null.");
+        }
+        if (defines == null) {
+            throw new IllegalArgumentException("Defines cannot be null.");
+        }
+        this.vertexFile = vertexFile;
+        this.fragmentFile = fragmentFile;
+        this.defines = defines;
+    }
+
+    /** Compiles the program (or picks up the already compiled shared one). */
+    public ShaderProgram obtain() {
+        return VfxProgramRegistry.obtain(vertexFile, fragmentFile, defines);
+    }
+
+    public FileHandle getVertexFile() {
+        return vertexFile;
+    }
+
+    public FileHandle getFragmentFile() {
+        return fragmentFile;
+    }
+
+    public String getDefines() {
+        return defines;
+    }
+
+    @Override
+    public String toString() {
+        return vertexFile.name() + "/" + fragmentFile.name();
+    }
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.gl;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Reads and preprocesses the shader sources for {@link VfxGLUtils#compileShader(FileHandle, FileHandle, String)}.
+ * <p>
+ * Supports the <code>#include "path"</code> directive, the path is resolved relative to the including file
+ * (e.g. <code>#include "include/precision.glsl"</code>). Every file is included at most once per source,
+ * so the snippets don't need include guards. The exception are the snippets included by the fusion sources
+ * ({@link com.crashinvaders.vfx.effects.FusibleVfxEffect#getFusionSource()}), as those get concatenated after preprocessing.
+ * <p>
+ * The sources are kept in memory once read. Classpath sources are looked up in the loaded bundles first,
+ * a bundle is a single indexed resource with many shader files packed together
+ * (the effects module packs all of its shaders to {@link #DEFAULT_BUNDLE_PATH} at build time).
+ * The bundle format is:
+ * <pre>
+ * #vfx-shader-bundle 1
+ * &lt;path&gt;\t&lt;length&gt;      (an index line per file, the path is relative to the classpath root)
+ * ...
+ * &lt;empty line&gt;
+ * &lt;the file contents concatenated in the index order&gt;
+ * </pre>
+ */
+public class VfxShaderSources {
+    private static final String TAG = VfxShaderSources.class.getSimpleName();
+
+    public static final String DEFAULT_BUNDLE_PATH = "gdxvfx/shaders.bundle";
+    private static final String BUNDLE_HEADER = "#vfx-shader-bundle 1";
+    private static final String INCLUDE_DIRECTIVE = "#include";
+
+    /** Whether the {@link #DEFAULT_BUNDLE_PATH} bundle should be looked up on the first source request. */
+    public static boolean autoLoadBundle = true;
+
+    private static final ObjectMap<String, String> rawSources = new ObjectMap<>();
+    private static final ObjectMap<String, String> processedSources = new ObjectMap<>();
+    private static final ObjectSet<String> includedTmp = new ObjectSet<>();
+    private static final Array<String> includeStackTmp = new Array<>();
+    private static boolean defaultBundleChecked = false;
+    private static int fileReadCount = 0;
+
+    /** @return the preprocessed source code of the file (with all the includes resolved). */
+    public static String get(FileHandle file) {
+        if (file == null) {
+            throw new IllegalArgumentException("Shader file cannot be null.");
+        }
+        String key = toKey(file);
+        String source = processedSources.get(key);
+        if (source == null) {
+            includedTmp.clear();
+            includeStackTmp.clear();
+            StringBuilder sb = new StringBuilder();
+            appendProcessed(file, sb);
+            source = sb.toString();
+            processedSources.put(key, source);
+        }
+        return source;
+    }
+
+    /**
+     * Loads all the files from the bundle to the memory.
+     * The bundled files take precedence over the same classpath files.
+     * @return the number of the files loaded.
+     */
+    public static int loadBundle(FileHandle bundleFile) {
+        String text = bundleFile.readString("UTF-8");
+        fileReadCount++;
+
+        int lineEnd = text.indexOf('\n');
+        if (lineEnd < 0 || !text.substring(0, lineEnd).trim().equals(BUNDLE_HEADER)) {
+            throw new GdxRuntimeException("Not a shader bundle: " + bundleFile);
+        }
+
+        // Parse the index.
+        Array<String> paths = new Array<>();
+        IntArray lengths = new IntArray();
+        int lineStart = lineEnd + 1;
+        while (true) {
+            lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                throw new GdxRuntimeException("Shader bundle index is not terminated: " + bundleFile);
+            }
+            String line = text.substring(lineStart, lineEnd).trim();
+            lineStart = lineEnd + 1;
+            if (line.length() == 0) break;
+
+            int separator = line.lastIndexOf('\t');
+            if (separator < 0) {
+                throw new GdxRuntimeException("Malformed shader bundle index line \"" + line + "\": " + bundleFile);
+            }
+            paths.add(line.substring(0, separator));
+            lengths.add(Integer.parseInt(line.substring(separator + 1)));
+        }
+
+        // Slice the data.
+        int offset = lineStart;
+        for (int i = 0; i < paths.size; i++) {
+            int length = lengths.get(i);
+            if (offset + length > text.length()) {
+                throw new GdxRuntimeException("Shader bundle is truncated at \"" + paths.get(i) + "\": " + bundleFile);
+            }
+            String key = toKey(Files.FileType.Classpath, paths.get(i));
+            rawSources.put(key, text.substring(offset, offset + length));
+            offset += length;
+        }
+        // The bundled files may change already processed sources.
+        processedSources.clear();
+
+        Gdx.app.log(TAG, paths.size + " shader files loaded from \"" + bundleFile.path() + "\".");
+        return paths.size;
+    }
+
+    /** Drops all the cached sources and the loaded bundles. */
+    public static void clear() {
+        rawSources.clear();
+        processedSources.clear();
+        defaultBundleChecked = false;
+    }
+
+    /** @return the number of the files (bundles included) read so far. Every file is read at most once until {@link #clear()}. */
+    public static int getFileReadCount() {
+        return fileReadCount;
+    }
+
+    private static void appendProcessed(FileHandle file, StringBuilder sb) {
+        String key = toKey(file);
+        if (includeStackTmp.contains(key, false)) {
+            throw new GdxRuntimeException("Circular shader include: " + includeStackTmp + " -> " + key);
+        }
+        if (!includedTmp.add(key)) return;
+        includeStackTmp.add(key);
+
+        String source = getRaw(file, key);
+        int lineStart = 0;
+        int length = source.length();
+        while (lineStart < length) {
+            int lineEnd = source.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = length;
+
+            String line = source.substring(lineStart, lineEnd).trim();
+            if (line.startsWith(INCLUDE_DIRECTIVE)) {
+                appendProcessed(resolveInclude(file, line), sb);
+            } else {
+                sb.append(source, lineStart, Math.min(lineEnd + 1, length));
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (length > 0 && source.charAt(length - 1) != '\n') {
+            sb.append('\n');
+        }
+
+        includeStackTmp.pop();
+    }
+
+    private static String getRaw(FileHandle file, String key) {
+        if (autoLoadBundle && !defaultBundleChecked) {
+            defaultBundleChecked = true;
+            FileHandle bundleFile = Gdx.files.classpath(DEFAULT_BUNDLE_PATH);
+            if (bundleFile.exists()) {
+                loadBundle(bundleFile);
+            }
+        }
+
+        String source = rawSources.get(key);
+        if (source == null) {
+            if (!file.exists()) {
+                throw new GdxRuntimeException("Shader file doesn't exist: " + file);
+            }
+            source = file.readString();
+            fileReadCount++;
+            rawSources.put(key, source);
+        }
+        return source;
+    }
+
+    private static FileHandle resolveInclude(FileHandle includingFile, String line) {
+        int pathStart = line.indexOf('"');
+        int pathEnd = line.lastIndexOf('"');
+        if (pathStart < 0 || pathEnd <= pathStart) {
+            throw new GdxRuntimeException("Malformed include directive \"" + line + "\" in " + includingFile);
+        }
+        String includePath = line.substring(pathStart + 1, pathEnd);
+        String parentPath = includingFile.path();
+        int separator = parentPath.lastIndexOf('/');
+        parentPath = separator < 0 ? "" : parentPath.substring(0, separator + 1);
+        return Gdx.files.getFileHandle(normalizePath(parentPath + includePath), includingFile.type());
+    }
+
+    /** Collapses the "." and ".." path segments. */
+    private static String normalizePath(String path) {
+        String[] segments = path.split("/");
+        Array<String> result = new Array<>(segments.length);
+        for (String segment : segments) {
+            if (segment.equals(".") || (segment.length() == 0 && result.size > 0)) continue;
+            if (segment.equals("..") && result.size > 0 && !result.peek().equals("..")) {
+                result.pop();
+            } else {
+                result.add(segment);
+            }
+        }
+        return result.toString("/");
+    }
+
+    private static String toKey(FileHandle file) {
+        return toKey(file.type(), file.path());
+    }
+
+    private static String toKey(Files.FileType type, String path) {
+        return type + ":" + path;
+    }
+}
@@ -0,0 +1,1014 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.profiling;
+
+import com.badlogic.gdx.graphics.GL20;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * {@link GL20} decorator that reports every call to {@link VfxGlStats} and delegates it to the wrapped instance.
+ * @see VfxGlStats#beginFrame()
+ */
+public class CountingGL20 implements GL20 {
+
+    protected final GL20 gl;
+    protected final VfxGlStats stats;
+
+    public CountingGL20(GL20 gl, VfxGlStats stats) {
+        this.gl = gl;
+        this.stats = stats;
+    }
+
+    public GL20 getDelegate() {
+        return gl;
+    }
+
+    @Override
+    public void glActiveTexture(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glActiveTexture(p0);
+    }
+
+    @Override
+    public void glBindTexture(int p0, int p1) {
+        stats.count(VfxGlStats.BIND_TEXTURE);
+        gl.glBindTexture(p0, p1);
+    }
+
+    @Override
+    public void glBlendFunc(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBlendFunc(p0, p1);
+    }
+
+    @Override
+    public void glClear(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glClear(p0);
+    }
+
+    @Override
+    public void glClearColor(float p0, float p1, float p2, float p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glClearColor(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glClearDepthf(float p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glClearDepthf(p0);
+    }
+
+    @Override
+    public void glClearStencil(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glClearStencil(p0);
+    }
+
+    @Override
+    public void glColorMask(boolean p0, boolean p1, boolean p2, boolean p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glColorMask(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, Buffer p7) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCompressedTexImage2D(p0, p1, p2, p3, p4, p5, p6, p7);
+    }
+
+    @Override
+    public void glCompressedTexSubImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, Buffer p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCompressedTexSubImage2D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glCopyTexImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCopyTexImage2D(p0, p1, p2, p3, p4, p5, p6, p7);
+    }
+
+    @Override
+    public void glCopyTexSubImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCopyTexSubImage2D(p0, p1, p2, p3, p4, p5, p6, p7);
+    }
+
+    @Override
+    public void glCullFace(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCullFace(p0);
+    }
+
+    @Override
+    public void glDeleteTextures(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteTextures(p0, p1);
+    }
+
+    @Override
+    public void glDeleteTexture(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteTexture(p0);
+    }
+
+    @Override
+    public void glDepthFunc(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDepthFunc(p0);
+    }
+
+    @Override
+    public void glDepthMask(boolean p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDepthMask(p0);
+    }
+
+    @Override
+    public void glDepthRangef(float p0, float p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDepthRangef(p0, p1);
+    }
+
+    @Override
+    public void glDisable(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDisable(p0);
+    }
+
+    @Override
+    public void glDrawArrays(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.DRAW);
+        gl.glDrawArrays(p0, p1, p2);
+    }
+
+    @Override
+    public void glDrawElements(int p0, int p1, int p2, Buffer p3) {
+        stats.count(VfxGlStats.DRAW);
+        gl.glDrawElements(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glEnable(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glEnable(p0);
+    }
+
+    @Override
+    public void glFinish() {
+        stats.count(VfxGlStats.OTHER);
+        gl.glFinish();
+    }
+
+    @Override
+    public void glFlush() {
+        stats.count(VfxGlStats.OTHER);
+        gl.glFlush();
+    }
+
+    @Override
+    public void glFrontFace(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glFrontFace(p0);
+    }
+
+    @Override
+    public void glGenTextures(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGenTextures(p0, p1);
+    }
+
+    @Override
+    public int glGenTexture() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGenTexture();
+    }
+
+    @Override
+    public int glGetError() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetError();
+    }
+
+    @Override
+    public void glGetIntegerv(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.STATE_QUERY);
+        gl.glGetIntegerv(p0, p1);
+    }
+
+    @Override
+    public String glGetString(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetString(p0);
+    }
+
+    @Override
+    public void glHint(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glHint(p0, p1);
+    }
+
+    @Override
+    public void glLineWidth(float p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glLineWidth(p0);
+    }
+
+    @Override
+    public void glPixelStorei(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glPixelStorei(p0, p1);
+    }
+
+    @Override
+    public void glPolygonOffset(float p0, float p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glPolygonOffset(p0, p1);
+    }
+
+    @Override
+    public void glReadPixels(int p0, int p1, int p2, int p3, int p4, int p5, Buffer p6) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glReadPixels(p0, p1, p2, p3, p4, p5, p6);
+    }
+
+    @Override
+    public void glScissor(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glScissor(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glStencilFunc(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilFunc(p0, p1, p2);
+    }
+
+    @Override
+    public void glStencilMask(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilMask(p0);
+    }
+
+    @Override
+    public void glStencilOp(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilOp(p0, p1, p2);
+    }
+
+    @Override
+    public void glTexImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, Buffer p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexImage2D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glTexParameterf(int p0, int p1, float p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexParameterf(p0, p1, p2);
+    }
+
+    @Override
+    public void glTexSubImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, Buffer p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexSubImage2D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glViewport(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.VIEWPORT);
+        gl.glViewport(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glAttachShader(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glAttachShader(p0, p1);
+    }
+
+    @Override
+    public void glBindAttribLocation(int p0, int p1, String p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBindAttribLocation(p0, p1, p2);
+    }
+
+    @Override
+    public void glBindBuffer(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBindBuffer(p0, p1);
+    }
+
+    @Override
+    public void glBindFramebuffer(int p0, int p1) {
+        stats.count(VfxGlStats.BIND_FRAMEBUFFER);
+        gl.glBindFramebuffer(p0, p1);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBindRenderbuffer(p0, p1);
+    }
+
+    @Override
+    public void glBlendColor(float p0, float p1, float p2, float p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBlendColor(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glBlendEquation(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBlendEquation(p0);
+    }
+
+    @Override
+    public void glBlendEquationSeparate(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBlendEquationSeparate(p0, p1);
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBlendFuncSeparate(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glBufferData(int p0, int p1, Buffer p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBufferData(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glBufferSubData(int p0, int p1, int p2, Buffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glBufferSubData(p0, p1, p2, p3);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glCheckFramebufferStatus(p0);
+    }
+
+    @Override
+    public void glCompileShader(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glCompileShader(p0);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glCreateProgram();
+    }
+
+    @Override
+    public int glCreateShader(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glCreateShader(p0);
+    }
+
+    @Override
+    public void glDeleteBuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteBuffer(p0);
+    }
+
+    @Override
+    public void glDeleteBuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteBuffers(p0, p1);
+    }
+
+    @Override
+    public void glDeleteFramebuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteFramebuffer(p0);
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteFramebuffers(p0, p1);
+    }
+
+    @Override
+    public void glDeleteProgram(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteProgram(p0);
+    }
+
+    @Override
+    public void glDeleteRenderbuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteRenderbuffer(p0);
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteRenderbuffers(p0, p1);
+    }
+
+    @Override
+    public void glDeleteShader(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDeleteShader(p0);
+    }
+
+    @Override
+    public void glDetachShader(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDetachShader(p0, p1);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glDisableVertexAttribArray(p0);
+    }
+
+    @Override
+    public void glDrawElements(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.DRAW);
+        gl.glDrawElements(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glEnableVertexAttribArray(p0);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glFramebufferRenderbuffer(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glFramebufferTexture2D(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public int glGenBuffer() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGenBuffer();
+    }
+
+    @Override
+    public void glGenBuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGenBuffers(p0, p1);
+    }
+
+    @Override
+    public void glGenerateMipmap(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGenerateMipmap(p0);
+    }
+
+    @Override
+    public int glGenFramebuffer() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGenFramebuffer();
+    }
+
+    @Override
+    public void glGenFramebuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGenFramebuffers(p0, p1);
+    }
+
+    @Override
+    public int glGenRenderbuffer() {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGenRenderbuffer();
+    }
+
+    @Override
+    public void glGenRenderbuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGenRenderbuffers(p0, p1);
+    }
+
+    @Override
+    public String glGetActiveAttrib(int p0, int p1, IntBuffer p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetActiveAttrib(p0, p1, p2, p3);
+    }
+
+    @Override
+    public String glGetActiveUniform(int p0, int p1, IntBuffer p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetActiveUniform(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glGetAttachedShaders(int p0, int p1, Buffer p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetAttachedShaders(p0, p1, p2, p3);
+    }
+
+    @Override
+    public int glGetAttribLocation(int p0, String p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetAttribLocation(p0, p1);
+    }
+
+    @Override
+    public void glGetBooleanv(int p0, Buffer p1) {
+        stats.count(VfxGlStats.STATE_QUERY);
+        gl.glGetBooleanv(p0, p1);
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetBufferParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetFloatv(int p0, FloatBuffer p1) {
+        stats.count(VfxGlStats.STATE_QUERY);
+        gl.glGetFloatv(p0, p1);
+    }
+
+    @Override
+    public void glGetFramebufferAttachmentParameteriv(int p0, int p1, int p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetFramebufferAttachmentParameteriv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glGetProgramiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetProgramiv(p0, p1, p2);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetProgramInfoLog(p0);
+    }
+
+    @Override
+    public void glGetRenderbufferParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetRenderbufferParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetShaderiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetShaderiv(p0, p1, p2);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetShaderInfoLog(p0);
+    }
+
+    @Override
+    public void glGetShaderPrecisionFormat(int p0, int p1, IntBuffer p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetShaderPrecisionFormat(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glGetTexParameterfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetTexParameterfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetTexParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetTexParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetUniformfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetUniformfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetUniformiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetUniformiv(p0, p1, p2);
+    }
+
+    @Override
+    public int glGetUniformLocation(int p0, String p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glGetUniformLocation(p0, p1);
+    }
+
+    @Override
+    public void glGetVertexAttribfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetVertexAttribfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetVertexAttribiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetVertexAttribPointerv(int p0, int p1, Buffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glGetVertexAttribPointerv(p0, p1, p2);
+    }
+
+    @Override
+    public boolean glIsBuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsBuffer(p0);
+    }
+
+    @Override
+    public boolean glIsEnabled(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsEnabled(p0);
+    }
+
+    @Override
+    public boolean glIsFramebuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsFramebuffer(p0);
+    }
+
+    @Override
+    public boolean glIsProgram(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsProgram(p0);
+    }
+
+    @Override
+    public boolean glIsRenderbuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsRenderbuffer(p0);
+    }
+
+    @Override
+    public boolean glIsShader(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsShader(p0);
+    }
+
+    @Override
+    public boolean glIsTexture(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl.glIsTexture(p0);
+    }
+
+    @Override
+    public void glLinkProgram(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glLinkProgram(p0);
+    }
+
+    @Override
+    public void glReleaseShaderCompiler() {
+        stats.count(VfxGlStats.OTHER);
+        gl.glReleaseShaderCompiler();
+    }
+
+    @Override
+    public void glRenderbufferStorage(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glRenderbufferStorage(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glSampleCoverage(float p0, boolean p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glSampleCoverage(p0, p1);
+    }
+
+    @Override
+    public void glShaderBinary(int p0, IntBuffer p1, int p2, Buffer p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glShaderBinary(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glShaderSource(int p0, String p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glShaderSource(p0, p1);
+    }
+
+    @Override
+    public void glStencilFuncSeparate(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilFuncSeparate(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glStencilMaskSeparate(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilMaskSeparate(p0, p1);
+    }
+
+    @Override
+    public void glStencilOpSeparate(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glStencilOpSeparate(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glTexParameterfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexParameterfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glTexParameteri(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexParameteri(p0, p1, p2);
+    }
+
+    @Override
+    public void glTexParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glTexParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform1f(int p0, float p1) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1f(p0, p1);
+    }
+
+    @Override
+    public void glUniform1fv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1fv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform1fv(int p0, int p1, float[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform1i(int p0, int p1) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1i(p0, p1);
+    }
+
+    @Override
+    public void glUniform1iv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1iv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform1iv(int p0, int p1, int[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform1iv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform2f(int p0, float p1, float p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2f(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform2fv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2fv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform2fv(int p0, int p1, float[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform2i(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2i(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform2iv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2iv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform2iv(int p0, int p1, int[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform2iv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform3f(int p0, float p1, float p2, float p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3f(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform3fv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3fv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform3fv(int p0, int p1, float[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform3i(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3i(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform3iv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3iv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform3iv(int p0, int p1, int[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform3iv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform4f(int p0, float p1, float p2, float p3, float p4) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4f(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glUniform4fv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4fv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform4fv(int p0, int p1, float[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniform4i(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4i(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glUniform4iv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4iv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform4iv(int p0, int p1, int[] p2, int p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniform4iv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix2fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix2fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix2fv(int p0, int p1, boolean p2, float[] p3, int p4) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix2fv(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix3fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int p0, int p1, boolean p2, float[] p3, int p4) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix3fv(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix4fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int p0, int p1, boolean p2, float[] p3, int p4) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl.glUniformMatrix4fv(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glUseProgram(int p0) {
+        stats.count(VfxGlStats.USE_PROGRAM);
+        gl.glUseProgram(p0);
+    }
+
+    @Override
+    public void glValidateProgram(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glValidateProgram(p0);
+    }
+
+    @Override
+    public void glVertexAttrib1f(int p0, float p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib1f(p0, p1);
+    }
+
+    @Override
+    public void glVertexAttrib1fv(int p0, FloatBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib1fv(p0, p1);
+    }
+
+    @Override
+    public void glVertexAttrib2f(int p0, float p1, float p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib2f(p0, p1, p2);
+    }
+
+    @Override
+    public void glVertexAttrib2fv(int p0, FloatBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib2fv(p0, p1);
+    }
+
+    @Override
+    public void glVertexAttrib3f(int p0, float p1, float p2, float p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib3f(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glVertexAttrib3fv(int p0, FloatBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib3fv(p0, p1);
+    }
+
+    @Override
+    public void glVertexAttrib4f(int p0, float p1, float p2, float p3, float p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib4f(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glVertexAttrib4fv(int p0, FloatBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttrib4fv(p0, p1);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int p0, int p1, int p2, boolean p3, int p4, Buffer p5) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttribPointer(p0, p1, p2, p3, p4, p5);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int p0, int p1, int p2, boolean p3, int p4, int p5) {
+        stats.count(VfxGlStats.OTHER);
+        gl.glVertexAttribPointer(p0, p1, p2, p3, p4, p5);
+    }
+}
@@ -0,0 +1,618 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.profiling;
+
+import com.badlogic.gdx.graphics.GL30;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * {@link GL30} decorator that reports every call to {@link VfxGlStats} and delegates it to the wrapped instance.
+ * @see VfxGlStats#beginFrame()
+ */
+public class CountingGL30 extends CountingGL20 implements GL30 {
+
+    protected final GL30 gl30;
+
+    public CountingGL30(GL30 gl30, VfxGlStats stats) {
+        super(gl30, stats);
+        this.gl30 = gl30;
+    }
+
+    public GL30 getDelegate30() {
+        return gl30;
+    }
+
+    @Override
+    public void glReadBuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glReadBuffer(p0);
+    }
+
+    @Override
+    public void glDrawRangeElements(int p0, int p1, int p2, int p3, int p4, Buffer p5) {
+        stats.count(VfxGlStats.DRAW);
+        gl30.glDrawRangeElements(p0, p1, p2, p3, p4, p5);
+    }
+
+    @Override
+    public void glDrawRangeElements(int p0, int p1, int p2, int p3, int p4, int p5) {
+        stats.count(VfxGlStats.DRAW);
+        gl30.glDrawRangeElements(p0, p1, p2, p3, p4, p5);
+    }
+
+    @Override
+    public void glTexImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexImage2D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glTexImage3D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8, Buffer p9) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexImage3D(p0, p1, p2, p3, p4, p5, p6, p7, p8, p9);
+    }
+
+    @Override
+    public void glTexImage3D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8, int p9) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexImage3D(p0, p1, p2, p3, p4, p5, p6, p7, p8, p9);
+    }
+
+    @Override
+    public void glTexSubImage2D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexSubImage2D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glTexSubImage3D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8, int p9, Buffer p10) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexSubImage3D(p0, p1, p2, p3, p4, p5, p6, p7, p8, p9, p10);
+    }
+
+    @Override
+    public void glTexSubImage3D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8, int p9, int p10) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTexSubImage3D(p0, p1, p2, p3, p4, p5, p6, p7, p8, p9, p10);
+    }
+
+    @Override
+    public void glCopyTexSubImage3D(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glCopyTexSubImage3D(p0, p1, p2, p3, p4, p5, p6, p7, p8);
+    }
+
+    @Override
+    public void glGenQueries(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenQueries(p0, p1, p2);
+    }
+
+    @Override
+    public void glGenQueries(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenQueries(p0, p1);
+    }
+
+    @Override
+    public void glDeleteQueries(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteQueries(p0, p1, p2);
+    }
+
+    @Override
+    public void glDeleteQueries(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteQueries(p0, p1);
+    }
+
+    @Override
+    public boolean glIsQuery(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glIsQuery(p0);
+    }
+
+    @Override
+    public void glBeginQuery(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBeginQuery(p0, p1);
+    }
+
+    @Override
+    public void glEndQuery(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glEndQuery(p0);
+    }
+
+    @Override
+    public void glGetQueryiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetQueryiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetQueryObjectuiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetQueryObjectuiv(p0, p1, p2);
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glUnmapBuffer(p0);
+    }
+
+    @Override
+    public Buffer glGetBufferPointerv(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glGetBufferPointerv(p0, p1);
+    }
+
+    @Override
+    public void glDrawBuffers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDrawBuffers(p0, p1);
+    }
+
+    @Override
+    public void glUniformMatrix2x3fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix2x3fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix3x2fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix3x2fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix2x4fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix2x4fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix4x2fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix4x2fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix3x4fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix3x4fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glUniformMatrix4x3fv(int p0, int p1, boolean p2, FloatBuffer p3) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniformMatrix4x3fv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glBlitFramebuffer(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8, int p9) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBlitFramebuffer(p0, p1, p2, p3, p4, p5, p6, p7, p8, p9);
+    }
+
+    @Override
+    public void glRenderbufferStorageMultisample(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glRenderbufferStorageMultisample(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glFramebufferTextureLayer(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glFramebufferTextureLayer(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public Buffer glMapBufferRange(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glMapBufferRange(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glFlushMappedBufferRange(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glFlushMappedBufferRange(p0, p1, p2);
+    }
+
+    @Override
+    public void glBindVertexArray(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBindVertexArray(p0);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteVertexArrays(p0, p1, p2);
+    }
+
+    @Override
+    public void glDeleteVertexArrays(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteVertexArrays(p0, p1);
+    }
+
+    @Override
+    public void glGenVertexArrays(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenVertexArrays(p0, p1, p2);
+    }
+
+    @Override
+    public void glGenVertexArrays(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenVertexArrays(p0, p1);
+    }
+
+    @Override
+    public boolean glIsVertexArray(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glIsVertexArray(p0);
+    }
+
+    @Override
+    public void glBeginTransformFeedback(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBeginTransformFeedback(p0);
+    }
+
+    @Override
+    public void glEndTransformFeedback() {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glEndTransformFeedback();
+    }
+
+    @Override
+    public void glBindBufferRange(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBindBufferRange(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glBindBufferBase(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBindBufferBase(p0, p1, p2);
+    }
+
+    @Override
+    public void glTransformFeedbackVaryings(int p0, String[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glTransformFeedbackVaryings(p0, p1, p2);
+    }
+
+    @Override
+    public void glVertexAttribIPointer(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glVertexAttribIPointer(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glGetVertexAttribIiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetVertexAttribIiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetVertexAttribIuiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetVertexAttribIuiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glVertexAttribI4i(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glVertexAttribI4i(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glVertexAttribI4ui(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glVertexAttribI4ui(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glGetUniformuiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetUniformuiv(p0, p1, p2);
+    }
+
+    @Override
+    public int glGetFragDataLocation(int p0, String p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glGetFragDataLocation(p0, p1);
+    }
+
+    @Override
+    public void glUniform1uiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniform1uiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform3uiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniform3uiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glUniform4uiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.UNIFORM);
+        gl30.glUniform4uiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glClearBufferiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glClearBufferiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glClearBufferuiv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glClearBufferuiv(p0, p1, p2);
+    }
+
+    @Override
+    public void glClearBufferfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glClearBufferfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glClearBufferfi(int p0, int p1, float p2, int p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glClearBufferfi(p0, p1, p2, p3);
+    }
+
+    @Override
+    public String glGetStringi(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glGetStringi(p0, p1);
+    }
+
+    @Override
+    public void glCopyBufferSubData(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glCopyBufferSubData(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glGetUniformIndices(int p0, String[] p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetUniformIndices(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetActiveUniformsiv(int p0, int p1, IntBuffer p2, int p3, IntBuffer p4) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetActiveUniformsiv(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public int glGetUniformBlockIndex(int p0, String p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glGetUniformBlockIndex(p0, p1);
+    }
+
+    @Override
+    public void glGetActiveUniformBlockiv(int p0, int p1, int p2, IntBuffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetActiveUniformBlockiv(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glGetActiveUniformBlockName(int p0, int p1, Buffer p2, Buffer p3) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetActiveUniformBlockName(p0, p1, p2, p3);
+    }
+
+    @Override
+    public String glGetActiveUniformBlockName(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glGetActiveUniformBlockName(p0, p1);
+    }
+
+    @Override
+    public void glUniformBlockBinding(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glUniformBlockBinding(p0, p1, p2);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int p0, int p1, int p2, int p3) {
+        stats.count(VfxGlStats.DRAW);
+        gl30.glDrawArraysInstanced(p0, p1, p2, p3);
+    }
+
+    @Override
+    public void glDrawElementsInstanced(int p0, int p1, int p2, int p3, int p4) {
+        stats.count(VfxGlStats.DRAW);
+        gl30.glDrawElementsInstanced(p0, p1, p2, p3, p4);
+    }
+
+    @Override
+    public void glGetInteger64v(int p0, LongBuffer p1) {
+        stats.count(VfxGlStats.STATE_QUERY);
+        gl30.glGetInteger64v(p0, p1);
+    }
+
+    @Override
+    public void glGetBufferParameteri64v(int p0, int p1, LongBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetBufferParameteri64v(p0, p1, p2);
+    }
+
+    @Override
+    public void glGenSamplers(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenSamplers(p0, p1, p2);
+    }
+
+    @Override
+    public void glGenSamplers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenSamplers(p0, p1);
+    }
+
+    @Override
+    public void glDeleteSamplers(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteSamplers(p0, p1, p2);
+    }
+
+    @Override
+    public void glDeleteSamplers(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteSamplers(p0, p1);
+    }
+
+    @Override
+    public boolean glIsSampler(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glIsSampler(p0);
+    }
+
+    @Override
+    public void glBindSampler(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBindSampler(p0, p1);
+    }
+
+    @Override
+    public void glSamplerParameteri(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glSamplerParameteri(p0, p1, p2);
+    }
+
+    @Override
+    public void glSamplerParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glSamplerParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glSamplerParameterf(int p0, int p1, float p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glSamplerParameterf(p0, p1, p2);
+    }
+
+    @Override
+    public void glSamplerParameterfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glSamplerParameterfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetSamplerParameteriv(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetSamplerParameteriv(p0, p1, p2);
+    }
+
+    @Override
+    public void glGetSamplerParameterfv(int p0, int p1, FloatBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGetSamplerParameterfv(p0, p1, p2);
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glVertexAttribDivisor(p0, p1);
+    }
+
+    @Override
+    public void glBindTransformFeedback(int p0, int p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glBindTransformFeedback(p0, p1);
+    }
+
+    @Override
+    public void glDeleteTransformFeedbacks(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteTransformFeedbacks(p0, p1, p2);
+    }
+
+    @Override
+    public void glDeleteTransformFeedbacks(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glDeleteTransformFeedbacks(p0, p1);
+    }
+
+    @Override
+    public void glGenTransformFeedbacks(int p0, int[] p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenTransformFeedbacks(p0, p1, p2);
+    }
+
+    @Override
+    public void glGenTransformFeedbacks(int p0, IntBuffer p1) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glGenTransformFeedbacks(p0, p1);
+    }
+
+    @Override
+    public boolean glIsTransformFeedback(int p0) {
+        stats.count(VfxGlStats.OTHER);
+        return gl30.glIsTransformFeedback(p0);
+    }
+
+    @Override
+    public void glPauseTransformFeedback() {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glPauseTransformFeedback();
+    }
+
+    @Override
+    public void glResumeTransformFeedback() {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glResumeTransformFeedback();
+    }
+
+    @Override
+    public void glProgramParameteri(int p0, int p1, int p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glProgramParameteri(p0, p1, p2);
+    }
+
+    @Override
+    public void glInvalidateFramebuffer(int p0, int p1, IntBuffer p2) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glInvalidateFramebuffer(p0, p1, p2);
+    }
+
+    @Override
+    public void glInvalidateSubFramebuffer(int p0, int p1, IntBuffer p2, int p3, int p4, int p5, int p6) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glInvalidateSubFramebuffer(p0, p1, p2, p3, p4, p5, p6);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int p0, int p1, int p2, boolean p3, int p4, Buffer p5) {
+        stats.count(VfxGlStats.OTHER);
+        gl30.glVertexAttribPointer(p0, p1, p2, p3, p4, p5);
+    }
+}
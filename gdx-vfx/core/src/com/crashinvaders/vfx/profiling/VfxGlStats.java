@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Counts the GL calls and the state changes issued while the effect chain is processed, per frame and per effect.
+ * <p>
+ * Attach an instance to {@link com.crashinvaders.vfx.VfxManager#setGlStats(VfxGlStats)}.
+ * For the duration of {@link com.crashinvaders.vfx.VfxManager#applyEffects()} the manager routes
+ * <code>Gdx.gl</code>, <code>Gdx.gl20</code> and <code>Gdx.gl30</code> through the counting decorators
+ * ({@link CountingGL20}/{@link CountingGL30}) and restores the original instances afterwards.
+ * When no instance is attached, nothing is decorated and there is no overhead at all.
+ * <p>
+ * The counters are reset upon {@link #beginFrame()} and stay readable until the next frame begins.
+ * <p>
+ * <b>NOTE:</b> The calls made through <code>Gdx.gl31</code>/<code>Gdx.gl32</code> are not counted.
+ */
+public class VfxGlStats {
+
+    /** Total number of GL calls. */
+    public static final int CALLS = 0;
+    public static final int BIND_FRAMEBUFFER = 1;
+    public static final int VIEWPORT = 2;
+    public static final int USE_PROGRAM = 3;
+    /** <code>glUniform*()</code> calls. */
+    public static final int UNIFORM = 4;
+    public static final int BIND_TEXTURE = 5;
+    /** <code>glDrawArrays()</code>/<code>glDrawElements()</code> and their GL 3.0 variants. */
+    public static final int DRAW = 6;
+    /** <code>glGetIntegerv()</code>/<code>glGetBooleanv()</code>/<code>glGetFloatv()</code> state queries. */
+    public static final int STATE_QUERY = 7;
+    /** The rest of the calls. */
+    public static final int OTHER = 8;
+    public static final int TYPE_COUNT = 9;
+
+    private static final String[] TYPE_NAMES = {
+            "calls", "fbo binds", "viewports", "programs", "uniforms", "tex binds", "draws", "queries", "other"};
+
+    private final Counters frameCounters = new Counters("frame");
+    private final ObjectMap<String, Counters> effectCounterMap = new ObjectMap<>();
+    private final Array<Counters> effectCounters = new Array<>();
+    private final ObjectMap<Class<?>, String> classNames = new ObjectMap<>();
+
+    private Counters currentEffect = null;
+    private int frameCount = 0;
+
+    private boolean frameActive = false;
+    private GL20 originalGl;
+    private GL20 originalGl20;
+    private GL30 originalGl30;
+    private CountingGL20 countingGl;
+
+    /** @return the human readable name of the counter type. */
+    public static String getTypeName(int type) {
+        return TYPE_NAMES[type];
+    }
+
+    /**
+     * Resets the counters and starts routing the GL calls through the counting decorators.
+     * Every call should be paired with {@link #endFrame()}.
+     */
+    public void beginFrame() {
+        if (frameActive) throw new IllegalStateException("The frame has already begun. Forgot to call endFrame()?");
+        frameActive = true;
+        frameCount++;
+
+        frameCounters.reset();
+        for (int i = 0; i < effectCounters.size; i++) {
+            effectCounters.get(i).reset();
+        }
+        effectCounters.clear();
+
+        originalGl = Gdx.gl;
+        originalGl20 = Gdx.gl20;
+        originalGl30 = Gdx.gl30;
+
+        // Reuse the decorator as long as the underlying GL instances stay the same.
+        if (countingGl == null || countingGl.getDelegate() != originalGl20 ||
+                (countingGl instanceof CountingGL30) != (originalGl30 != null) ||
+                (originalGl30 != null && ((CountingGL30) countingGl).getDelegate30() != originalGl30)) {
+            countingGl = originalGl30 != null ? new CountingGL30(originalGl30, this) : new CountingGL20(originalGl20, this);
+        }
+
+        Gdx.gl = countingGl;
+        Gdx.gl20 = countingGl;
+        if (originalGl30 != null) {
+            Gdx.gl30 = (CountingGL30) countingGl;
+        }
+    }
+
+    /** Restores the original GL instances. */
+    public void endFrame() {
+        if (!frameActive) throw new IllegalStateException("The frame hasn't begun. Forgot to call beginFrame()?");
+        if (currentEffect != null) throw new IllegalStateException("The effect \"" + currentEffect.name + "\" is not ended.");
+        frameActive = false;
+
+        Gdx.gl = originalGl;
+        Gdx.gl20 = originalGl20;
+        Gdx.gl30 = originalGl30;
+        originalGl = null;
+        originalGl20 = null;
+        originalGl30 = null;
+    }
+
+    /**
+     * Ends the frame even if an effect is not ended (e.g. the rendering was interrupted by an exception).
+     * Does nothing if the frame is not active.
+     */
+    public void abortFrame() {
+        if (!frameActive) return;
+        currentEffect = null;
+        endFrame();
+    }
+
+    /** Attributes the following GL calls to the named effect until {@link #endEffect()} is called. */
+    public void beginEffect(String name) {
+        if (currentEffect != null) throw new IllegalStateException("The effect \"" + currentEffect.name + "\" is not ended.");
+
+        Counters counters = effectCounterMap.get(name);
+        if (counters == null) {
+            counters = new Counters(name);
+            effectCounterMap.put(name, counters);
+        }
+        if (!effectCounters.contains(counters, true)) {
+            effectCounters.add(counters);
+        }
+        currentEffect = counters;
+    }
+
+    public void endEffect() {
+        if (currentEffect == null) throw new IllegalStateException("There is no active effect. Forgot to call beginEffect()?");
+        currentEffect = null;
+    }
+
+    /** @return the cached simple class name of the object, convenient for the effect names. */
+    public String getName(Object object) {
+        Class<?> type = object.getClass();
+        String name = classNames.get(type);
+        if (name == null) {
+            name = type.getSimpleName();
+            classNames.put(type, name);
+        }
+        return name;
+    }
+
+    /** Registers a GL call of the given type. Called by the counting decorators. */
+    public void count(int type) {
+        frameCounters.values[CALLS]++;
+        frameCounters.values[type]++;
+        if (currentEffect != null) {
+            currentEffect.values[CALLS]++;
+            currentEffect.values[type]++;
+        }
+    }
+
+    /** @return the counters of the latest frame. */
+    public Counters getFrameCounters() {
+        return frameCounters;
+    }
+
+    /** @return the counters of every effect rendered in the latest frame, in the rendering order. */
+    public Array<Counters> getEffectCounters() {
+        return effectCounters;
+    }
+
+    /** @return the counters of the named effect or null if it wasn't rendered in the latest frame. */
+    public Counters getEffectCounters(String name) {
+        Counters counters = effectCounterMap.get(name);
+        return counters != null && effectCounters.contains(counters, true) ? counters : null;
+    }
+
+    /** @return the number of the frames recorded since the creation. */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /** Appends a human readable table with the counters of the latest frame. */
+    public StringBuilder buildReport(StringBuilder sb) {
+        sb.append("effect");
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            sb.append(" | ").append(TYPE_NAMES[i]);
+        }
+        sb.append('\n');
+        for (int i = 0; i < effectCounters.size; i++) {
+            appendCounters(sb, effectCounters.get(i));
+        }
+        appendCounters(sb, frameCounters);
+        return sb;
+    }
+
+    private static void appendCounters(StringBuilder sb, Counters counters) {
+        sb.append(counters.name);
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            sb.append(" | ").append(counters.values[i]);
+        }
+        sb.append('\n');
+    }
+
+    /** The number of GL calls per type (see {@link VfxGlStats#CALLS} and the other type constants). */
+    public static class Counters {
+        private final String name;
+        private final int[] values = new int[TYPE_COUNT];
+
+        Counters(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int get(int type) {
+            return values[type];
+        }
+
+        void reset() {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.GL32;
+import com.badlogic.gdx.graphics.glutils.GLVersion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Queue;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.crashinvaders.vfx.gl.VfxGpuTimer;
+
+import java.nio.IntBuffer;
+
+/**
+ * Collects CPU and GPU timings of the effect chain processing per effect (and per shader pass of the composite effects).
+ * <p>
+ * Attach an instance to {@link com.crashinvaders.vfx.VfxManager#setProfiler(VfxProfiler)}
+ * and read the rolling statistics from {@link #getEntries()} or {@link #buildReport(StringBuilder)}.
+ * <p>
+ * GPU time is measured with timer queries where available (see {@link VfxGpuTimer#isSupported()}).
+ * The queries are never awaited, the results are picked up a few frames later, once the GPU is done with them.
+ * As the timer queries cannot be nested, the scopes are measured as a sequence of non-overlapping segments,
+ * each segment contributes to all the scopes that were open at the moment.
+ * <p>
+ * On GL 3.2+ contexts the scopes are also marked with the debug groups (<code>KHR_debug</code>),
+ * so external GPU debugging tools show the effect names.
+ */
+public class VfxProfiler implements Disposable {
+
+    /** The name of the scope that covers the whole {@link com.crashinvaders.vfx.VfxManager#applyEffects()} call. */
+    public static final String ROOT_SCOPE_NAME = "VfxManager";
+
+    private static final int GPU_UNKNOWN = 0;
+    private static final int GPU_SUPPORTED = 1;
+    private static final int GPU_UNSUPPORTED = 2;
+
+    private final int windowSize;
+
+    private final ObjectMap<String, Entry> entryMap = new ObjectMap<>();
+    private final Array<Entry> entries = new Array<>();
+    private final ObjectMap<Class<?>, String> classNames = new ObjectMap<>();
+
+    private final Array<Scope> scopeStack = new Array<>();
+    private final Pool<Scope> scopePool = new Pool<Scope>() {
+        @Override
+        protected Scope newObject() {
+            return new Scope();
+        }
+    };
+
+    private final Queue<Segment> pendingSegments = new Queue<>();
+    private final Pool<Segment> segmentPool = new Pool<Segment>() {
+        @Override
+        protected Segment newObject() {
+            return new Segment();
+        }
+    };
+    private final IntArray freeQueries = new IntArray();
+    private final IntBuffer tmpIntBuf = BufferUtils.newIntBuffer(1);
+    private Segment activeSegment = null;
+
+    private boolean gpuTimingEnabled = true;
+    private boolean debugMarkersEnabled = true;
+    private int gpuSupport = GPU_UNKNOWN;
+    private boolean checkDisjoint = false;
+
+    public VfxProfiler() {
+        this(60);
+    }
+
+    /** @param windowSize the number of the latest samples the statistics are calculated over. */
+    public VfxProfiler(int windowSize) {
+        if (windowSize < 1) throw new IllegalArgumentException("Window size should be a positive number.");
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public void dispose() {
+        while (pendingSegments.size > 0) {
+            Segment segment = pendingSegments.removeFirst();
+            freeQueries.add(segment.query);
+            segmentPool.free(segment);
+        }
+        for (int i = 0; i < freeQueries.size; i++) {
+            tmpIntBuf.clear();
+            tmpIntBuf.put(freeQueries.get(i));
+            tmpIntBuf.flip();
+            Gdx.gl30.glDeleteQueries(1, tmpIntBuf);
+        }
+        freeQueries.clear();
+    }
+
+    /** Opens a new scope. Every call should be paired with {@link #endScope()}. */
+    public void beginScope(String name) {
+        if (scopeStack.size == 0) {
+            poll();
+        }
+
+        boolean gpuTiming = isGpuTimingActive();
+        if (gpuTiming) endSegment();
+
+        Scope scope = scopePool.obtain();
+        scope.entry = obtainEntry(name);
+        scope.cpuStart = TimeUtils.nanoTime();
+        scopeStack.add(scope);
+
+        if (gpuTiming) beginSegment();
+
+        if (debugMarkersEnabled && Gdx.gl32 != null) {
+            Gdx.gl32.glPushDebugGroup(GL32.GL_DEBUG_SOURCE_APPLICATION, 0, name);
+        }
+    }
+
+    /** Closes the latest open scope. */
+    public void endScope() {
+        if (scopeStack.size == 0) throw new IllegalStateException("There is no open scope. Forgot to call beginScope()?");
+
+        if (debugMarkersEnabled && Gdx.gl32 != null) {
+            Gdx.gl32.glPopDebugGroup();
+        }
+
+        boolean gpuTiming = isGpuTimingActive();
+        if (gpuTiming) endSegment();
+
+        Scope scope = scopeStack.pop();
+        scope.entry.cpuStats.add((TimeUtils.nanoTime() - scope.cpuStart) / 1000000f);
+        scope.ended = true;
+        if (scope.pendingSegments == 0) {
+            finishScope(scope);
+        }
+
+        if (gpuTiming && scopeStack.size > 0) beginSegment();
+    }
+
+    /** @return the name of the innermost open scope or null if there are no open scopes. */
+    public String getCurrentScopeName() {
+        return scopeStack.size == 0 ? null : scopeStack.peek().entry.name;
+    }
+
+    /** @return the cached simple class name of the object, convenient for the scope names. */
+    public String getName(Object object) {
+        Class<?> type = object.getClass();
+        String name = classNames.get(type);
+        if (name == null) {
+            name = type.getSimpleName();
+            classNames.put(type, name);
+        }
+        return name;
+    }
+
+    /**
+     * Picks up the results of the completed GPU queries. Never blocks.
+     * It's called automatically upon opening a top level scope.
+     */
+    public void poll() {
+        while (pendingSegments.size > 0) {
+            Segment segment = pendingSegments.first();
+
+            tmpIntBuf.clear();
+            Gdx.gl30.glGetQueryObjectuiv(segment.query, GL30.GL_QUERY_RESULT_AVAILABLE, tmpIntBuf);
+            if (tmpIntBuf.get(0) == 0) break;
+
+            tmpIntBuf.clear();
+            Gdx.gl30.glGetQueryObjectuiv(segment.query, GL30.GL_QUERY_RESULT, tmpIntBuf);
+            long nanos = tmpIntBuf.get(0) & 0xFFFFFFFFL;
+            boolean valid = !checkDisjoint || !isDisjoint();
+
+            pendingSegments.removeFirst();
+            freeQueries.add(segment.query);
+
+            for (int i = 0; i < segment.scopes.size; i++) {
+                Scope scope = segment.scopes.get(i);
+                scope.gpuNanos += nanos;
+                scope.gpuValid &= valid;
+                scope.pendingSegments--;
+                if (scope.ended && scope.pendingSegments == 0) {
+                    finishScope(scope);
+                }
+            }
+            segmentPool.free(segment);
+        }
+    }
+
+    /** Resets all the collected statistics. */
+    public void reset() {
+        for (int i = 0; i < entries.size; i++) {
+            entries.get(i).reset();
+        }
+    }
+
+    /** @return the entries (one per scope name) in the order they were first seen. */
+    public Array<Entry> getEntries() {
+        return entries;
+    }
+
+    /** @return the entry for the scope name or null if the scope was never opened. */
+    public Entry getEntry(String name) {
+        return entryMap.get(name);
+    }
+
+    /** Appends a human readable table with the rolling min/avg/max timings (in milliseconds) of every entry. */
+    public StringBuilder buildReport(StringBuilder sb) {
+        sb.append("scope | cpu ms min/avg/max | gpu ms min/avg/max\n");
+        for (int i = 0; i < entries.size; i++) {
+            Entry entry = entries.get(i);
+            sb.append(entry.name).append(" | ");
+            appendStats(sb, entry.cpuStats);
+            sb.append(" | ");
+            appendStats(sb, entry.gpuStats);
+            sb.append('\n');
+        }
+        return sb;
+    }
+
+    public boolean isGpuTimingEnabled() {
+        return gpuTimingEnabled;
+    }
+
+    /** Enables GPU timing (if supported by the GL context). Enabled by default. */
+    public void setGpuTimingEnabled(boolean gpuTimingEnabled) {
+        if (scopeStack.size > 0) throw new IllegalStateException("Cannot change GPU timing mode while a scope is open.");
+        this.gpuTimingEnabled = gpuTimingEnabled;
+    }
+
+    /** @return true if the GPU time is being measured (it's enabled and supported by the GL context). */
+    public boolean isGpuTimingActive() {
+        if (!gpuTimingEnabled) return false;
+        if (gpuSupport == GPU_UNKNOWN) {
+            gpuSupport = VfxGpuTimer.isSupported() ? GPU_SUPPORTED : GPU_UNSUPPORTED;
+            checkDisjoint = gpuSupport == GPU_SUPPORTED && Gdx.graphics.getGLVersion().getType() == GLVersion.Type.GLES;
+        }
+        return gpuSupport == GPU_SUPPORTED;
+    }
+
+    public boolean isDebugMarkersEnabled() {
+        return debugMarkersEnabled;
+    }
+
+    /** Enables the debug group markers (only available on GL 3.2+ contexts). Enabled by default. */
+    public void setDebugMarkersEnabled(boolean debugMarkersEnabled) {
+        this.debugMarkersEnabled = debugMarkersEnabled;
+    }
+
+    private Entry obtainEntry(String name) {
+        Entry entry = entryMap.get(name);
+        if (entry == null) {
+            entry = new Entry(name, windowSize);
+            entryMap.put(name, entry);
+            entries.add(entry);
+        }
+        return entry;
+    }
+
+    private void beginSegment() {
+        Segment segment = segmentPool.obtain();
+        segment.query = obtainQuery();
+        segment.scopes.addAll(scopeStack);
+        for (int i = 0; i < scopeStack.size; i++) {
+            scopeStack.get(i).pendingSegments++;
+        }
+        Gdx.gl30.glBeginQuery(VfxGpuTimer.GL_TIME_ELAPSED, segment.query);
+        activeSegment = segment;
+    }
+
+    private void endSegment() {
+        if (activeSegment == null) return;
+
+        Gdx.gl30.glEndQuery(VfxGpuTimer.GL_TIME_ELAPSED);
+        pendingSegments.addLast(activeSegment);
+        activeSegment = null;
+    }
+
+    private void finishScope(Scope scope) {
+        if (scope.gpuNanos > 0L && scope.gpuValid) {
+            scope.entry.gpuStats.add(scope.gpuNanos / 1000000f);
+        }
+        scopePool.free(scope);
+    }
+
+    private int obtainQuery() {
+        if (freeQueries.size > 0) {
+            return freeQueries.pop();
+        }
+        tmpIntBuf.clear();
+        Gdx.gl30.glGenQueries(1, tmpIntBuf);
+        return tmpIntBuf.get(0);
+    }
+
+    private boolean isDisjoint() {
+        tmpIntBuf.clear();
+        Gdx.gl.glGetIntegerv(VfxGpuTimer.GL_GPU_DISJOINT, tmpIntBuf);
+        return tmpIntBuf.get(0) != 0;
+    }
+
+    private static void appendStats(StringBuilder sb, RollingStats stats) {
+        if (stats.getCount() == 0) {
+            sb.append('-');
+            return;
+        }
+        appendMs(sb, stats.getMin());
+        sb.append('/');
+        appendMs(sb, stats.getAverage());
+        sb.append('/');
+        appendMs(sb, stats.getMax());
+    }
+
+    private static void appendMs(StringBuilder sb, float value) {
+        sb.append(Math.round(value * 100f) / 100f);
+    }
+
+    /** Rolling statistics of a scope. All the values are in milliseconds. */
+    public static class Entry {
+        private final String name;
+        private final RollingStats cpuStats;
+        private final RollingStats gpuStats;
+
+        Entry(String name, int windowSize) {
+            this.name = name;
+            this.cpuStats = new RollingStats(windowSize);
+            this.gpuStats = new RollingStats(windowSize);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** @return the CPU time statistics (inclusive of the nested scopes). */
+        public RollingStats getCpuStats() {
+            return cpuStats;
+        }
+
+        /** @return the GPU time statistics (inclusive of the nested scopes). Empty if GPU timing is not available. */
+        public RollingStats getGpuStats() {
+            return gpuStats;
+        }
+
+        void reset() {
+            cpuStats.reset();
+            gpuStats.reset();
+        }
+    }
+
+    /** Keeps the fixed number of the latest samples. */
+    public static class RollingStats {
+        private final float[] samples;
+        private int count = 0;
+        private int index = 0;
+        private int totalCount = 0;
+        private float last = 0f;
+
+        RollingStats(int windowSize) {
+            this.samples = new float[windowSize];
+        }
+
+        void add(float value) {
+            samples[index] = value;
+            index = (index + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            totalCount++;
+            last = value;
+        }
+
+        void reset() {
+            count = 0;
+            index = 0;
+            last = 0f;
+        }
+
+        /** @return the number of samples within the window. */
+        public int getCount() {
+            return count;
+        }
+
+        /** @return the number of samples received since the creation (not affected by {@link VfxProfiler#reset()}). */
+        public int getTotalCount() {
+            return totalCount;
+        }
+
+        public float getLast() {
+            return last;
+        }
+
+        public float getMin() {
+            if (count == 0) return 0f;
+            float min = Float.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, samples[i]);
+            }
+            return min;
+        }
+
+        public float getMax() {
+            float max = 0f;
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, samples[i]);
+            }
+            return max;
+        }
+
+        public float getAverage() {
+            if (count == 0) return 0f;
+            float sum = 0f;
+            for (int i = 0; i < count; i++) {
+                sum += samples[i];
+            }
+            return sum / count;
+        }
+    }
+
+    private static class Scope implements Pool.Poolable {
+        Entry entry;
+        long cpuStart;
+        long gpuNanos;
+        boolean gpuValid = true;
+        int pendingSegments;
+        boolean ended;
+
+        @Override
+        public void reset() {
+            entry = null;
+            cpuStart = 0L;
+            gpuNanos = 0L;
+            gpuValid = true;
+            pendingSegments = 0;
+            ended = false;
+        }
+    }
+
+    private static class Segment implements Pool.Poolable {
+        int query;
+        final Array<Scope> scopes = new Array<>(false, 4);
+
+        @Override
+        public void reset() {
+            query = 0;
+            scopes.clear();
+        }
+    }
+}
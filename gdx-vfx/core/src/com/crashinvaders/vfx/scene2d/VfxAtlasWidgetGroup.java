@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.scene2d;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+
+/**
+ * A lightweight alternative to {@link VfxWidgetGroup} for many small widgets that share the same effects.
+ * <p>
+ * The group doesn't own any VFX resources, its children are rendered into a region of the shared {@link VfxWidgetAtlas}
+ * along with all the other member groups and the atlas' effect chain is applied to all of them at once.
+ * The group joins the atlas when added to a stage and leaves it when removed.
+ * <p>
+ * The content is captured without the group's transform (scale and rotation are applied to the result)
+ * and without the parent alpha (applied to the result as well).
+ */
+public class VfxAtlasWidgetGroup extends WidgetGroup {
+
+    private final VfxWidgetAtlas atlas;
+
+    // The region data is managed by the atlas.
+    boolean regionAssigned = false;
+    int regionX, regionY;
+    int regionWidth = 1, regionHeight = 1;
+    float regionScale = 1f;
+
+    public VfxAtlasWidgetGroup(VfxWidgetAtlas atlas) {
+        if (atlas == null) {
+            throw new IllegalArgumentException("Atlas cannot be null.");
+        }
+        this.atlas = atlas;
+    }
+
+    public VfxWidgetAtlas getAtlas() {
+        return atlas;
+    }
+
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        atlas.update(delta);
+    }
+
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        validate();
+
+        if (atlas.isRenderPending()) {
+            batch.end();
+            atlas.render(batch);
+            batch.begin();
+        }
+
+        if (!regionAssigned) {
+            // No room in the atlas, draw the children as is.
+            super.draw(batch, parentAlpha);
+            return;
+        }
+
+        Texture texture = atlas.getResultBuffer().getTexture();
+        float atlasWidth = atlas.getWidth();
+        float atlasHeight = atlas.getHeight();
+        float u = regionX / atlasWidth;
+        float v = regionY / atlasHeight;
+        float u2 = (regionX + getWidth() * regionScale) / atlasWidth;
+        float v2 = (regionY + getHeight() * regionScale) / atlasHeight;
+
+        Color color = getColor();
+        batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+        if (isTransform()) {
+            applyTransform(batch, computeTransform());
+            batch.draw(texture, 0f, 0f, getWidth(), getHeight(), u, v, u2, v2);
+            resetTransform(batch);
+        } else {
+            batch.draw(texture, getX(), getY(), getWidth(), getHeight(), u, v, u2, v2);
+        }
+    }
+
+    @Override
+    protected void setStage(Stage stage) {
+        super.setStage(stage);
+
+        if (stage != null) {
+            atlas.addMember(this);
+        } else {
+            atlas.removeMember(this);
+        }
+    }
+
+    @Override
+    protected void sizeChanged() {
+        super.sizeChanged();
+        atlas.invalidateLayout();
+    }
+
+    /** Draws the children in the group's local coordinates. Called by the atlas with the batch already set up. */
+    void drawContent(Batch batch) {
+        // Group draws the children in the local coordinates only when it's transformed.
+        boolean transform = isTransform();
+        setTransform(true);
+        drawChildren(batch, 1f);
+        setTransform(transform);
+    }
+
+    /** @return true if the result drawn within the current frame may differ from the one of the previous frame. */
+    boolean isResultChanging() {
+        // The atlas content is captured and processed every frame.
+        return regionAssigned;
+    }
+
+    void updateRegionSize() {
+        float pixelsPerUnit = getStage() != null ? VfxWidgetAtlas.getPixelsPerUnit(this) : 1f;
+        regionScale = pixelsPerUnit;
+        regionWidth = VfxWidgetAtlas.toPixels(getWidth(), pixelsPerUnit);
+        regionHeight = VfxWidgetAtlas.toPixels(getHeight(), pixelsPerUnit);
+    }
+}
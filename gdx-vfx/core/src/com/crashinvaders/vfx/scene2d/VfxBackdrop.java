@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.scene2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBufferPool;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBufferRenderer;
+import com.crashinvaders.vfx.gl.VfxGlState;
+
+/**
+ * A blurred snapshot of whatever is drawn behind the {@link VfxBackdropGroup}s (the "frosted glass" panels).
+ * <p>
+ * When the first member group is drawn within a frame, the backdrop grabs the area covered by all its members
+ * from the framebuffer being drawn into, downsamples it to a quarter resolution
+ * and blurs it by scaling it further down and back up (see {@link #setBlurLevels(int)}).
+ * All the buffers involved are taken from an internal pool and only the quarter resolution result is kept.
+ * The grabbed area is extended to the size rounded up to {@link #SIZE_STEP} pixels, so the members that animate their size
+ * or slide off the screen reuse the same few buffer sizes rather than allocate new ones every frame.
+ * <p>
+ * The snapshot is reused until the backdrop is {@link #invalidate() invalidated},
+ * the area covered by the members changes (e.g. one of them moves or resizes),
+ * or the {@link #setRefreshInterval(float) refresh interval} elapses.
+ * Several (even overlapping) groups may share a single backdrop, so there's only one snapshot for all of them.
+ * <p>
+ * The member groups should be drawn after all the content they blur. The snapshot doesn't include any of the members,
+ * so the overlapping panels don't blur each other.
+ * The area is located through the stage's viewport, so the stage should be drawn straight to the screen
+ * (not within a {@link VfxWidgetGroup} or some other offscreen buffer).
+ * The backdrop should be disposed by you.
+ */
+public class VfxBackdrop implements Disposable {
+
+    /** The snapshot is a quarter of the framebuffer resolution, it's downsampled twice by half to average all the pixels. */
+    private static final int DOWNSAMPLE_LEVELS = 2;
+    /** The granularity (in pixels) of the grabbed area size. */
+    public static final int SIZE_STEP = 64;
+
+    private final Pixmap.Format pixelFormat;
+    private final VfxFrameBufferPool bufferPool;
+    private final VfxFrameBufferRenderer renderer;
+    private final Array<VfxBackdropGroup> members = new Array<>();
+    private final Rectangle region = new Rectangle();
+    private final Rectangle captureRegion = new Rectangle();
+    private final Rectangle tmpRegion = new Rectangle();
+    private final Rectangle tmpBounds = new Rectangle();
+    private final Vector2 tmpVec = new Vector2();
+    private final Matrix4 identity = new Matrix4();
+
+    private VfxFrameBuffer resultBuffer;
+    private int blurLevels = 2;
+    private float refreshInterval = 0f;
+    private float refreshTimer = 0f;
+    private boolean dirty = true;
+    private int captureCount = 0;
+    private long lastUpdateFrameId = -1L;
+    private long lastValidateFrameId = -1L;
+    private long lastCaptureFrameId = -1L;
+
+    public VfxBackdrop() {
+        this(Pixmap.Format.RGB888);
+    }
+
+    /**
+     * @param pixelFormat the format of the snapshot buffers.
+     *                    It cannot have any components the framebuffer being drawn into doesn't have.
+     */
+    public VfxBackdrop(Pixmap.Format pixelFormat) {
+        this.pixelFormat = pixelFormat;
+        bufferPool = new VfxFrameBufferPool(pixelFormat, 1, 1, 8);
+        bufferPool.setTextureParams(
+                Texture.TextureWrap.ClampToEdge, Texture.TextureWrap.ClampToEdge,
+                Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        renderer = new VfxFrameBufferRenderer();
+    }
+
+    @Override
+    public void dispose() {
+        releaseResult();
+        bufferPool.dispose();
+        renderer.dispose();
+        members.clear();
+    }
+
+    /** @see #setBlurLevels(int) */
+    public int getBlurLevels() {
+        return blurLevels;
+    }
+
+    /**
+     * @param blurLevels how many times the snapshot is scaled down by half past the quarter resolution and back up.
+     *                   Every level roughly doubles the blur radius for the cost of two tiny passes. Default is 2.
+     */
+    public void setBlurLevels(int blurLevels) {
+        if (blurLevels < 0) {
+            throw new IllegalArgumentException("Blur levels cannot be negative.");
+        }
+        this.blurLevels = blurLevels;
+        dirty = true;
+    }
+
+    /** @see #setRefreshInterval(float) */
+    public float getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * @param refreshInterval the time (in seconds) after which the snapshot is taken again, even if nothing has changed.
+     *                        Zero or negative value disables the periodic refresh. Disabled by default.
+     */
+    public void setRefreshInterval(float refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        refreshTimer = 0f;
+    }
+
+    /** Forces the snapshot to be taken again upon the next member draw. */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /** @return the number of the snapshots taken so far. */
+    public int getCaptureCount() {
+        return captureCount;
+    }
+
+    /** @return the blurred snapshot or null if there's none yet. */
+    public VfxFrameBuffer getResultBuffer() {
+        return resultBuffer;
+    }
+
+    public VfxFrameBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /** @return the number of the groups currently sharing the backdrop. */
+    public int getMemberCount() {
+        return members.size;
+    }
+
+    void addMember(VfxBackdropGroup group) {
+        if (members.contains(group, true)) return;
+        members.add(group);
+        dirty = true;
+    }
+
+    void removeMember(VfxBackdropGroup group) {
+        if (!members.removeValue(group, true)) return;
+        if (members.size == 0) {
+            releaseResult();
+        }
+        dirty = true;
+    }
+
+    /** Ticks the refresh interval once per frame, no matter how many groups call it. */
+    void update(float delta) {
+        long frameId = Gdx.graphics.getFrameId();
+        if (lastUpdateFrameId == frameId) return;
+        lastUpdateFrameId = frameId;
+
+        bufferPool.update();
+
+        if (refreshInterval > 0f) {
+            refreshTimer += delta;
+            if (refreshTimer >= refreshInterval) {
+                refreshTimer = 0f;
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Updates the members' areas and takes a new snapshot if the current one is not valid anymore.
+     * Does the job only once per frame, no matter how many groups call it. The batch should be drawing.
+     */
+    void validate(Batch batch) {
+        long frameId = Gdx.graphics.getFrameId();
+        if (lastValidateFrameId == frameId) return;
+        lastValidateFrameId = frameId;
+
+        Rectangle newRegion = tmpRegion.set(0f, 0f, 0f, 0f);
+        boolean empty = true;
+        for (int i = 0; i < members.size; i++) {
+            VfxBackdropGroup group = members.get(i);
+            if (!group.ascendantsVisible()) continue;
+
+            Rectangle area = computeArea(group, group.area);
+            if (area.width < 1f || area.height < 1f) continue;
+
+            if (empty) {
+                newRegion.set(area);
+                empty = false;
+            } else {
+                newRegion.merge(area);
+            }
+        }
+        if (empty) return;
+
+        if (!newRegion.equals(region)) {
+            region.set(newRegion);
+            dirty = true;
+        }
+        if (!dirty && resultBuffer != null) return;
+
+        batch.end();
+        capture();
+        batch.begin();
+    }
+
+    /** @return the framebuffer area (in pixels) covered by the members. */
+    Rectangle getRegion() {
+        return region;
+    }
+
+    /** @return the framebuffer area (in pixels) the snapshot covers. Contains {@link #getRegion()}. */
+    Rectangle getCaptureRegion() {
+        return captureRegion;
+    }
+
+    /** @return true if the snapshot has been or is about to be taken again within the current frame. */
+    boolean isSnapshotChanging() {
+        long frameId = Gdx.graphics.getFrameId();
+        if (lastValidateFrameId == frameId) return lastCaptureFrameId == frameId;
+        return dirty || resultBuffer == null;
+    }
+
+    private void capture() {
+        dirty = false;
+        lastCaptureFrameId = Gdx.graphics.getFrameId();
+        refreshTimer = 0f;
+        captureCount++;
+
+        releaseResult();
+
+        // Extend the area to the stepped size, shifting it back within the framebuffer if needed.
+        int framebufferWidth = Gdx.graphics.getBackBufferWidth();
+        int framebufferHeight = Gdx.graphics.getBackBufferHeight();
+        int width = Math.min(framebufferWidth, roundUpToStep((int) region.width));
+        int height = Math.min(framebufferHeight, roundUpToStep((int) region.height));
+        int x = Math.max(0, Math.min((int) region.x, framebufferWidth - width));
+        int y = Math.max(0, Math.min((int) region.y, framebufferHeight - height));
+        captureRegion.set(x, y, width, height);
+
+        VfxGlState.beginTracking();
+        try {
+            Gdx.gl.glDisable(GL20.GL_BLEND);
+
+            // Grab the region from the framebuffer currently bound.
+            VfxFrameBuffer buffer = bufferPool.obtain(width, height, pixelFormat);
+            buffer.getTexture().bind(0);
+            Gdx.gl.glCopyTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, 0, x, y, width, height);
+
+            // Going down every level halves the size, the linear filtering averages every 2x2 pixel block.
+            int deepestLevel = DOWNSAMPLE_LEVELS + blurLevels;
+            for (int level = 1; level <= deepestLevel; level++) {
+                buffer = resample(buffer, Math.max(1, width >> level), Math.max(1, height >> level));
+            }
+            // And going back up spreads the averaged pixels over the neighbor ones.
+            for (int level = deepestLevel - 1; level >= DOWNSAMPLE_LEVELS; level--) {
+                buffer = resample(buffer, Math.max(1, width >> level), Math.max(1, height >> level));
+            }
+
+            resultBuffer = buffer;
+        } finally {
+            VfxGlState.endTracking();
+        }
+    }
+
+    /** Draws the buffer into a pooled one of the size specified and frees the source buffer. */
+    private VfxFrameBuffer resample(VfxFrameBuffer srcBuffer, int width, int height) {
+        VfxFrameBuffer dstBuffer = bufferPool.obtain(width, height, pixelFormat);
+        Texture texture = srcBuffer.getTexture();
+        // The newly created buffers come with the default filtering.
+        texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        renderer.renderToFbo(texture, dstBuffer);
+        bufferPool.free(srcBuffer);
+        return dstBuffer;
+    }
+
+    private static int roundUpToStep(int size) {
+        return (size + SIZE_STEP - 1) / SIZE_STEP * SIZE_STEP;
+    }
+
+    private void releaseResult() {
+        if (resultBuffer == null) return;
+        bufferPool.free(resultBuffer);
+        resultBuffer = null;
+    }
+
+    /** @return the group's bounds in the framebuffer pixels, clamped to the framebuffer area. */
+    private Rectangle computeArea(VfxBackdropGroup group, Rectangle out) {
+        Rectangle bounds = tmpBounds;
+        Vector2 corner = group.localToStageCoordinates(tmpVec.set(0f, 0f));
+        bounds.set(corner.x, corner.y, 0f, 0f);
+        bounds.merge(group.localToStageCoordinates(tmpVec.set(group.getWidth(), 0f)));
+        bounds.merge(group.localToStageCoordinates(tmpVec.set(0f, group.getHeight())));
+        bounds.merge(group.localToStageCoordinates(tmpVec.set(group.getWidth(), group.getHeight())));
+
+        group.getStage().getViewport().calculateScissors(identity, bounds, out);
+
+        float x0 = Math.max(0f, out.x);
+        float y0 = Math.max(0f, out.y);
+        float x1 = Math.min(Gdx.graphics.getBackBufferWidth(), out.x + out.width);
+        float y1 = Math.min(Gdx.graphics.getBackBufferHeight(), out.y + out.height);
+        return out.set(x0, y0, Math.max(0f, x1 - x0), Math.max(0f, y1 - y0));
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.scene2d;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+
+/**
+ * A panel that draws a blurred snapshot of whatever is behind it (the "frosted glass" effect)
+ * and its children on top of it.
+ * <p>
+ * The snapshot is taken and cached by the {@link VfxBackdrop}, which may be shared between many groups.
+ * The group joins the backdrop when added to a stage and leaves it when removed.
+ * <p>
+ * The snapshot is tinted with the group's color. Rotated groups get the snapshot of their axis-aligned bounds.
+ */
+public class VfxBackdropGroup extends WidgetGroup {
+
+    private final VfxBackdrop backdrop;
+
+    /** The group's bounds in the framebuffer pixels, updated by the backdrop. */
+    final Rectangle area = new Rectangle();
+
+    public VfxBackdropGroup(VfxBackdrop backdrop) {
+        if (backdrop == null) {
+            throw new IllegalArgumentException("Backdrop cannot be null.");
+        }
+        this.backdrop = backdrop;
+    }
+
+    public VfxBackdrop getBackdrop() {
+        return backdrop;
+    }
+
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        backdrop.update(delta);
+    }
+
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        validate();
+
+        backdrop.validate(batch);
+
+        VfxFrameBuffer resultBuffer = backdrop.getResultBuffer();
+        if (resultBuffer != null && area.width >= 1f && area.height >= 1f) {
+            Rectangle region = backdrop.getCaptureRegion();
+            float u = (area.x - region.x) / region.width;
+            float v = (area.y - region.y) / region.height;
+            float u2 = (area.x + area.width - region.x) / region.width;
+            float v2 = (area.y + area.height - region.y) / region.height;
+            Texture texture = resultBuffer.getTexture();
+
+            Color color = getColor();
+            batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
+            if (isTransform()) {
+                applyTransform(batch, computeTransform());
+                batch.draw(texture, 0f, 0f, getWidth(), getHeight(), u, v, u2, v2);
+                resetTransform(batch);
+            } else {
+                batch.draw(texture, getX(), getY(), getWidth(), getHeight(), u, v, u2, v2);
+            }
+        }
+
+        super.draw(batch, parentAlpha);
+    }
+
+    /** @return true if the result drawn within the current frame may differ from the one of the previous frame. */
+    boolean isResultChanging() {
+        return backdrop.isSnapshotChanging();
+    }
+
+    @Override
+    protected void setStage(Stage stage) {
+        super.setStage(stage);
+
+        if (stage != null) {
+            backdrop.addMember(this);
+        } else {
+            backdrop.removeMember(this);
+            area.set(0f, 0f, 0f, 0f);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.scene2d;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.utils.Layout;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.SnapshotArray;
+
+/**
+ * Captures and processes all the {@link VfxWidgetGroup}s of a stage ahead of the stage drawing.
+ * <p>
+ * Drawn on its own, every group has to end the stage's batch to run its effect chain and begin it again afterwards.
+ * The coordinator captures all the groups of the same nesting level within a single batch session
+ * (the batch is only flushed upon the framebuffer switches) and runs their effect chains together afterwards.
+ * The nested groups are processed first, so their parents capture the ready results.
+ * During the regular {@link Stage#draw()} the processed groups only draw their results,
+ * so they don't interrupt the batch at all and their result quads get batched along with the rest of the stage.
+ * <p>
+ * Use {@link #draw(Stage)} in place of {@link Stage#draw()}, or call {@link #capture(Stage)} right before it.
+ * <p>
+ * The stage's scissors (e.g. of a {@link com.badlogic.gdx.scenes.scene2d.ui.ScrollPane ScrollPane})
+ * are not known ahead of the drawing, so the groups clipped away entirely by them are still processed.
+ */
+public class VfxCaptureCoordinator {
+
+    private static final Array<VfxWidgetGroup> groups = new Array<>();
+    private static final FloatArray groupAlphas = new FloatArray();
+    private static final IntArray groupDepths = new IntArray();
+    private static final Array<VfxWidgetGroup> levelGroups = new Array<>();
+    private static final FloatArray levelAlphas = new FloatArray();
+
+    private VfxCaptureCoordinator() {
+    }
+
+    /** Processes the stage's {@link VfxWidgetGroup}s and draws the stage. */
+    public static void draw(Stage stage) {
+        capture(stage);
+        stage.draw();
+    }
+
+    /**
+     * Captures and processes all the visible {@link VfxWidgetGroup}s of the stage.
+     * Should be called right before {@link Stage#draw()} within the same frame,
+     * the stage's batch should not be drawing.
+     */
+    public static void capture(Stage stage) {
+        Group root = stage.getRoot();
+        if (!root.isVisible()) return;
+
+        Camera camera = stage.getViewport().getCamera();
+        camera.update();
+
+        int maxDepth = collectGroups(root, root.getColor().a, 0, -1);
+        if (maxDepth < 0) return;
+
+        Batch batch = stage.getBatch();
+        batch.setProjectionMatrix(camera.combined);
+
+        try {
+            for (int depth = maxDepth; depth >= 0; depth--) {
+                for (int i = 0; i < groups.size; i++) {
+                    if (groupDepths.get(i) != depth) continue;
+                    levelGroups.add(groups.get(i));
+                    levelAlphas.add(groupAlphas.get(i));
+                }
+
+                batch.begin();
+                for (int i = 0; i < levelGroups.size; i++) {
+                    levelGroups.get(i).captureContent(batch, levelAlphas.get(i));
+                }
+                batch.end();
+
+                for (int i = 0; i < levelGroups.size; i++) {
+                    levelGroups.get(i).applyCapturedEffects();
+                }
+
+                levelGroups.clear();
+                levelAlphas.clear();
+            }
+        } finally {
+            groups.clear();
+            groupAlphas.clear();
+            groupDepths.clear();
+            levelGroups.clear();
+            levelAlphas.clear();
+        }
+    }
+
+    /** @return the max nesting level of the groups found so far, or -1 if there are none. */
+    private static int collectGroups(Group parent, float parentAlpha, int depth, int maxDepth) {
+        SnapshotArray<Actor> children = parent.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            if (!child.isVisible()) continue;
+            if (child instanceof Layout) {
+                // Lay out in advance, the same way it would happen during drawing.
+                ((Layout) child).validate();
+            }
+
+            int childDepth = depth;
+            if (child instanceof VfxWidgetGroup) {
+                VfxWidgetGroup group = (VfxWidgetGroup) child;
+                // Culled groups don't draw their children.
+                if (group.isCulling() && group.isCulled(parentAlpha)) continue;
+
+                if (!group.isEffectBypassed()) {
+                    groups.add(group);
+                    groupAlphas.add(parentAlpha);
+                    groupDepths.add(depth);
+                    maxDepth = Math.max(maxDepth, depth);
+                    childDepth = depth + 1;
+                }
+            }
+
+            if (child instanceof Group) {
+                maxDepth = collectGroups((Group) child, parentAlpha * child.getColor().a, childDepth, maxDepth);
+            }
+        }
+        return maxDepth;
+    }
+}
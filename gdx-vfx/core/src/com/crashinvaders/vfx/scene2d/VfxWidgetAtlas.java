@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.scene2d;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.math.GridPoint2;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.crashinvaders.vfx.VfxManager;
+import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.utils.SkylinePacker;
+
+import java.util.Comparator;
+
+/**
+ * Applies a single effect chain to many small {@link VfxAtlasWidgetGroup}s at once.
+ * <p>
+ * The content of every member group is packed into its own region of one large buffer,
+ * the effect chain runs once over the whole buffer per frame and then every group draws its region back.
+ * So instead of a separate {@link VfxManager} with its own buffers and chain processing per widget,
+ * there's just one for all of them.
+ * <p>
+ * The regions are separated by {@link #setPadding(int) the padding}, so the effects that sample the neighbor pixels
+ * (e.g. blur or bloom) don't bleed from one region into another, as long as their reach doesn't exceed the padding.
+ * The groups that don't fit into the atlas are rendered without the effects.
+ * <p>
+ * Add the effects through {@link #getVfxManager()}, you're still responsible for their lifecycle.
+ * The atlas should be disposed by you as well.
+ */
+public class VfxWidgetAtlas implements Disposable {
+    private static final String TAG = VfxWidgetAtlas.class.getSimpleName();
+
+    private static final Comparator<VfxAtlasWidgetGroup> heightComparator = new Comparator<VfxAtlasWidgetGroup>() {
+        @Override
+        public int compare(VfxAtlasWidgetGroup o1, VfxAtlasWidgetGroup o2) {
+            return o2.regionHeight - o1.regionHeight;
+        }
+    };
+
+    private final VfxManager vfxManager;
+    private final SkylinePacker packer;
+    private final Array<VfxAtlasWidgetGroup> members = new Array<>();
+    private final Array<VfxAtlasWidgetGroup> tmpMembers = new Array<>();
+    private final Matrix4 projection = new Matrix4();
+    private final Matrix4 preservedProjection = new Matrix4();
+    private final Matrix4 preservedTransform = new Matrix4();
+    private final Matrix4 tmpTransform = new Matrix4();
+    private final GridPoint2 tmpPoint = new GridPoint2();
+    private final Color tmpColor = new Color();
+
+    private final int width;
+    private final int height;
+    private int padding = 8;
+    private boolean layoutPending = true;
+    private long lastUpdateFrameId = -1L;
+    private long lastRenderFrameId = -1L;
+
+    public VfxWidgetAtlas(Pixmap.Format pixelFormat, int width, int height) {
+        this.width = width;
+        this.height = height;
+        vfxManager = new VfxManager(pixelFormat, width, height);
+        packer = new SkylinePacker(width, height);
+        projection.setToOrtho2D(0f, 0f, width, height);
+    }
+
+    @Override
+    public void dispose() {
+        vfxManager.dispose();
+        members.clear();
+    }
+
+    public VfxManager getVfxManager() {
+        return vfxManager;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPadding() {
+        return padding;
+    }
+
+    /** @param padding the gap (in pixels) between the regions and around the atlas edges. */
+    public void setPadding(int padding) {
+        if (padding < 0) {
+            throw new IllegalArgumentException("Padding cannot be negative.");
+        }
+        this.padding = padding;
+        invalidateLayout();
+    }
+
+    /** @return the number of the groups currently packed in the atlas. */
+    public int getMemberCount() {
+        return members.size;
+    }
+
+    /** Schedules the regions repacking. */
+    public void invalidateLayout() {
+        layoutPending = true;
+    }
+
+    void addMember(VfxAtlasWidgetGroup group) {
+        if (members.contains(group, true)) return;
+        members.add(group);
+        invalidateLayout();
+    }
+
+    void removeMember(VfxAtlasWidgetGroup group) {
+        if (!members.removeValue(group, true)) return;
+        group.regionAssigned = false;
+        invalidateLayout();
+    }
+
+    /** Updates the effects once per frame, no matter how many groups call it. */
+    void update(float delta) {
+        long frameId = Gdx.graphics.getFrameId();
+        if (lastUpdateFrameId == frameId) return;
+        lastUpdateFrameId = frameId;
+
+        vfxManager.update(delta);
+    }
+
+    /** @return true if the atlas content is not rendered for the current frame yet. */
+    boolean isRenderPending() {
+        return lastRenderFrameId != Gdx.graphics.getFrameId();
+    }
+
+    /** Captures the content of all the member groups and applies the effects. The batch should not be drawing. */
+    void render(Batch batch) {
+        lastRenderFrameId = Gdx.graphics.getFrameId();
+
+        // The regions follow the screen pixel density.
+        for (int i = 0; i < members.size && !layoutPending; i++) {
+            VfxAtlasWidgetGroup group = members.get(i);
+            if (group.getStage() != null && group.regionScale != getPixelsPerUnit(group)) {
+                layoutPending = true;
+            }
+        }
+        if (layoutPending) {
+            updateLayout();
+        }
+
+        preservedProjection.set(batch.getProjectionMatrix());
+        preservedTransform.set(batch.getTransformMatrix());
+        tmpColor.set(batch.getColor());
+
+        vfxManager.cleanUpBuffers();
+        vfxManager.beginInputCapture();
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        for (int i = 0; i < members.size; i++) {
+            VfxAtlasWidgetGroup group = members.get(i);
+            if (!group.regionAssigned || !group.isVisible()) continue;
+
+            float scale = group.regionScale;
+            tmpTransform.idt().translate(group.regionX, group.regionY, 0f).scale(scale, scale, 1f);
+            batch.setTransformMatrix(tmpTransform);
+            batch.setColor(Color.WHITE);
+            group.drawContent(batch);
+        }
+        batch.end();
+        vfxManager.endInputCapture();
+
+        batch.setProjectionMatrix(preservedProjection);
+        batch.setTransformMatrix(preservedTransform);
+        batch.setColor(tmpColor);
+
+        vfxManager.applyEffects();
+    }
+
+    VfxFrameBuffer getResultBuffer() {
+        return vfxManager.getResultBuffer();
+    }
+
+    private void updateLayout() {
+        layoutPending = false;
+
+        Array<VfxAtlasWidgetGroup> sortedMembers = tmpMembers;
+        sortedMembers.addAll(members);
+        for (int i = 0; i < sortedMembers.size; i++) {
+            sortedMembers.get(i).updateRegionSize();
+        }
+        sortedMembers.sort(heightComparator);
+
+        // Every region reserves the padding on its left and bottom side, the right and top atlas edges get one extra.
+        packer.resize(Math.max(1, width - padding), Math.max(1, height - padding));
+        for (int i = 0; i < sortedMembers.size; i++) {
+            VfxAtlasWidgetGroup group = sortedMembers.get(i);
+            boolean fits = packer.insert(group.regionWidth + padding, group.regionHeight + padding, tmpPoint);
+            group.regionAssigned = fits;
+            if (fits) {
+                group.regionX = tmpPoint.x + padding;
+                group.regionY = tmpPoint.y + padding;
+            } else {
+                Gdx.app.error(TAG, "No room for a " + group.regionWidth + "x" + group.regionHeight +
+                        " widget in the atlas, it will be rendered without the effects.");
+            }
+        }
+        sortedMembers.clear();
+    }
+
+    /** @return the number of the buffer pixels per the stage's world unit. */
+    static float getPixelsPerUnit(VfxAtlasWidgetGroup group) {
+        Viewport viewport = group.getStage().getViewport();
+        return viewport.getScreenWidth() / viewport.getWorldWidth();
+    }
+
+    static int toPixels(float units, float pixelsPerUnit) {
+        return Math.max(1, MathUtils.ceil(units * pixelsPerUnit));
+    }
+}
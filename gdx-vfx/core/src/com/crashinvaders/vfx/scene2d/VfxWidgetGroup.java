@@ -16,14 +16,23 @@
 
 package com.crashinvaders.vfx.scene2d;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.WidgetGroup;
+import com.badlogic.gdx.scenes.scene2d.utils.ScissorStack;
+import com.badlogic.gdx.utils.NumberUtils;
+import com.badlogic.gdx.utils.SnapshotArray;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.crashinvaders.vfx.VfxManager;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
@@ -39,11 +48,18 @@ import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
  * <p>
  * While working with VFX effects within {@link Stage} actor hierarchy keep in mind
  * that not every effect made to support transparency and there might be issues.
+ * <p>
+ * Every group interrupts the stage's batch to process its effects.
+ * When there are many groups on the stage, consider drawing it through {@link VfxCaptureCoordinator}.
  */
 public class VfxWidgetGroup extends WidgetGroup {
 
     private final VfxManager vfxManager;
     private final CustomRendererAdapter rendererAdapter;
+    private final Rectangle tmpBounds = new Rectangle();
+    private final Rectangle tmpScissors = new Rectangle();
+    private final Vector2 tmpVec = new Vector2();
+    private final Matrix4 identity = new Matrix4();
     private boolean initialized = false;
     private boolean resizePending = false;
 
@@ -55,6 +71,24 @@ public class VfxWidgetGroup extends WidgetGroup {
      * with {@link com.badlogic.gdx.scenes.scene2d.Actor#act(float)} calls. */
     private boolean updateManager = true;
 
+    /** @see #setContentCaching(boolean) */
+    private boolean contentCaching = false;
+    private boolean contentDirty = true;
+    private int contentHash = 0;
+    private int capturedFrameCount = 0;
+    private int cachedFrameCount = 0;
+
+    /** @see #setCulling(boolean) */
+    private boolean culling = true;
+    /** @see #setEffectBypass(boolean) */
+    private boolean effectBypass = true;
+    private int culledDrawCount = 0;
+    private int bypassedDrawCount = 0;
+    /** The frame the content was last processed within, so the result can be drawn with no extra capture. */
+    private long capturedFrameId = -1;
+    /** The frame the effects were last applied within (rather than the previous result reused). */
+    private long resultChangedFrameId = -1;
+
     public VfxWidgetGroup(Pixmap.Format pixelFormat) {
         vfxManager = new VfxManager(pixelFormat);
         rendererAdapter = new CustomRendererAdapter();
@@ -88,6 +122,115 @@ public class VfxWidgetGroup extends WidgetGroup {
         this.updateManager = updateManager;
     }
 
+    /** @see #setContentCaching(boolean) */
+    public boolean isContentCaching() {
+        return contentCaching;
+    }
+
+    /**
+     * Enables the content caching. Disabled by default.
+     * <p>
+     * When enabled, the children are only captured again when something has changed since the last frame:
+     * the group or any of its descendants got invalidated, was added or removed,
+     * changed its position, size, scale, rotation, color or visibility, or has some actions running.
+     * Otherwise the previous capture is reused and the effect chain is only re-applied when the effects have changed
+     * (the internal {@link VfxManager} works in the {@link VfxManager#setResultCachingEnabled(boolean) result caching} mode).
+     * <p>
+     * The nested {@link VfxWidgetGroup}s, {@link VfxAtlasWidgetGroup}s and {@link VfxBackdropGroup}s are considered changed
+     * whenever their results are re-rendered, so a nested {@link VfxWidgetGroup} should have the content caching enabled
+     * as well to let the parent reuse the capture.
+     * <p>
+     * The changes the group cannot detect (e.g. a drawable has been swapped or some custom actor draws differently)
+     * should be reported with {@link #invalidateContent()}.
+     */
+    public void setContentCaching(boolean contentCaching) {
+        if (this.contentCaching == contentCaching) return;
+
+        this.contentCaching = contentCaching;
+        vfxManager.setResultCachingEnabled(contentCaching);
+        contentDirty = true;
+    }
+
+    /** Forces the children to be captured again upon the next draw, when the {@link #setContentCaching(boolean) content caching} is enabled. */
+    public void invalidateContent() {
+        contentDirty = true;
+    }
+
+    /** @return the number of the frames the children were captured and processed within. */
+    public int getCapturedFrameCount() {
+        return capturedFrameCount;
+    }
+
+    /** @return the number of the frames the previous capture was reused within (see {@link #setContentCaching(boolean)}). */
+    public int getCachedFrameCount() {
+        return cachedFrameCount;
+    }
+
+    /** @see #setCulling(boolean) */
+    public boolean isCulling() {
+        return culling;
+    }
+
+    /**
+     * Whether the group should skip drawing entirely when it's completely transparent,
+     * out of the stage camera's view or out of the active {@link ScissorStack} area
+     * (e.g. scrolled away within a {@link com.badlogic.gdx.scenes.scene2d.ui.ScrollPane ScrollPane}).
+     * Enabled by default.
+     */
+    public void setCulling(boolean culling) {
+        this.culling = culling;
+    }
+
+    /** @see #setEffectBypass(boolean) */
+    public boolean isEffectBypass() {
+        return effectBypass;
+    }
+
+    /**
+     * Whether the children should be drawn directly (with no capturing and processing)
+     * when the internal {@link VfxManager} has no enabled effects. Enabled by default.
+     */
+    public void setEffectBypass(boolean effectBypass) {
+        this.effectBypass = effectBypass;
+    }
+
+    /** @return the number of the draws skipped due to {@link #setCulling(boolean) culling}. */
+    public int getCulledDrawCount() {
+        return culledDrawCount;
+    }
+
+    /** @return the number of the draws the children were drawn directly within (see {@link #setEffectBypass(boolean)}). */
+    public int getBypassedDrawCount() {
+        return bypassedDrawCount;
+    }
+
+    /**
+     * @return the number of the draws the effects were processed within.
+     * Equals to the sum of {@link #getCapturedFrameCount()} and {@link #getCachedFrameCount()}.
+     */
+    public int getProcessedDrawCount() {
+        return capturedFrameCount + cachedFrameCount;
+    }
+
+    public void resetFrameCounters() {
+        capturedFrameCount = 0;
+        cachedFrameCount = 0;
+        culledDrawCount = 0;
+        bypassedDrawCount = 0;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        contentDirty = true;
+    }
+
+    @Override
+    protected void childrenChanged() {
+        super.childrenChanged();
+        contentDirty = true;
+    }
+
     @Override
     protected void setStage(Stage stage) {
         super.setStage(stage);
@@ -119,43 +262,52 @@ public class VfxWidgetGroup extends WidgetGroup {
     public void draw(Batch batch, float parentAlpha) {
         validate();
 
-//        //TODO Check if there are any active effects before start capturing/processing.
-//        if (!vfxManager.anyEnabledEffects()) {
-//            this.drawChildren(batch, parentAlpha);
-//            return;
-//        }
-
-        VfxFrameBuffer captureBuffer = vfxManager.getResultBuffer();
-
-        batch.end();
-
-        performPendingResize();
-
-        vfxManager.cleanUpBuffers();
-
-        captureBuffer.addRenderer(rendererAdapter);
-        vfxManager.beginInputCapture();
-
-        batch.begin();
-
-        validate();
-        drawChildren(batch, parentAlpha);
-
-        batch.end();
-
-        vfxManager.endInputCapture();
-        captureBuffer.removeRenderer(rendererAdapter);
+        if (culling && isCulled(parentAlpha)) {
+            culledDrawCount++;
+            // The content wasn't tracked meanwhile.
+            contentDirty = true;
+            return;
+        }
 
-        vfxManager.applyEffects();
+        if (isEffectBypassed()) {
+            bypassedDrawCount++;
+            contentDirty = true;
+            drawChildren(batch, parentAlpha);
+            return;
+        }
 
-        batch.begin();
+        if (capturedFrameId != Gdx.graphics.getFrameId()) {
+            // The batch keeps drawing through the capture, only the effect chain needs it to be ended.
+            captureContent(batch, parentAlpha);
+            if (vfxManager.isResultCacheValid()) {
+                // The previous result is reused.
+                capturedFrameId = Gdx.graphics.getFrameId();
+            } else {
+                batch.end();
+                applyCapturedEffects();
+                batch.begin();
+            }
+        }
 
         // Render result to the screen.
+        Texture resultTexture = vfxManager.getResultBuffer().getFbo().getColorBufferTexture();
         Color color = getColor();
         batch.setColor(color.r, color.g, color.b, color.a * parentAlpha);
-        batch.draw(vfxManager.getResultBuffer().getFbo().getColorBufferTexture(),
-                getX(), getY(), getWidth(), getHeight(),
-                0f, 0f, 1f, 1f);
+        if (vfxManager.isResolutionScaled()) {
+            // The result is rendered at a lower resolution (dynamic resolution), upscale it smoothly.
+            Texture.TextureFilter minFilter = resultTexture.getMinFilter();
+            Texture.TextureFilter magFilter = resultTexture.getMagFilter();
+            resultTexture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+            batch.draw(resultTexture,
+                    getX(), getY(), getWidth(), getHeight(),
+                    0f, 0f, 1f, 1f);
+            batch.flush();
+            resultTexture.setFilter(minFilter, magFilter);
+        } else {
+            batch.draw(resultTexture,
+                    getX(), getY(), getWidth(), getHeight(),
+                    0f, 0f, 1f, 1f);
+        }
     }
 
     @Override
@@ -183,6 +335,60 @@ public class VfxWidgetGroup extends WidgetGroup {
         }
     }
 
+    /** @return true if the children are drawn directly this frame (see {@link #setEffectBypass(boolean)}). */
+    boolean isEffectBypassed() {
+        return effectBypass && !vfxManager.anyEnabledEffects();
+    }
+
+    /**
+     * Captures the children into the internal {@link VfxManager}, unless the previous capture can be reused.
+     * The batch should be drawing, it's only flushed upon the framebuffer switches.
+     */
+    void captureContent(Batch batch, float parentAlpha) {
+        performPendingResize();
+
+        if (contentCaching && !isContentChanged(parentAlpha)) {
+            cachedFrameCount++;
+            return;
+        }
+        capturedFrameCount++;
+        contentDirty = false;
+
+        vfxManager.cleanUpBuffers();
+
+        VfxFrameBuffer captureBuffer = vfxManager.getInputCaptureBuffer();
+
+        captureBuffer.addRenderer(rendererAdapter);
+        vfxManager.beginInputCapture();
+
+        validate();
+        drawChildren(batch, parentAlpha);
+
+        vfxManager.endInputCapture();
+        captureBuffer.removeRenderer(rendererAdapter);
+    }
+
+    /** Applies the effects to the captured content, unless the previous result can be reused. The batch should not be drawing. */
+    void applyCapturedEffects() {
+        long frameId = Gdx.graphics.getFrameId();
+        capturedFrameId = frameId;
+        if (vfxManager.isResultCacheValid()) return;
+
+        resultChangedFrameId = frameId;
+        vfxManager.applyEffects();
+    }
+
+    /** @return true if the result drawn within the current frame may differ from the one of the previous frame. */
+    boolean isResultChanging() {
+        // The children are drawn directly, the caching ancestor tracks them itself.
+        if (isEffectBypassed()) return false;
+
+        long frameId = Gdx.graphics.getFrameId();
+        if (capturedFrameId == frameId) return resultChangedFrameId == frameId;
+        // The changes of the descendants are tracked by the caching ancestor itself.
+        return contentDirty || !vfxManager.isResultCacheValid();
+    }
+
     /** VfxWidgetGroup doesn't support culling area. Any calls to it will be ignored. */
     @Deprecated
     @Override
@@ -237,6 +443,8 @@ public class VfxWidgetGroup extends WidgetGroup {
             width = MathUtils.floor(getWidth());
             height = MathUtils.floor(getHeight());
 
+            rendererAdapter.updateOwnProjection();
+
         } else {
             // Set buffer to match the screen pixel density.
             Viewport viewport = getStage().getViewport();
@@ -250,6 +458,93 @@ public class VfxWidgetGroup extends WidgetGroup {
         vfxManager.resize(width, height);
 
         resizePending = false;
+        contentDirty = true;
+    }
+
+    /** @return true if the group cannot be seen at all. */
+    boolean isCulled(float parentAlpha) {
+        if (getColor().a * parentAlpha <= 0f) return true;
+
+        // The group's bounds in the stage coordinates.
+        Rectangle bounds = tmpBounds;
+        Vector2 corner = localToStageCoordinates(tmpVec.set(0f, 0f));
+        bounds.set(corner.x, corner.y, 0f, 0f);
+        bounds.merge(localToStageCoordinates(tmpVec.set(getWidth(), 0f)));
+        bounds.merge(localToStageCoordinates(tmpVec.set(0f, getHeight())));
+        bounds.merge(localToStageCoordinates(tmpVec.set(getWidth(), getHeight())));
+
+        Camera camera = getStage().getCamera();
+        float halfWidth = bounds.width * 0.5f;
+        float halfHeight = bounds.height * 0.5f;
+        // Some depth keeps the flat bounds clear of the near plane precision issues (the stage camera's near plane is at zero).
+        if (!camera.frustum.boundsInFrustum(bounds.x + halfWidth, bounds.y + halfHeight, 0f, halfWidth, halfHeight, 1f)) {
+            return true;
+        }
+
+        Rectangle scissors = ScissorStack.peekScissors();
+        if (scissors != null) {
+            ScissorStack.calculateScissors(camera, identity, bounds, tmpScissors);
+            return !scissors.overlaps(tmpScissors);
+        }
+        return false;
+    }
+
+    /** Compares the state of the descendants to the one of the last capture. */
+    private boolean isContentChanged(float parentAlpha) {
+        int hash = hashChildren(this, 31 + NumberUtils.floatToIntBits(parentAlpha));
+        // The running actions are considered to change the content every frame.
+        boolean changed = contentDirty || hash != contentHash || hasActions(this) || hasChangingResults(this);
+        contentHash = hash;
+        return changed;
+    }
+
+    private static int hashChildren(Group group, int hash) {
+        SnapshotArray<Actor> children = group.getChildren();
+        hash = 31 * hash + children.size;
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getX());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getY());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getWidth());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getHeight());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getScaleX());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getScaleY());
+            hash = 31 * hash + NumberUtils.floatToIntBits(child.getRotation());
+            hash = 31 * hash + child.getColor().toIntBits();
+            hash = 31 * hash + (child.isVisible() ? 1 : 0);
+            if (child instanceof VfxWidgetGroup) {
+                hash = 31 * hash + (((VfxWidgetGroup) child).isEffectBypassed() ? 1 : 0);
+            }
+            if (child instanceof Group) {
+                hash = hashChildren((Group) child, hash);
+            }
+        }
+        return hash;
+    }
+
+    private static boolean hasActions(Group group) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            if (child.hasActions()) return true;
+            if (child instanceof Group && hasActions((Group) child)) return true;
+        }
+        return false;
+    }
+
+    /** @return true if any of the nested groups that draw a processed result is going to draw a different one. */
+    private static boolean hasChangingResults(Group group) {
+        SnapshotArray<Actor> children = group.getChildren();
+        for (int i = 0; i < children.size; i++) {
+            Actor child = children.get(i);
+            if (!child.isVisible()) continue;
+
+            if (child instanceof VfxWidgetGroup && ((VfxWidgetGroup) child).isResultChanging()) return true;
+            if (child instanceof VfxAtlasWidgetGroup && ((VfxAtlasWidgetGroup) child).isResultChanging()) return true;
+            if (child instanceof VfxBackdropGroup && ((VfxBackdropGroup) child).isResultChanging()) return true;
+            if (child instanceof Group && hasChangingResults((Group) child)) return true;
+        }
+        return false;
     }
 
     private class CustomRendererAdapter implements VfxFrameBuffer.Renderer {
@@ -275,7 +570,8 @@ public class VfxWidgetGroup extends WidgetGroup {
         public void assignLocalMatrices(Matrix4 projection, Matrix4 transform) {
             preservedProjection.set(batch.getProjectionMatrix());
 
-            if (!matchWidgetSize) {
+            // The buffer's own projection only matches the widget's units when the buffer is not scaled.
+            if (!matchWidgetSize || vfxManager.isResolutionScaled()) {
                 projection = ownProjection;
             }
 
@@ -18,70 +18,114 @@ package com.crashinvaders.vfx.utils;
 
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
-import com.badlogic.gdx.utils.Pool;
 
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * An array that keeps its items ordered by their priorities (ascending).
+ * The items of the same priority keep the order they were added/re-prioritized in.
+ * <p>
+ * The items and the priorities are stored in the parallel arrays, the items are positioned through a binary search
+ * and looked up by identity, so none of the operations allocate (aside from the capacity growth).
+ * Every structural change bumps the {@link #getVersion() version}, so the dependent data can be cached.
+ */
 public class PrioritizedArray<T> implements Iterable<T> {
 
-    private final WrapperComparator<T> comparator = new WrapperComparator<T>();
-    private final ValueArrayMap<T, Wrapper<T>> items;
+    private T[] items;
+    private int[] priorities;
+    private int size;
+    private int version;
     private PrioritizedArrayIterable<T> iterable;
 
     public PrioritizedArray() {
-        items = new ValueArrayMap<>();
+        this(16);
     }
 
+    @SuppressWarnings("unchecked")
     public PrioritizedArray(int capacity) {
-        items = new ValueArrayMap<>(capacity);
+        items = (T[]) new Object[capacity];
+        priorities = new int[capacity];
     }
 
     public T get(int index) {
-        return items.getValueAt(index).item;
+        if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+        return items[index];
+    }
+
+    public int getPriority(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+        return priorities[index];
     }
 
     public void add(T item) {
         add(item, 0);
     }
 
+    /** Adds the item with the priority specified. If the item is already in the array, only its priority gets updated. */
     public void add(T item, int priority) {
-        items.put(item, Wrapper.pool.obtain().initialize(item, priority));
-        items.sort(comparator);
+        int index = indexOf(item);
+        if (index != -1) {
+            removeIndex(index);
+        } else if (size == items.length) {
+            resize(Math.max(8, (int) (size * 1.75f)));
+        }
+        insert(item, priority);
+        version++;
     }
 
     public void remove(int index) {
-        Wrapper<T> wrapper = items.getValueAt(index);
-        remove(wrapper.item);
+        if (index >= size) throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size);
+        removeIndex(index);
+        version++;
     }
 
     public void remove(T item) {
-        Wrapper<T> wrapper = items.remove(item);
-        if (wrapper != null) {
-            Wrapper.pool.free(wrapper);
+        int index = indexOf(item);
+        if (index != -1) {
+            remove(index);
         }
     }
 
     public boolean contains(T item) {
-        return items.contains(item);
+        return indexOf(item) != -1;
+    }
+
+    /** @return the index of the item (compared by identity) or -1 if it's not in the array. */
+    public int indexOf(T item) {
+        T[] items = this.items;
+        for (int i = 0; i < size; i++) {
+            if (items[i] == item) return i;
+        }
+        return -1;
     }
 
     public void clear() {
-        for (int i = 0; i < items.size(); i++) {
-            Wrapper<T> wrapper = items.getValueAt(i);
-            Wrapper.pool.free(wrapper);
+        T[] items = this.items;
+        for (int i = 0; i < size; i++) {
+            items[i] = null;
         }
-        items.clear();
+        size = 0;
+        version++;
     }
 
     public int size() {
-        return items.size();
+        return size;
     }
 
     public void setPriority(T item, int priority) {
-        items.get(item).priority = priority;
-        items.sort(comparator);
+        int index = indexOf(item);
+        if (index == -1) throw new IllegalArgumentException("The item is not in the array: " + item);
+        if (priorities[index] == priority) return;
+
+        removeIndex(index);
+        insert(item, priority);
+        version++;
+    }
+
+    /** @return the number that changes upon every modification of the items set or order. */
+    public int getVersion() {
+        return version;
     }
 
     /** Returns an iterator for the items in the array. Remove is supported. Note that the same iterator instance is returned each
@@ -93,47 +137,60 @@ public class PrioritizedArray<T> implements Iterable<T> {
 
     @Override
     public String toString() {
-        return items.toString();
+        return toString(", ", true);
     }
 
     public String toString(String separator) {
-        return items.toString(separator);
+        return toString(separator, false);
     }
 
-    private static class Wrapper<T> implements Pool.Poolable {
-        private static final Pool<Wrapper> pool = new Pool<Wrapper>() {
-            @Override
-            protected Wrapper newObject() {
-                return new Wrapper();
-            }
-        };
-
-        T item;
-        int priority;
-
-        public Wrapper initialize(T item, int priority) {
-            this.item = item;
-            this.priority = priority;
-            return this;
+    private String toString(String separator, boolean brackets) {
+        if (size == 0) return brackets ? "[]" : "";
+        StringBuilder sb = new StringBuilder(32);
+        if (brackets) sb.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(separator);
+            sb.append(items[i]).append('[').append(priorities[i]).append(']');
         }
+        if (brackets) sb.append(']');
+        return sb.toString();
+    }
 
-        @Override
-        public void reset() {
-            item = null;
-            priority = 0;
+    /** Inserts the item after all the ones of the same or lower priority. The capacity should be sufficient. */
+    private void insert(T item, int priority) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (priorities[mid] <= priority) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
+        System.arraycopy(items, low, items, low + 1, size - low);
+        System.arraycopy(priorities, low, priorities, low + 1, size - low);
+        items[low] = item;
+        priorities[low] = priority;
+        size++;
+    }
 
-        @Override
-        public String toString() {
-            return item + "[" + priority + "]";
-        }
+    private void removeIndex(int index) {
+        size--;
+        System.arraycopy(items, index + 1, items, index, size - index);
+        System.arraycopy(priorities, index + 1, priorities, index, size - index);
+        items[size] = null;
     }
 
-    private static class WrapperComparator<T> implements Comparator<Wrapper<T>> {
-        @Override
-        public int compare(Wrapper l, Wrapper r) {
-            return CommonUtils.compare(l.priority, r.priority);
-        }
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity) {
+        T[] newItems = (T[]) new Object[capacity];
+        System.arraycopy(items, 0, newItems, 0, size);
+        items = newItems;
+
+        int[] newPriorities = new int[capacity];
+        System.arraycopy(priorities, 0, newPriorities, 0, size);
+        priorities = newPriorities;
     }
 
     //region Iterator implementation
@@ -164,7 +221,7 @@ public class PrioritizedArray<T> implements Iterable<T> {
             if (!valid) {
                 throw new GdxRuntimeException("#iterator() cannot be used nested.");
             }
-            return array.items.getValueAt(index++).item;
+            return array.get(index++);
         }
 
         public void remove () {
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2019 metaphore
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.crashinvaders.vfx.utils;
+
+import com.badlogic.gdx.math.GridPoint2;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Packs rectangles into a fixed size area using the skyline bottom-left heuristic.
+ * <p>
+ * Individual rectangles cannot be removed, {@link #reset()} the packer and insert them all again instead.
+ * Inserting them in the order of decreasing height gives better results.
+ */
+public class SkylinePacker {
+
+    private final IntArray nodeX = new IntArray();
+    private final IntArray nodeY = new IntArray();
+    private final IntArray nodeWidth = new IntArray();
+
+    private int width;
+    private int height;
+
+    public SkylinePacker(int width, int height) {
+        resize(width, height);
+    }
+
+    /** Changes the area size and drops all the inserted rectangles. */
+    public void resize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Area size should be positive: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        reset();
+    }
+
+    /** Drops all the inserted rectangles. */
+    public void reset() {
+        nodeX.clear();
+        nodeY.clear();
+        nodeWidth.clear();
+        nodeX.add(0);
+        nodeY.add(0);
+        nodeWidth.add(width);
+    }
+
+    /**
+     * Finds a place for the rectangle and occupies it.
+     * @param out receives the bottom-left corner of the placed rectangle.
+     * @return false if there's no room left for the rectangle (the packer state is left untouched then).
+     */
+    public boolean insert(int rectWidth, int rectHeight, GridPoint2 out) {
+        int bestIndex = -1;
+        int bestY = Integer.MAX_VALUE;
+        for (int i = 0; i < nodeX.size; i++) {
+            int y = fit(i, rectWidth, rectHeight);
+            if (y >= 0 && y < bestY) {
+                bestY = y;
+                bestIndex = i;
+            }
+        }
+        if (bestIndex < 0) return false;
+
+        int x = nodeX.get(bestIndex);
+        nodeX.insert(bestIndex, x);
+        nodeY.insert(bestIndex, bestY + rectHeight);
+        nodeWidth.insert(bestIndex, rectWidth);
+
+        // Cut the nodes the new one shadows.
+        for (int i = bestIndex + 1; i < nodeX.size; i++) {
+            int prevRight = nodeX.get(i - 1) + nodeWidth.get(i - 1);
+            int overlap = prevRight - nodeX.get(i);
+            if (overlap <= 0) break;
+
+            nodeX.incr(i, overlap);
+            nodeWidth.incr(i, -overlap);
+            if (nodeWidth.get(i) > 0) break;
+
+            removeNode(i--);
+        }
+
+        // Merge the neighbor nodes of the same level.
+        for (int i = 0; i < nodeX.size - 1; i++) {
+            if (nodeY.get(i) == nodeY.get(i + 1)) {
+                nodeWidth.incr(i, nodeWidth.get(i + 1));
+                removeNode(i + 1);
+                i--;
+            }
+        }
+
+        out.set(x, bestY);
+        return true;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** @return the lowest Y the rectangle fits at when placed at the node's X or -1 if it doesn't fit there. */
+    private int fit(int index, int rectWidth, int rectHeight) {
+        int x = nodeX.get(index);
+        if (x + rectWidth > width) return -1;
+
+        int y = nodeY.get(index);
+        int widthLeft = rectWidth;
+        for (int i = index; widthLeft > 0; i++) {
+            y = Math.max(y, nodeY.get(i));
+            if (y + rectHeight > height) return -1;
+            widthLeft -= nodeWidth.get(i);
+        }
+        return y;
+    }
+
+    private void removeNode(int index) {
+        nodeX.removeIndex(index);
+        nodeY.removeIndex(index);
+        nodeWidth.removeIndex(index);
+    }
+}
@@ -16,97 +16,413 @@
 
 package com.crashinvaders.vfx.utils;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Matrix3;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
 import com.badlogic.gdx.utils.Pool;
+import com.crashinvaders.vfx.gl.VfxProgramRegistry;
 
+/**
+ * Stages uniform values of a shader program and uploads them in one go, when the program is bound anyway.
+ * <p>
+ * Every uniform is registered once into a slot with the pre-resolved location ({@link #register(String)}).
+ * The setters only copy the values into the slot and mark it dirty, no GL calls are made.
+ * {@link #flush()} uploads the dirty slots and should be called while the program is bound
+ * (e.g. {@link com.crashinvaders.vfx.effects.ShaderVfxEffect} does it right before rendering).
+ * <p>
+ * The name based setters register the slot on the first call,
+ * prefer to keep the slot indices around for the frequently updated uniforms to skip the name lookups.
+ * <p>
+ * For the programs shared through {@link VfxProgramRegistry} the complete staged state is re-uploaded
+ * whenever another user has flushed its values to the program in between.
+ * <p>
+ * <b>NOTE:</b> Unlike in the previous versions, the setters don't upload the values right away.
+ * The deprecated {@link #begin(ShaderProgram, boolean)}/{@link #end()} pair is kept for compatibility,
+ * the values set in between get uploaded upon {@link #end()}.
+ */
 public class UniformBatcher implements Pool.Poolable {
 
-    private ShaderProgram program = null;
+    private static final int TYPE_NONE = 0;
+    private static final int TYPE_INT = 1;
+    private static final int TYPE_FLOAT = 2;
+    private static final int TYPE_FLOAT_ARRAY = 3;
+    private static final int TYPE_MAT3 = 4;
+    private static final int TYPE_MAT4 = 5;
+
+    private ShaderProgram program;
+    private boolean sharedProgram;
+    private final ObjectIntMap<String> slotIndices = new ObjectIntMap<>();
+    private final Array<Slot> slots = new Array<>();
+    private final IntArray dirtySlots = new IntArray();
+
     private boolean activateShader = false;
 
+    /** @deprecated The batcher is bound to a program, use {@link #UniformBatcher(ShaderProgram)}. */
+    @Deprecated
+    public UniformBatcher() {
+        this(null);
+    }
+
+    /** @param program the target program. May be null, if the program is not compiled yet (see {@link #setProgram(ShaderProgram)}). */
+    public UniformBatcher(ShaderProgram program) {
+        this.program = program;
+        this.sharedProgram = program != null && VfxProgramRegistry.isShared(program);
+    }
+
+    public ShaderProgram getProgram() {
+        return program;
+    }
+
+    /**
+     * Sets the target program (e.g. once the lazily compiled program is ready).
+     * Resolves the locations of the already registered uniforms and marks all the staged values dirty.
+     * @throws IllegalArgumentException if a registered uniform doesn't exist and {@link ShaderProgram#pedantic} is on.
+     */
+    public void setProgram(ShaderProgram program) {
+        this.program = program;
+        this.sharedProgram = program != null && VfxProgramRegistry.isShared(program);
+        if (program == null) return;
+
+        for (int i = 0; i < slots.size; i++) {
+            Slot slot = slots.get(i);
+            slot.location = program.fetchUniformLocation(slot.name, ShaderProgram.pedantic);
+        }
+        markAllDirty();
+    }
+
+    /**
+     * Drops all the registered uniforms and the staged values.
+     * @deprecated The batcher is not meant to be pooled anymore, every program user should keep its own instance.
+     */
+    @Deprecated
     @Override
     public void reset() {
         program = null;
+        sharedProgram = false;
         activateShader = false;
+        slotIndices.clear();
+        slots.clear();
+        dirtySlots.clear();
     }
 
+    /**
+     * Switches the batcher to the program (if it's a different one) and binds the program if requested.
+     * The values set until {@link #end()} get uploaded upon the {@link #end()} call.
+     * @deprecated Stage the values with the setters and upload them with {@link #flush()} when the program is bound.
+     */
+    @Deprecated
     public UniformBatcher begin(ShaderProgram program, boolean activateShader) {
-        this.program = program;
+        if (this.program != program) {
+            setProgram(program);
+        }
         this.activateShader = activateShader;
 
         if (activateShader) {
             program.begin();
         }
-
         return this;
     }
 
-    /** Should be called after set* method calls. */
+    /**
+     * Uploads the values set since {@link #begin(ShaderProgram, boolean)} and unbinds the program if it was bound there.
+     * @deprecated See {@link #begin(ShaderProgram, boolean)}.
+     */
+    @Deprecated
     public void end() {
+        flush();
         if (activateShader) {
             program.end();
+            activateShader = false;
         }
     }
 
-    /** Updates shader's uniform of float type. */
-    public UniformBatcher set(String uniformName, float value) {
-        program.setUniformf(uniformName, value);
+    /**
+     * Registers the uniform (if it wasn't registered before) and resolves its location.
+     * @return the slot index to be used with the slot based setters.
+     * @throws IllegalArgumentException if the uniform doesn't exist and {@link ShaderProgram#pedantic} is on.
+     */
+    public int register(String uniformName) {
+        int index = slotIndices.get(uniformName, -1);
+        if (index >= 0) return index;
+
+        Slot slot = new Slot(uniformName);
+        if (program != null) {
+            slot.location = program.fetchUniformLocation(uniformName, ShaderProgram.pedantic);
+        }
+        index = slots.size;
+        slots.add(slot);
+        slotIndices.put(uniformName, index);
+        return index;
+    }
+
+    /** @return the slot index of the uniform or -1 if it's not registered. */
+    public int getSlot(String uniformName) {
+        return slotIndices.get(uniformName, -1);
+    }
+
+    /** @return true if there are staged values to upload. */
+    public boolean isDirty() {
+        return dirtySlots.size > 0;
+    }
+
+    /** Uploads all the staged values. The program should be bound. */
+    public void flush() {
+        if (program == null) throw new IllegalStateException("The program is not set.");
+
+        // Another user of the shared program may have overwritten the values.
+        if (sharedProgram && VfxProgramRegistry.claimUniformState(program, this)) {
+            markAllDirty();
+        }
+        if (dirtySlots.size == 0) return;
+
+        for (int i = 0; i < dirtySlots.size; i++) {
+            Slot slot = slots.get(dirtySlots.get(i));
+            slot.dirty = false;
+            if (slot.location < 0) continue;
+
+            switch (slot.type) {
+                case TYPE_INT:
+                    program.setUniformi(slot.location, slot.intValue);
+                    break;
+                case TYPE_FLOAT:
+                    uploadVector(slot);
+                    break;
+                case TYPE_FLOAT_ARRAY:
+                    uploadArray(slot);
+                    break;
+                case TYPE_MAT3:
+                    Gdx.gl20.glUniformMatrix3fv(slot.location, 1, false, slot.values, 0);
+                    break;
+                case TYPE_MAT4:
+                    Gdx.gl20.glUniformMatrix4fv(slot.location, 1, false, slot.values, 0);
+                    break;
+            }
+        }
+        dirtySlots.clear();
+    }
+
+    /**
+     * Re-resolves the uniform locations and marks all the staged values dirty.
+     * Should be called when the program gets recompiled (e.g. after the GL context loss).
+     */
+    public void rebind() {
+        if (program == null) return;
+
+        for (int i = 0; i < slots.size; i++) {
+            Slot slot = slots.get(i);
+            slot.location = program.fetchUniformLocation(slot.name, false);
+        }
+        markAllDirty();
+    }
+
+    //region Slot based setters
+    /** Stages the value of int type. */
+    public UniformBatcher set(int slot, int value) {
+        Slot s = obtainSlot(slot, TYPE_INT, 1);
+        s.intValue = value;
         return this;
     }
 
-    /** Updates shader's uniform of int type. */
-    public UniformBatcher set(String uniformName, int value) {
-        program.setUniformi(uniformName, value);
+    /** Stages the value of float type. */
+    public UniformBatcher set(int slot, float value) {
+        Slot s = obtainSlot(slot, TYPE_FLOAT, 1);
+        s.values[0] = value;
         return this;
     }
 
-    /** Updates shader's uniform of vec2 type. */
-    public UniformBatcher set(String uniformName, Vector2 value) {
-        program.setUniformf(uniformName, value);
+    /** Stages the value of vec2 type. */
+    public UniformBatcher set(int slot, float x, float y) {
+        Slot s = obtainSlot(slot, TYPE_FLOAT, 2);
+        s.values[0] = x;
+        s.values[1] = y;
         return this;
     }
 
-    /** Updates shader's uniform of vec3 type. */
-    public UniformBatcher set(String uniformName, Vector3 value) {
-        program.setUniformf(uniformName, value);
+    /** Stages the value of vec3 type. */
+    public UniformBatcher set(int slot, float x, float y, float z) {
+        Slot s = obtainSlot(slot, TYPE_FLOAT, 3);
+        s.values[0] = x;
+        s.values[1] = y;
+        s.values[2] = z;
         return this;
     }
 
-    /** Updates shader's uniform of mat3 type. */
-    public UniformBatcher set(String uniformName, Matrix3 value) {
-        program.setUniformMatrix(uniformName, value);
+    /** Stages the value of vec4 type. */
+    public UniformBatcher set(int slot, float x, float y, float z, float w) {
+        Slot s = obtainSlot(slot, TYPE_FLOAT, 4);
+        s.values[0] = x;
+        s.values[1] = y;
+        s.values[2] = z;
+        s.values[3] = w;
         return this;
     }
 
-    /** Updates shader's uniform of mat4 type. */
-    public UniformBatcher set(String uniformName, Matrix4 value) {
-        program.setUniformMatrix(uniformName, value);
+    /** Stages the value of vec2 type. */
+    public UniformBatcher set(int slot, Vector2 value) {
+        return set(slot, value.x, value.y);
+    }
+
+    /** Stages the value of vec3 type. */
+    public UniformBatcher set(int slot, Vector3 value) {
+        return set(slot, value.x, value.y, value.z);
+    }
+
+    /** Stages the value of vec4 type. */
+    public UniformBatcher set(int slot, Color value) {
+        return set(slot, value.r, value.g, value.b, value.a);
+    }
+
+    /** Stages the value of mat3 type. */
+    public UniformBatcher set(int slot, Matrix3 value) {
+        Slot s = obtainSlot(slot, TYPE_MAT3, 9);
+        System.arraycopy(value.val, 0, s.values, 0, 9);
+        return this;
+    }
+
+    /** Stages the value of mat4 type. */
+    public UniformBatcher set(int slot, Matrix4 value) {
+        Slot s = obtainSlot(slot, TYPE_MAT4, 16);
+        System.arraycopy(value.val, 0, s.values, 0, 16);
         return this;
     }
 
-    /** Updates shader's uniform array.
+    /** Stages the uniform array values (copies them).
+     * @param elementSize could be 1..4 and defines type of the uniform array: float[], vec2[], vec3[] or vec4[]. */
+    public UniformBatcher set(int slot, int elementSize, float[] values, int offset, int length) {
+        if (elementSize < 1 || elementSize > 4) {
+            throw new IllegalArgumentException("elementSize has illegal value: " + elementSize + ". Possible values are 1..4");
+        }
+        Slot s = obtainSlot(slot, TYPE_FLOAT_ARRAY, length);
+        System.arraycopy(values, offset, s.values, 0, length);
+        s.elementSize = elementSize;
+        return this;
+    }
+    //endregion
+
+    //region Name based setters
+    /** Stages the value of int type. */
+    public UniformBatcher set(String uniformName, int value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of float type. */
+    public UniformBatcher set(String uniformName, float value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of vec2 type. */
+    public UniformBatcher set(String uniformName, Vector2 value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of vec3 type. */
+    public UniformBatcher set(String uniformName, Vector3 value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of vec4 type. */
+    public UniformBatcher set(String uniformName, Color value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of mat3 type. */
+    public UniformBatcher set(String uniformName, Matrix3 value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the value of mat4 type. */
+    public UniformBatcher set(String uniformName, Matrix4 value) {
+        return set(register(uniformName), value);
+    }
+
+    /** Stages the uniform array values (copies them).
      * @param elementSize could be 1..4 and defines type of the uniform array: float[], vec2[], vec3[] or vec4[]. */
     public UniformBatcher set(String uniformName, int elementSize, float[] values, int offset, int length) {
-        switch (elementSize) {
+        return set(register(uniformName), elementSize, values, offset, length);
+    }
+    //endregion
+
+    private Slot obtainSlot(int index, int type, int size) {
+        Slot slot = slots.get(index);
+        slot.type = type;
+        slot.size = size;
+        if (slot.values.length < size) {
+            slot.values = new float[size];
+        }
+        markDirty(index, slot);
+        return slot;
+    }
+
+    private void markAllDirty() {
+        for (int i = 0; i < slots.size; i++) {
+            Slot slot = slots.get(i);
+            if (slot.type != TYPE_NONE) {
+                markDirty(i, slot);
+            }
+        }
+    }
+
+    private void markDirty(int index, Slot slot) {
+        if (slot.dirty) return;
+        slot.dirty = true;
+        dirtySlots.add(index);
+    }
+
+    private void uploadVector(Slot slot) {
+        float[] v = slot.values;
+        switch (slot.size) {
             case 1:
-                program.setUniform1fv(uniformName, values, offset, length);
+                program.setUniformf(slot.location, v[0]);
                 break;
             case 2:
-                program.setUniform2fv(uniformName, values, offset, length);
+                program.setUniformf(slot.location, v[0], v[1]);
                 break;
             case 3:
-                program.setUniform3fv(uniformName, values, offset, length);
+                program.setUniformf(slot.location, v[0], v[1], v[2]);
                 break;
             case 4:
-                program.setUniform4fv(uniformName, values, offset, length);
+                program.setUniformf(slot.location, v[0], v[1], v[2], v[3]);
                 break;
-            default:
-                throw new IllegalArgumentException("elementSize has illegal value: " + elementSize + ". Possible values are 1..4");
         }
-        return this;
     }
-}
\ No newline at end of file
+
+    private void uploadArray(Slot slot) {
+        switch (slot.elementSize) {
+            case 1:
+                program.setUniform1fv(slot.location, slot.values, 0, slot.size);
+                break;
+            case 2:
+                program.setUniform2fv(slot.location, slot.values, 0, slot.size);
+                break;
+            case 3:
+                program.setUniform3fv(slot.location, slot.values, 0, slot.size);
+                break;
+            case 4:
+                program.setUniform4fv(slot.location, slot.values, 0, slot.size);
+                break;
+        }
+    }
+
+    private static class Slot {
+        final String name;
+        int location = -1;
+        int type = TYPE_NONE;
+        /** The number of float components (or array floats) staged. */
+        int size = 0;
+        int elementSize = 1;
+        int intValue = 0;
+        float[] values = new float[4];
+        boolean dirty = false;
+
+        Slot(String name) {
+            this.name = name;
+        }
+    }
+}
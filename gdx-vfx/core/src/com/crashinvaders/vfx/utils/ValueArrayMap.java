@@ -17,16 +17,18 @@
 package com.crashinvaders.vfx.utils;
 
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Almost like regular ArrayMap, but supports value sorting and access to values by indices.
+ * <p>
+ * The keys are kept in an array parallel to the values, so none of the operations allocate (aside from the capacity growth).
  */
 public class ValueArrayMap<K, V> {
-    private final Map<K, V> map;
+    private final ObjectMap<K, V> map;
+    private final Array<K> keys;
     private final Array<V> values;
 
     private final Array<K> tmpKeyArray;
@@ -36,15 +38,21 @@ public class ValueArrayMap<K, V> {
     }
 
     public ValueArrayMap(int capacity) {
-        map = new HashMap<>(capacity);
+        map = new ObjectMap<>(capacity);
+        keys = new Array<>(true, capacity);
         values = new Array<>(true, capacity);
 
         tmpKeyArray = new Array<>(capacity);
     }
 
     public void put(K key, V value) {
-        map.put(key, value);
-        values.add(value);
+        V oldValue = map.put(key, value);
+        if (oldValue != null) {
+            values.set(values.indexOf(oldValue, true), value);
+        } else {
+            keys.add(key);
+            values.add(value);
+        }
     }
 
     public V get(K key) {
@@ -55,30 +63,37 @@ public class ValueArrayMap<K, V> {
         return values.get(valueIndex);
     }
 
+    public K getKeyAt(int valueIndex) {
+        return keys.get(valueIndex);
+    }
+
     public V remove(K key) {
         V value = map.remove(key);
         if (value != null) {
-            values.removeValue(value, true);
+            int index = values.indexOf(value, true);
+            keys.removeIndex(index);
+            values.removeIndex(index);
         }
         return value;
     }
 
     public V removeByValue(V value) {
-        K key = findKey(value);
-        return remove(key);
+        int index = values.indexOf(value, true);
+        if (index == -1) return null;
+
+        map.remove(keys.get(index));
+        keys.removeIndex(index);
+        return values.removeIndex(index);
     }
 
     public K findKey(V value) {
-        for (Map.Entry<K, V> entry : map.entrySet()) {
-            if (entry.getValue() == value) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        int index = values.indexOf(value, true);
+        return index == -1 ? null : keys.get(index);
     }
 
     public void clear() {
         map.clear();
+        keys.clear();
         values.clear();
     }
 
@@ -87,11 +102,25 @@ public class ValueArrayMap<K, V> {
     }
 
     public int size() {
-        return map.size();
+        return map.size;
     }
 
+    /** Sorts the values (along with their keys). The sort is stable, insertion based, as the maps are expected to be small. */
     public void sort(Comparator<V> comparator) {
-        values.sort(comparator);
+        V[] values = this.values.items;
+        K[] keys = this.keys.items;
+        for (int i = 1, n = this.values.size; i < n; i++) {
+            V value = values[i];
+            K key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && comparator.compare(values[j], value) > 0) {
+                values[j + 1] = values[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            values[j + 1] = value;
+            keys[j + 1] = key;
+        }
     }
 
     public Array<V> getValues() {
@@ -102,10 +131,7 @@ public class ValueArrayMap<K, V> {
     public Array<K> getKeys() {
         Array<K> result = tmpKeyArray;
         result.clear();
-
-        for (K key : map.keySet()) {
-            result.add(key);
-        }
+        result.addAll(keys);
         return result;
     }
 
@@ -1,15 +1,10 @@
-#ifdef GL_ES
-	#define PRECISION mediump
-	precision PRECISION float;
-	precision PRECISION int;
-#else
-	#define PRECISION
-#endif
+#include "include/precision.glsl"
+#include "fusion/copy.glsl"
 
 varying vec2 v_texCoords;
 
 uniform sampler2D u_texture0;
 
 void main() {
-	gl_FragColor = texture2D(u_texture0, v_texCoords);
+	gl_FragColor = u_apply(texture2D(u_texture0, v_texCoords), v_texCoords);
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+// The per-pixel function of copy.frag, also used by the effect fusion.
+// The prefix placeholder of the global identifiers turns into "u_" in copy.frag (see VfxGLUtils.compileShader()).
+
+vec4 $apply(vec4 color, vec2 uv) {
+    return color;
+}
@@ -0,0 +1,12 @@
+// Originally based on https://www.shadertoy.com/view/4ljfRG
+// The per-pixel function of film-grain.frag, also used by the effect fusion.
+// The prefix placeholder of the global identifiers turns into "u_" in film-grain.frag (see VfxGLUtils.compileShader()).
+
+uniform float $seed;
+uniform float $noiseAmount;
+
+vec4 $apply(vec4 color, vec2 uv) {
+    float n = fract(sin(dot(uv, vec2($seed + 12.9898, 78.233))) * 43758.5453);
+    color.rgb *= (1.0 - $noiseAmount + n * $noiseAmount) * 1.1;
+    return color;
+}
@@ -0,0 +1,34 @@
+// The per-pixel function of levels.frag, also used by the effect fusion.
+// The prefix placeholder of the global identifiers turns into "u_" in levels.frag (see VfxGLUtils.compileShader()).
+
+#include "../include/color.glsl"
+
+uniform float $brightness;
+uniform float $contrast;
+uniform float $saturation;
+uniform float $hue;
+uniform float $gamma;
+
+vec4 $apply(vec4 color, vec2 uv) {
+    color.rgb /= color.a;
+
+    // Apply contrast
+    color.rgb = ((color.rgb - 0.5) * max($contrast, 0.0)) + 0.5;
+
+    vec3 hsv = rgb2hsv(color.rgb);
+    // Apply saturation
+    hsv.y *= $saturation;
+    // Apply hue
+    hsv.x *= $hue;
+
+    color.rgb = hsv2rgb(hsv);
+
+    // Apply brightness
+    color.rgb += $brightness;
+
+    color.rgb *= color.a;
+
+    // Gamma correction
+    color.rgb = pow(color.rgb, vec3(1.0 / $gamma));
+    return color;
+}
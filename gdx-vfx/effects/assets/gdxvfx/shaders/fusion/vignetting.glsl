@@ -0,0 +1,36 @@
+// The per-pixel function of vignetting.frag, also used by the effect fusion.
+// The prefix placeholder of the global identifiers turns into "u_" in vignetting.frag (see VfxGLUtils.compileShader()).
+
+uniform float $vignetteIntensity;
+uniform float $vignetteX;
+uniform float $vignetteY;
+uniform float $centerX;
+uniform float $centerY;
+
+#ifdef $CONTROL_SATURATION
+	const vec3 $grayscale = vec3(0.3, 0.59, 0.11);
+
+	uniform float $saturation;
+	uniform float $saturationMul;
+
+	// 0 = totally desaturated
+	// 1 = saturation unchanged
+	// higher = increase saturation
+	vec3 $adjustSaturation(vec3 color, float saturation) {
+		vec3 grey = vec3(dot(color, $grayscale));
+		return mix(grey, color, saturation);
+	}
+#endif
+
+vec4 $apply(vec4 color, vec2 uv) {
+	vec3 rgb = color.rgb;
+	float d = distance(uv, vec2($centerX, $centerY));
+	float factor = smoothstep($vignetteX, $vignetteY, d);
+	rgb = rgb * factor + rgb * (1.0 - factor) * (1.0 - $vignetteIntensity);
+
+#ifdef $CONTROL_SATURATION
+	rgb = $adjustSaturation(rgb, $saturation) * $saturationMul;
+#endif
+
+	return vec4(rgb, 1.0);
+}
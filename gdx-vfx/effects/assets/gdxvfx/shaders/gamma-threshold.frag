@@ -1,10 +1,4 @@
-#ifdef GL_ES
-	#define PRECISION mediump
-	precision PRECISION float;
-	precision PRECISION int;
-#else
-	#define PRECISION
-#endif
+#include "include/precision.glsl"
 
 #ifndef THRESHOLD_TYPE
 	#error Please define THRESHOLD_TYPE
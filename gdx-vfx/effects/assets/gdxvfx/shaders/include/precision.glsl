@@ -0,0 +1,9 @@
+// Default float/int precision, PRECISION may be used to qualify the declarations explicitly.
+
+#ifdef GL_ES
+	#define PRECISION mediump
+	precision PRECISION float;
+	precision PRECISION int;
+#else
+	#define PRECISION
+#endif
@@ -1,13 +1,7 @@
 // Simple motion blur implementation by Toni Sagrista
 // Last frame is drawn with lower opacity
 
-#ifdef GL_ES
-	#define PRECISION mediump
-	precision PRECISION float;
-	precision PRECISION int;
-#else
-	#define PRECISION
-#endif
+#include "include/precision.glsl"
 
 #ifndef METHOD
     #error Please define METHOD
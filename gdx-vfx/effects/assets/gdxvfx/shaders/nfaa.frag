@@ -4,13 +4,7 @@
 // Copyright Styves, Martinsh
 // Modified by Sagrista, Toni
 
-#ifdef GL_ES
-	#define PRECISION mediump
-	precision PRECISION float;
-	precision PRECISION int;
-#else
-	#define PRECISION
-#endif
+#include "include/precision.glsl"
 
 uniform sampler2D u_texture0;
 // The inverse of the viewport dimensions along X and Y
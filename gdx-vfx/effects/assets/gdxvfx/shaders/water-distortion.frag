@@ -1,13 +1,7 @@
 // Originally based on
 // https://www.shadertoy.com/view/4ltSDB
 
-#ifdef GL_ES
-	#define PRECISION mediump
-	precision PRECISION float;
-	precision PRECISION int;
-#else
-	#define PRECISION
-#endif
+#include "include/precision.glsl"
 
 varying vec2 v_texCoords;
 uniform sampler2D u_texture0;
@@ -26,9 +26,10 @@ import com.crashinvaders.vfx.effects.util.CopyEffect;
 import com.crashinvaders.vfx.effects.util.GammaThresholdEffect;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
+import com.crashinvaders.vfx.framegraph.VfxFrameGraph;
 import com.crashinvaders.vfx.gl.VfxGLUtils;
 
-public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
+public class BloomEffect extends CompositeVfxEffect implements FrameGraphVfxEffect {
 
     private final CopyEffect copy;
     private final GaussianBlurEffect blur;
@@ -37,6 +38,27 @@ public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
 
     private boolean blending = false;
     private int sfactor, dfactor;
+    private boolean blendingWasEnabled = false;
+
+    private final VfxFrameGraph.PassRenderer thresholdPass = new VfxFrameGraph.PassRenderer() {
+        @Override
+        public void render(VfxRenderContext context, VfxFrameGraph.PassContext pass) {
+            suspendGlBlending();
+            threshold.render(context, pass.getReadBuffer(0), pass.getWriteBuffer(0));
+        }
+    };
+    private final VfxFrameGraph.PassRenderer blurPass = new VfxFrameGraph.PassRenderer() {
+        @Override
+        public void render(VfxRenderContext context, VfxFrameGraph.PassContext pass) {
+            blur.render(context, pass.getPingPong());
+        }
+    };
+    private final VfxFrameGraph.PassRenderer combinePass = new VfxFrameGraph.PassRenderer() {
+        @Override
+        public void render(VfxRenderContext context, VfxFrameGraph.PassContext pass) {
+            renderCombine(context, pass.getReadBuffer(0), pass.getReadBuffer(1), pass.getWriteBuffer(0));
+        }
+    };
 
     public BloomEffect() {
         this(new Settings(10, 0.85f, 1f, .85f, 1.1f, .85f));
@@ -57,8 +79,7 @@ public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
         VfxFrameBuffer origSrc = context.getBufferPool().obtain();
         copy.render(context, buffers.getSrcBuffer(), origSrc);
 
-        boolean blendingWasEnabled = VfxGLUtils.isGLEnabled(GL20.GL_BLEND);
-        Gdx.gl.glDisable(GL20.GL_BLEND);
+        suspendGlBlending();
 
         // High-pass filter
         // Only areas with pixels >= threshold are blit.
@@ -69,6 +90,29 @@ public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
         blur.render(context, buffers);
         buffers.swap();
 
+        // Mix original scene and blurred result).
+        renderCombine(context, origSrc, buffers.getSrcBuffer(), buffers.getDstBuffer());
+
+        context.getBufferPool().free(origSrc);
+    }
+
+    @Override
+    public void declarePasses(VfxFrameGraph.Builder builder, int input, int output) {
+        int highPass = builder.createTransient();
+        int blurred = builder.createTransient();
+
+        // The input buffer stays alive till the combine pass, so there's no need to preserve it with a copy.
+        builder.addPass("BloomThreshold", thresholdPass).read(input).write(highPass);
+        builder.addPass("BloomBlur", blurPass).read(highPass).write(blurred);
+        builder.addPass("BloomCombine", combinePass).read(input).read(blurred).write(output);
+    }
+
+    private void suspendGlBlending() {
+        blendingWasEnabled = VfxGLUtils.isGLEnabled(GL20.GL_BLEND);
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    private void renderCombine(VfxRenderContext context, VfxFrameBuffer base, VfxFrameBuffer bloom, VfxFrameBuffer dst) {
         if (blending || blendingWasEnabled) {
             Gdx.gl.glEnable(GL20.GL_BLEND);
         }
@@ -78,10 +122,7 @@ public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
             Gdx.gl.glBlendFunc(sfactor, dfactor);
         }
 
-        // Mix original scene and blurred result).
-        combine.render(context, origSrc, buffers.getSrcBuffer(), buffers.getDstBuffer());
-
-        context.getBufferPool().free(origSrc);
+        combine.render(context, base, bloom, dst);
     }
 
     public float getBaseIntensity() {
@@ -156,10 +197,12 @@ public class BloomEffect extends CompositeVfxEffect implements ChainVfxEffect {
         this.blending = true;
         this.sfactor = sfactor;
         this.dfactor = dfactor;
+        markChanged();
     }
 
     public void disableBlending() {
         this.blending = false;
+        markChanged();
     }
 
     public BlurType getBlurType() {
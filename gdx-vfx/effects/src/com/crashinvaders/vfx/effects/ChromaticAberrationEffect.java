@@ -20,7 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class ChromaticAberrationEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
@@ -30,7 +30,7 @@ public class ChromaticAberrationEffect extends ShaderVfxEffect implements ChainV
     private float maxDistortion = 1.2f;
 
     public ChromaticAberrationEffect(int passes) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/chromatic-aberration.frag"),
                 "#define PASSES " + passes));
@@ -40,10 +40,8 @@ public class ChromaticAberrationEffect extends ShaderVfxEffect implements ChainV
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformf(U_MAX_DISTORTION, maxDistortion);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_MAX_DISTORTION, maxDistortion);
     }
 
     public float getMaxDistortion() {
@@ -21,7 +21,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class CrtEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final Vector2 tmpVec = new Vector2();
@@ -38,7 +38,7 @@ public class CrtEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
     /** Brightness is a value between [0..2] (default is 1.0). */
     public CrtEffect(LineStyle lineStyle, float brightnessMin, float brightnessMax) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/crt.frag"),
                 "#define SL_BRIGHTNESS_MIN " + brightnessMin + "\n" +
@@ -57,17 +57,15 @@ public class CrtEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind () {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
         switch (sizeSource) {
             case VIEWPORT:
-                program.setUniformf(U_RESOLUTION, viewportSize);
+                uniforms.set(U_RESOLUTION, viewportSize);
                 break;
             case SCREEN:
-                program.setUniformf(U_RESOLUTION, tmpVec.set(Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
+                uniforms.set(U_RESOLUTION, tmpVec.set(Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
                 break;
         }
-        program.end();
     }
 
     @Override
@@ -97,6 +95,7 @@ public class CrtEffect extends ShaderVfxEffect implements ChainVfxEffect {
         }
         this.sizeSource = sizeSource;
         rebind();
+        markChanged();
     }
 
     /** Constant name/ordinal values match the respected #define constants from crt.frag */
@@ -20,19 +20,27 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.fusion.FusionUniforms;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
+import com.crashinvaders.vfx.gl.VfxShaderSources;
 
-public class FilmGrainEffect extends ShaderVfxEffect implements ChainVfxEffect {
+public class FilmGrainEffect extends ShaderVfxEffect implements FusibleVfxEffect {
 
     private static final String U_TEXTURE0 = "u_texture0";
     private static final String U_SEED = "u_seed";
     private static final String U_NOISE_AMOUNT = "u_noiseAmount";
 
+    private static final String FUSION_ID = "film-grain";
+    private static final String FUSION_SEED = "seed";
+    private static final String FUSION_NOISE_AMOUNT = "noiseAmount";
+
+    private final int seedSlot = uniforms.register(U_SEED);
+
     private float seed = 0f;
     private float noiseAmount = 0.18f;
 
     public FilmGrainEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/film-grain.frag")));
         rebind();
@@ -45,14 +53,17 @@ public class FilmGrainEffect extends ShaderVfxEffect implements ChainVfxEffect {
         setSeed(newSeedValue);
     }
 
+    @Override
+    public boolean isTimeDependent() {
+        return true;
+    }
+
     @Override
     public void rebind () {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformf(U_SEED, seed);
-        program.setUniformf(U_NOISE_AMOUNT, noiseAmount);
-        program.begin();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_SEED, seed);
+        uniforms.set(U_NOISE_AMOUNT, noiseAmount);
     }
 
     @Override
@@ -67,13 +78,29 @@ public class FilmGrainEffect extends ShaderVfxEffect implements ChainVfxEffect {
         renderShader(context, dst);
     }
 
+    @Override
+    public String getFusionId() {
+        return FUSION_ID;
+    }
+
+    @Override
+    public String getFusionSource() {
+        return VfxShaderSources.get(Gdx.files.classpath("gdxvfx/shaders/fusion/film-grain.glsl"));
+    }
+
+    @Override
+    public void applyFusionUniforms(FusionUniforms uniforms) {
+        uniforms.set(FUSION_SEED, seed);
+        uniforms.set(FUSION_NOISE_AMOUNT, noiseAmount);
+    }
+
     public float getSeed() {
         return seed;
     }
 
     public void setSeed(float seed) {
         this.seed = seed;
-        setUniform(U_SEED, seed);
+        setUniform(seedSlot, seed);
     }
 
     public float getNoiseAmount() {
@@ -20,7 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Fisheye distortion filter
@@ -32,7 +32,7 @@ public class FisheyeEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final String U_TEXTURE0 = "u_texture0";
 
     public FisheyeEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/fisheye.frag")));
         rebind();
@@ -21,7 +21,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Implements the fast approximate anti-aliasing.
@@ -47,7 +47,7 @@ public class FxaaEffect extends ShaderVfxEffect implements ChainVfxEffect {
 	}
 
 	public FxaaEffect(float fxaaReduceMin, float fxaaReduceMul, float fxaaSpanMax, boolean supportAlpha) {
-		super(VfxGLUtils.compileShader(
+		super(new VfxShaderRequest(
 				Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
 				Gdx.files.classpath("gdxvfx/shaders/fxaa.frag"),
 				supportAlpha ? "#define SUPPORT_ALPHA" : ""));
@@ -67,13 +67,11 @@ public class FxaaEffect extends ShaderVfxEffect implements ChainVfxEffect {
 	@Override
 	public void rebind() {
 		super.rebind();
-		program.begin();
-		program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-		program.setUniformf(U_VIEWPORT_INVERSE, viewportInverse);
-		program.setUniformf(U_FXAA_REDUCE_MIN, fxaaReduceMin);
-		program.setUniformf(U_FXAA_REDUCE_MUL, fxaaReduceMul);
-		program.setUniformf(U_FXAA_SPAN_MAX, fxaaSpanMax);
-		program.end();
+		uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+		uniforms.set(U_VIEWPORT_INVERSE, viewportInverse);
+		uniforms.set(U_FXAA_REDUCE_MIN, fxaaReduceMin);
+		uniforms.set(U_FXAA_REDUCE_MUL, fxaaReduceMul);
+		uniforms.set(U_FXAA_SPAN_MAX, fxaaSpanMax);
 	}
 
 	@Override
@@ -18,9 +18,10 @@ package com.crashinvaders.vfx.effects;
 
 import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
+import com.crashinvaders.vfx.VfxShaderWarmup;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEffect {
 
@@ -86,6 +87,16 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
         computeBlurWeightings();
     }
 
+    @Override
+    public boolean isReady() {
+        return convolve.isReady();
+    }
+
+    @Override
+    public void requestWarmup(VfxShaderWarmup warmup) {
+        convolve.requestWarmup(warmup);
+    }
+
     @Override
     public void render(VfxRenderContext context, VfxPingPongWrapper buffers) {
         for (int i = 0; i < this.passes; i++) {
@@ -120,6 +131,7 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
             convolve = new Convolve2DEffect(this.type.tap.radius);
 
             computeBlurWeightings();
+            markChanged();
         }
     }
 
@@ -132,6 +144,7 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
     public void setAmount(float amount) {
         this.amount = amount;
         computeBlurWeightings();
+        markChanged();
     }
 
     public int getPasses() {
@@ -142,6 +155,7 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
         if (passes < 1) throw new IllegalArgumentException("Passes should be greater than 0.");
 
         this.passes = passes;
+        markChanged();
     }
 
     private void computeBlurWeightings() {
@@ -306,10 +320,20 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
         }
 
         public Convolve1DEffect(int length, float[] weightsData, float[] offsets) {
-            super(VfxGLUtils.compileShader(
+            this(length, weightsData, offsets, null);
+        }
+
+        /**
+         * @param variant distinguishes the {@link com.crashinvaders.vfx.gl.VfxProgramRegistry shared program} from
+         *                the one of the other instances of the same length (may be null).
+         *                The instances rendered in turn with different uniform values (e.g. the horizontal and vertical passes)
+         *                should use different variants, otherwise they re-upload their uniforms on every pass.
+         */
+        public Convolve1DEffect(int length, float[] weightsData, float[] offsets, String variant) {
+            super(new VfxShaderRequest(
                     Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                     Gdx.files.classpath("gdxvfx/shaders/convolve-1d.frag"),
-                    "#define LENGTH " + length));
+                    "#define LENGTH " + length + (variant != null ? "\n#define VARIANT_" + variant : "")));
             setWeights(length, weightsData, offsets);
             rebind();
         }
@@ -317,11 +341,9 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
         @Override
         public void rebind() {
             super.rebind();
-            program.begin();
-            program.setUniformi(U_TEXTURE, TEXTURE_HANDLE0);
-            program.setUniform2fv(U_SAMPLE_OFFSETS, offsets, 0, length * 2); // LibGDX asks for number of floats, NOT number of elements.
-            program.setUniform1fv(U_SAMPLE_WEIGHTS, weights, 0, length);
-            program.end();
+            uniforms.set(U_TEXTURE, TEXTURE_HANDLE0);
+            uniforms.set(U_SAMPLE_OFFSETS, 2, offsets, 0, length * 2); // The number of floats, NOT number of elements.
+            uniforms.set(U_SAMPLE_WEIGHTS, 1, weights, 0, length);
         }
 
         @Override
@@ -356,8 +378,8 @@ public class GaussianBlurEffect extends AbstractVfxEffect implements ChainVfxEff
             this.radius = radius;
             length = (radius * 2) + 1;
 
-            hor = register(new Convolve1DEffect(length));
-            vert = register(new Convolve1DEffect(length, hor.weights));
+            hor = register(new Convolve1DEffect(length, new float[length], new float[length * 2], "HORIZONTAL"));
+            vert = register(new Convolve1DEffect(length, hor.weights, new float[length * 2], "VERTICAL"));
 
             weights = hor.weights;
             offsetsHor = hor.offsets;
@@ -38,7 +38,7 @@ import com.badlogic.gdx.math.Vector3;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Lens flare effect.
@@ -52,13 +52,17 @@ public class LensFlareEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final String U_COLOR = "u_color";
     private static final String U_VIEWPORT = "u_viewport";
 
+    private final int lightPositionSlot = uniforms.register(U_LIGHT_POSITION);
+    private final int intensitySlot = uniforms.register(U_INTENSITY);
+    private final int colorSlot = uniforms.register(U_COLOR);
+
     private final Vector2 lightPosition = new Vector2(0.5f, 0.5f);
     private final Vector2 viewport = new Vector2();
     private final Vector3 color = new Vector3(1f, 0.8f, 0.2f);
     private float intensity = 5.0f;
 
     public LensFlareEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/lens-flare.frag")));
         rebind();
@@ -74,13 +78,11 @@ public class LensFlareEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformf(U_LIGHT_POSITION, lightPosition);
-        program.setUniformf(U_INTENSITY, intensity);
-        program.setUniformf(U_COLOR, color);
-        program.setUniformf(U_VIEWPORT, viewport);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_LIGHT_POSITION, lightPosition);
+        uniforms.set(U_INTENSITY, intensity);
+        uniforms.set(U_COLOR, color);
+        uniforms.set(U_VIEWPORT, viewport);
     }
 
     @Override
@@ -108,7 +110,7 @@ public class LensFlareEffect extends ShaderVfxEffect implements ChainVfxEffect {
      * @param y Light position y screen coordinate. */
     public void setLightPosition(float x, float y) {
         lightPosition.set(x, y);
-        setUniform(U_LIGHT_POSITION, lightPosition);
+        setUniform(lightPositionSlot, x, y);
     }
 
     public float getIntensity() {
@@ -117,7 +119,7 @@ public class LensFlareEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
     public void setIntensity(float intensity) {
         this.intensity = intensity;
-        setUniform(U_INTENSITY, intensity);
+        setUniform(intensitySlot, intensity);
     }
 
     public Vector3 getColor() {
@@ -130,6 +132,6 @@ public class LensFlareEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
     public void setColor(float r, float g, float b) {
         color.set(r, g, b);
-        setUniform(U_COLOR, color);
+        setUniform(colorSlot, r, g, b);
     }
 }
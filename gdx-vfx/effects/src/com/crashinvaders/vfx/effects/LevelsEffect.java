@@ -35,10 +35,12 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.fusion.FusionUniforms;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
+import com.crashinvaders.vfx.gl.VfxShaderSources;
 
 /** Controls levels of brightness and contrast. */
-public class LevelsEffect extends ShaderVfxEffect implements ChainVfxEffect {
+public class LevelsEffect extends ShaderVfxEffect implements FusibleVfxEffect {
 
     private static final String Texture = "u_texture0";
     private static final String Brightness = "u_brightness";
@@ -47,6 +49,13 @@ public class LevelsEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final String Hue = "u_hue";
     private static final String Gamma = "u_gamma";
 
+    private static final String FUSION_ID = "levels";
+    private static final String FusionBrightness = "brightness";
+    private static final String FusionContrast = "contrast";
+    private static final String FusionSaturation = "saturation";
+    private static final String FusionHue = "hue";
+    private static final String FusionGamma = "gamma";
+
     private float brightness = 0.0f;
     private float contrast = 1.0f;
     private float saturation = 1.0f;
@@ -54,7 +63,7 @@ public class LevelsEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private float gamma = 1.0f;
 
     public LevelsEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/levels.frag")));
         rebind();
@@ -63,14 +72,12 @@ public class LevelsEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(Texture, TEXTURE_HANDLE0);
-        program.setUniformf(Brightness, brightness);
-        program.setUniformf(Contrast, contrast);
-        program.setUniformf(Saturation, saturation);
-        program.setUniformf(Hue, hue);
-        program.setUniformf(Gamma, gamma);
-        program.end();
+        uniforms.set(Texture, TEXTURE_HANDLE0);
+        uniforms.set(Brightness, brightness);
+        uniforms.set(Contrast, contrast);
+        uniforms.set(Saturation, saturation);
+        uniforms.set(Hue, hue);
+        uniforms.set(Gamma, gamma);
     }
 
     @Override
@@ -85,6 +92,25 @@ public class LevelsEffect extends ShaderVfxEffect implements ChainVfxEffect {
         renderShader(context, dst);
     }
 
+    @Override
+    public String getFusionId() {
+        return FUSION_ID;
+    }
+
+    @Override
+    public String getFusionSource() {
+        return VfxShaderSources.get(Gdx.files.classpath("gdxvfx/shaders/fusion/levels.glsl"));
+    }
+
+    @Override
+    public void applyFusionUniforms(FusionUniforms uniforms) {
+        uniforms.set(FusionBrightness, brightness);
+        uniforms.set(FusionContrast, contrast);
+        uniforms.set(FusionSaturation, saturation);
+        uniforms.set(FusionHue, hue);
+        uniforms.set(FusionGamma, gamma);
+    }
+
     public float getContrast() {
         return contrast;
     }
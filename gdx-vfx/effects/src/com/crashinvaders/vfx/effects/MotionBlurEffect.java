@@ -17,71 +17,68 @@
 
 package com.crashinvaders.vfx.effects;
 
-import com.badlogic.gdx.Application;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.crashinvaders.vfx.VfxRenderContext;
-import com.crashinvaders.vfx.effects.util.CopyEffect;
 import com.crashinvaders.vfx.effects.util.MixEffect;
-import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.framebuffer.VfxFrameBufferQueue;
+import com.crashinvaders.vfx.framebuffer.VfxHistoryBuffers;
+import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 
 /** A motion blur effect which draws the last frame with a lower opacity.
- * The result is then stored as the next last frame to create the trail effect. */
+ * The result is then stored as the next last frame to create the trail effect.
+ * <p>
+ * The last frame is kept in the context's {@link VfxHistoryBuffers}. */
 public class MotionBlurEffect extends CompositeVfxEffect implements ChainVfxEffect {
 
 	private final MixEffect mixFilter;
-	private final CopyEffect copyFilter;
 
-	private final VfxFrameBufferQueue localBuffer;
-
-	private boolean firstFrameRendered = false;
+	/** The context the history is kept within, to release it upon disposal. */
+	private VfxRenderContext historyContext = null;
 
+	/** @deprecated the pixel format is defined by the {@link VfxRenderContext} now. Use {@link #MotionBlurEffect(MixEffect.Method, float)}. */
+	@Deprecated
 	public MotionBlurEffect(Pixmap.Format pixelFormat, MixEffect.Method mixMethod, float blurFactor) {
+		this(mixMethod, blurFactor);
+	}
+
+	public MotionBlurEffect(MixEffect.Method mixMethod, float blurFactor) {
 		mixFilter = register(new MixEffect(mixMethod));
 		mixFilter.setMixFactor(blurFactor);
-
-		copyFilter = register(new CopyEffect());
-
-		localBuffer = new VfxFrameBufferQueue(pixelFormat,
-				// On WebGL (GWT) we cannot render from/into the same texture simultaneously.
-				// Will use ping-pong approach to avoid "writing into itself".
-				Gdx.app.getType() == Application.ApplicationType.WebGL ? 2 : 1
-		);
 	}
 
 	@Override
 	public void dispose() {
 		super.dispose();
-		localBuffer.dispose();
-	}
-
-	@Override
-	public void resize(int width, int height) {
-		super.resize(width, height);
-		localBuffer.resize(width, height);
-		firstFrameRendered = false;
+		if (historyContext != null) {
+			historyContext.getHistoryBuffers().free(this);
+			historyContext = null;
+		}
 	}
 
 	@Override
-	public void rebind() {
-		super.rebind();
-		localBuffer.rebind();
+	public boolean isTimeDependent() {
+		// The result depends on the previous frames.
+		return true;
 	}
 
 	@Override
 	public void render(VfxRenderContext context, VfxPingPongWrapper buffers) {
-		VfxFrameBuffer prevFrame = this.localBuffer.changeToNext();
-		if (!firstFrameRendered) {
-			// Mix filter requires two frames to render, so we gonna skip the first call.
-			copyFilter.render(context, buffers.getSrcBuffer(), prevFrame);
-			buffers.swap();
-			firstFrameRendered = true;
-			return;
+		if (historyContext != context) {
+			if (historyContext != null) {
+				historyContext.getHistoryBuffers().free(this);
+			}
+			historyContext = context;
 		}
 
-		mixFilter.render(context, buffers.getSrcBuffer(), prevFrame, buffers.getDstBuffer());
-		copyFilter.render(context, buffers.getDstBuffer(), prevFrame);
+		VfxHistoryBuffers.History history = context.getHistoryBuffers().obtain(this, 1);
+		VfxFrameBuffer prevFrame = history.getFrame(0);
+		if (prevFrame == null) {
+			// Mix filter requires two frames to render, so we gonna pass the first one through.
+			buffers.swap();
+		} else {
+			mixFilter.render(context, buffers.getSrcBuffer(), prevFrame, buffers.getDstBuffer());
+		}
+		// The result becomes the next last frame (with no copying, as long as the buffers belong to a VfxManager).
+		history.commit(buffers);
 	}
-}
\ No newline at end of file
+}
@@ -21,7 +21,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Normal filtered anti-aliasing filter.
@@ -36,7 +36,7 @@ public class NfaaEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private final Vector2 viewportInverse = new Vector2();
 
     public NfaaEffect(boolean supportAlpha) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/nfaa.frag"),
                 supportAlpha ? "#define SUPPORT_ALPHA" : ""));
@@ -45,10 +45,8 @@ public class NfaaEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformf(U_VIEWPORT_INVERSE, viewportInverse);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_VIEWPORT_INVERSE, viewportInverse);
     }
 
     @Override
@@ -21,7 +21,7 @@ import com.badlogic.gdx.math.Vector2;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class OldTvEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
@@ -29,11 +29,13 @@ public class OldTvEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final String Resolution = "u_resolution";
     private static final String Time = "u_time";
 
+    private final int timeSlot = uniforms.register(Time);
+
     private final Vector2 resolution = new Vector2();
     private float time = 0f;
 
     public OldTvEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/old-tv.frag")));
         rebind();
@@ -49,11 +51,9 @@ public class OldTvEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(Texture0, TEXTURE_HANDLE0);
-        program.setUniformf(Resolution, resolution);
-        program.setUniformf(Time, time);
-        program.end();
+        uniforms.set(Texture0, TEXTURE_HANDLE0);
+        uniforms.set(Resolution, resolution);
+        uniforms.set(Time, time);
     }
 
     @Override
@@ -62,13 +62,18 @@ public class OldTvEffect extends ShaderVfxEffect implements ChainVfxEffect {
         setTime(this.time + delta);
     }
 
+    @Override
+    public boolean isTimeDependent() {
+        return true;
+    }
+
     public float getTime() {
         return time;
     }
 
     public void setTime(float time) {
         this.time = time;
-        setUniform(Time, time);
+        setUniform(timeSlot, time);
     }
 
     @Override
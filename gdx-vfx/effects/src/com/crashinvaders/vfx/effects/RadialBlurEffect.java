@@ -22,7 +22,7 @@ import com.badlogic.gdx.utils.Align;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class RadialBlurEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
@@ -34,13 +34,17 @@ public class RadialBlurEffect extends ShaderVfxEffect implements ChainVfxEffect
 
     private final int passes;
 
+    private final int offsetXSlot = uniforms.register(U_OFFSET_X);
+    private final int offsetYSlot = uniforms.register(U_OFFSET_Y);
+    private final int zoomSlot = uniforms.register(U_ZOOM);
+
     private float strength = 0.2f;
     private float originX = 0.5f;
     private float originY = 0.5f;
     private float zoom = 1f;
 
     public RadialBlurEffect(int passes) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/radial-blur.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/radial-blur.frag"),
                 "#define PASSES " + passes));
@@ -51,13 +55,11 @@ public class RadialBlurEffect extends ShaderVfxEffect implements ChainVfxEffect
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE, TEXTURE_HANDLE0);
-        program.setUniformf(U_BLUR_DIV, this.strength / (float) passes);
-        program.setUniformf(U_OFFSET_X, originX);
-        program.setUniformf(U_OFFSET_Y, originY);
-        program.setUniformf(U_ZOOM, zoom);
-        program.end();
+        uniforms.set(U_TEXTURE, TEXTURE_HANDLE0);
+        uniforms.set(U_BLUR_DIV, this.strength / (float) passes);
+        uniforms.set(U_OFFSET_X, originX);
+        uniforms.set(U_OFFSET_Y, originY);
+        uniforms.set(U_ZOOM, zoom);
     }
 
     @Override
@@ -112,10 +114,8 @@ public class RadialBlurEffect extends ShaderVfxEffect implements ChainVfxEffect
     public void setOrigin(float originX, float originY) {
         this.originX = originX;
         this.originY = originY;
-        program.begin();
-        program.setUniformf(U_OFFSET_X, this.originX);
-        program.setUniformf(U_OFFSET_Y, this.originY);
-        program.end();
+        uniforms.set(offsetXSlot, this.originX).set(offsetYSlot, this.originY);
+        markChanged();
     }
 
     public float getStrength() {
@@ -133,6 +133,6 @@ public class RadialBlurEffect extends ShaderVfxEffect implements ChainVfxEffect
 
     public void setZoom(float zoom) {
         this.zoom = zoom;
-        setUniform(U_ZOOM, this.zoom);
+        setUniform(zoomSlot, this.zoom);
     }
 }
@@ -20,7 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class RadialDistortionEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
@@ -32,7 +32,7 @@ public class RadialDistortionEffect extends ShaderVfxEffect implements ChainVfxE
 	private float distortion = 0.3f;
 
 	public RadialDistortionEffect() {
-		super(VfxGLUtils.compileShader(
+		super(new VfxShaderRequest(
 				Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
 				Gdx.files.classpath("gdxvfx/shaders/radial-distortion.frag")));
 		rebind();
@@ -41,11 +41,9 @@ public class RadialDistortionEffect extends ShaderVfxEffect implements ChainVfxE
 	@Override
 	public void rebind () {
 		super.rebind();
-		program.begin();
-		program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-		program.setUniformf(U_DISTORTION, distortion);
-		program.setUniformf(U_ZOOM, zoom);
-		program.end();
+		uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+		uniforms.set(U_DISTORTION, distortion);
+		uniforms.set(U_ZOOM, zoom);
 	}
 
 	@Override
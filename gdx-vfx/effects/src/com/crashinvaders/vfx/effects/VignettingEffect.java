@@ -20,9 +20,11 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.fusion.FusionUniforms;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
+import com.crashinvaders.vfx.gl.VfxShaderSources;
 
-public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect {
+public class VignettingEffect extends ShaderVfxEffect implements FusibleVfxEffect {
 
     private static final String TEXTURE0 = "u_texture0";
     private static final String VIGNETTE_INTENSITY = "u_vignetteIntensity";
@@ -33,6 +35,19 @@ public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect
     private static final String SATURATION = "u_saturation";
     private static final String SATURATION_MUL = "u_saturationMul";
 
+    private static final String FUSION_VIGNETTE_INTENSITY = "vignetteIntensity";
+    private static final String FUSION_VIGNETTE_X = "vignetteX";
+    private static final String FUSION_VIGNETTE_Y = "vignetteY";
+    private static final String FUSION_CENTER_X = "centerX";
+    private static final String FUSION_CENTER_Y = "centerY";
+    private static final String FUSION_SATURATION = "saturation";
+    private static final String FUSION_SATURATION_MUL = "saturationMul";
+
+    private final int vignetteXSlot = uniforms.register(VIGNETTE_X);
+    private final int vignetteYSlot = uniforms.register(VIGNETTE_Y);
+    private final int centerXSlot = uniforms.register(CENTER_X);
+    private final int centerYSlot = uniforms.register(CENTER_Y);
+    private final int intensitySlot = uniforms.register(VIGNETTE_INTENSITY);
 
     private float vignetteX = 0.8f;
     private float vignetteY = 0.25f;
@@ -45,7 +60,7 @@ public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect
     private float saturationMul = 0f;
 
     public VignettingEffect(boolean controlSaturation) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/vignetting.frag"),
                 (controlSaturation ? "#define CONTROL_SATURATION" : "")));
@@ -55,20 +70,19 @@ public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect
 
     @Override
     public void rebind() {
-        program.begin();
-        program.setUniformi(TEXTURE0, TEXTURE_HANDLE0);
+        super.rebind();
+        uniforms.set(TEXTURE0, TEXTURE_HANDLE0);
 
         if (saturationEnabled) {
-            program.setUniformf(SATURATION, saturation);
-            program.setUniformf(SATURATION_MUL, saturationMul);
+            uniforms.set(SATURATION, saturation);
+            uniforms.set(SATURATION_MUL, saturationMul);
         }
 
-        program.setUniformf(VIGNETTE_INTENSITY, intensity);
-        program.setUniformf(VIGNETTE_X, vignetteX);
-        program.setUniformf(VIGNETTE_Y, vignetteY);
-        program.setUniformf(CENTER_X, centerX);
-        program.setUniformf(CENTER_Y, centerY);
-        program.end();
+        uniforms.set(VIGNETTE_INTENSITY, intensity);
+        uniforms.set(VIGNETTE_X, vignetteX);
+        uniforms.set(VIGNETTE_Y, vignetteY);
+        uniforms.set(CENTER_X, centerX);
+        uniforms.set(CENTER_Y, centerY);
     }
 
     @Override
@@ -83,9 +97,33 @@ public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect
         renderShader(context, dst);
     }
 
+    @Override
+    public String getFusionId() {
+        return saturationEnabled ? "vignetting+saturation" : "vignetting";
+    }
+
+    @Override
+    public String getFusionSource() {
+        String source = VfxShaderSources.get(Gdx.files.classpath("gdxvfx/shaders/fusion/vignetting.glsl"));
+        return saturationEnabled ? "#define $CONTROL_SATURATION\n" + source : source;
+    }
+
+    @Override
+    public void applyFusionUniforms(FusionUniforms uniforms) {
+        if (saturationEnabled) {
+            uniforms.set(FUSION_SATURATION, saturation);
+            uniforms.set(FUSION_SATURATION_MUL, saturationMul);
+        }
+        uniforms.set(FUSION_VIGNETTE_INTENSITY, intensity);
+        uniforms.set(FUSION_VIGNETTE_X, vignetteX);
+        uniforms.set(FUSION_VIGNETTE_Y, vignetteY);
+        uniforms.set(FUSION_CENTER_X, centerX);
+        uniforms.set(FUSION_CENTER_Y, centerY);
+    }
+
     public void setIntensity(float intensity) {
         this.intensity = intensity;
-        setUniform(VIGNETTE_INTENSITY, intensity);
+        setUniform(intensitySlot, intensity);
     }
 
     public void setSaturation(float saturation) {
@@ -105,31 +143,26 @@ public class VignettingEffect extends ShaderVfxEffect implements ChainVfxEffect
     public void setCoords(float x, float y) {
         this.vignetteX = x;
         this.vignetteY = y;
-        program.begin();
-        program.setUniformf(VIGNETTE_X, x);
-        program.setUniformf(VIGNETTE_Y, y);
-        program.end();
+        uniforms.set(vignetteXSlot, x).set(vignetteYSlot, y);
+        markChanged();
     }
 
     public void setVignetteX(float x) {
         this.vignetteX = x;
-        setUniform(VIGNETTE_X, x);
+        setUniform(vignetteXSlot, x);
     }
 
     public void setVignetteY(float vignetteY) {
         this.vignetteY = vignetteY;
-        setUniform(VIGNETTE_Y, vignetteY);
+        setUniform(vignetteYSlot, vignetteY);
     }
 
     /** Specify the center, in normalized screen coordinates. */
     public void setCenter(float x, float y) {
         this.centerX = x;
         this.centerY = y;
-
-        program.begin();
-        program.setUniformf(CENTER_X, centerX);
-        program.setUniformf(CENTER_Y, centerY);
-        program.end();
+        uniforms.set(centerXSlot, centerX).set(centerYSlot, centerY);
+        markChanged();
     }
 
     public float getCenterX() {
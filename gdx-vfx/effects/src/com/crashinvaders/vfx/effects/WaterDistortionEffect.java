@@ -20,7 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 public class WaterDistortionEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
@@ -29,12 +29,14 @@ public class WaterDistortionEffect extends ShaderVfxEffect implements ChainVfxEf
     private static final String U_SPEED = "u_speed";
     private static final String U_TIME = "u_time";
 
+    private final int timeSlot = uniforms.register(U_TIME);
+
     private float amount;
     private float speed;
     private float time = 0f;
 
     public WaterDistortionEffect(float amount, float speed) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/water-distortion.frag")));
         this.amount = amount;
@@ -48,13 +50,18 @@ public class WaterDistortionEffect extends ShaderVfxEffect implements ChainVfxEf
         setTime(this.time + delta);
     }
 
+    @Override
+    public boolean isTimeDependent() {
+        return true;
+    }
+
     public float getTime() {
         return time;
     }
 
     public void setTime(float time) {
         this.time = time;
-        setUniform(U_TIME, time);
+        setUniform(timeSlot, time);
     }
 
     public float getAmount() {
@@ -83,12 +90,10 @@ public class WaterDistortionEffect extends ShaderVfxEffect implements ChainVfxEf
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        setUniform(U_TIME, time);
-        setUniform(U_AMOUNT, amount);
-        setUniform(U_SPEED, speed);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_TIME, time);
+        uniforms.set(U_AMOUNT, amount);
+        uniforms.set(U_SPEED, speed);
     }
 
     @Override
@@ -21,7 +21,7 @@ import com.badlogic.gdx.utils.Align;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /** Simple zooming effect. */
 public class ZoomEffect extends ShaderVfxEffect implements ChainVfxEffect {
@@ -31,12 +31,16 @@ public class ZoomEffect extends ShaderVfxEffect implements ChainVfxEffect {
     private static final String U_OFFSET_Y = "u_offsetY";
     private static final String U_ZOOM = "u_zoom";
 
+    private final int offsetXSlot = uniforms.register(U_OFFSET_X);
+    private final int offsetYSlot = uniforms.register(U_OFFSET_Y);
+    private final int zoomSlot = uniforms.register(U_ZOOM);
+
     private float originX = 0.5f;
     private float originY = 0.5f;
     private float zoom = 1f;
 
     public ZoomEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/zoom.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/zoom.frag")));
         rebind();
@@ -45,12 +49,10 @@ public class ZoomEffect extends ShaderVfxEffect implements ChainVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, 0);
-        program.setUniformf(U_OFFSET_X, originX);
-        program.setUniformf(U_OFFSET_Y, originY);
-        program.setUniformf(U_ZOOM, zoom);
-        program.end();
+        uniforms.set(U_TEXTURE0, 0);
+        uniforms.set(U_OFFSET_X, originX);
+        uniforms.set(U_OFFSET_Y, originY);
+        uniforms.set(U_ZOOM, zoom);
     }
 
     @Override
@@ -105,11 +107,8 @@ public class ZoomEffect extends ShaderVfxEffect implements ChainVfxEffect {
     public void setOrigin(float originX, float originY) {
         this.originX = originX;
         this.originY = originY;
-
-        program.begin();
-        program.setUniformf(U_OFFSET_X, originX);
-        program.setUniformf(U_OFFSET_Y, originY);
-        program.end();
+        uniforms.set(offsetXSlot, originX).set(offsetYSlot, originY);
+        markChanged();
     }
 
     public float getZoom() {
@@ -118,6 +117,6 @@ public class ZoomEffect extends ShaderVfxEffect implements ChainVfxEffect {
 
     public void setZoom(float zoom) {
         this.zoom = zoom;
-        setUniform(U_ZOOM, zoom);
+        setUniform(zoomSlot, zoom);
     }
 }
@@ -20,7 +20,7 @@ import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.effects.ShaderVfxEffect;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Merges two frames with an option to change intensity and saturation for each.
@@ -40,7 +40,7 @@ public class CombineEffect extends ShaderVfxEffect {
     private float s1i, s1s, s2i, s2s;
 
     public CombineEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/combine.frag")));
         s1i = 1f;
@@ -53,14 +53,12 @@ public class CombineEffect extends ShaderVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformi(U_TEXTURE1, TEXTURE_HANDLE1);
-        program.setUniformf(U_SOURCE0_INTENSITY, s1i);
-        program.setUniformf(U_SOURCE1_INTENSITY, s2i);
-        program.setUniformf(U_SOURCE0_SATURATION, s1s);
-        program.setUniformf(U_SOURCE1_SATURATION, s2s);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_TEXTURE1, TEXTURE_HANDLE1);
+        uniforms.set(U_SOURCE0_INTENSITY, s1i);
+        uniforms.set(U_SOURCE1_INTENSITY, s2i);
+        uniforms.set(U_SOURCE0_SATURATION, s1s);
+        uniforms.set(U_SOURCE1_SATURATION, s2s);
     }
 
     public void render(VfxRenderContext context, VfxFrameBuffer src0, VfxFrameBuffer src1, VfxFrameBuffer dst) {
@@ -18,18 +18,22 @@ package com.crashinvaders.vfx.effects.util;
 
 import com.badlogic.gdx.Gdx;
 import com.crashinvaders.vfx.VfxRenderContext;
-import com.crashinvaders.vfx.effects.ChainVfxEffect;
+import com.crashinvaders.vfx.effects.FusibleVfxEffect;
 import com.crashinvaders.vfx.effects.ShaderVfxEffect;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.fusion.FusionUniforms;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
+import com.crashinvaders.vfx.gl.VfxShaderSources;
 
-public class CopyEffect extends ShaderVfxEffect implements ChainVfxEffect {
+public class CopyEffect extends ShaderVfxEffect implements FusibleVfxEffect {
 
     private static final String U_TEXTURE0 = "u_texture0";
 
+    private static final String FUSION_ID = "copy";
+
     public CopyEffect() {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/copy.frag")));
         rebind();
@@ -52,4 +56,19 @@ public class CopyEffect extends ShaderVfxEffect implements ChainVfxEffect {
         // Apply shader effect.
         renderShader(context, dst);
     }
+
+    @Override
+    public String getFusionId() {
+        return FUSION_ID;
+    }
+
+    @Override
+    public String getFusionSource() {
+        return VfxShaderSources.get(Gdx.files.classpath("gdxvfx/shaders/fusion/copy.glsl"));
+    }
+
+    @Override
+    public void applyFusionUniforms(FusionUniforms uniforms) {
+        // No uniforms.
+    }
 }
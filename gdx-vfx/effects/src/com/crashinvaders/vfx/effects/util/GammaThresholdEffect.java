@@ -22,7 +22,7 @@ import com.crashinvaders.vfx.effects.ChainVfxEffect;
 import com.crashinvaders.vfx.effects.ShaderVfxEffect;
 import com.crashinvaders.vfx.framebuffer.VfxPingPongWrapper;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /** Keeps only values brighter than the specified gamma. */
 public class GammaThresholdEffect extends ShaderVfxEffect implements ChainVfxEffect {
@@ -34,7 +34,7 @@ public class GammaThresholdEffect extends ShaderVfxEffect implements ChainVfxEff
     private float gamma;
 
     public GammaThresholdEffect(Type type) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
         		Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
 				Gdx.files.classpath("gdxvfx/shaders/gamma-threshold.frag"),
                 "#define THRESHOLD_TYPE " + type.name()));
@@ -44,11 +44,9 @@ public class GammaThresholdEffect extends ShaderVfxEffect implements ChainVfxEff
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformf(U_THRESHOLD, gamma);
-        program.setUniformf(U_THRESHOLD_INV, 1f / (1f - gamma));
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_THRESHOLD, gamma);
+        uniforms.set(U_THRESHOLD_INV, 1f / (1f - gamma));
     }
 
     @Override
@@ -21,7 +21,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.crashinvaders.vfx.VfxRenderContext;
 import com.crashinvaders.vfx.effects.ShaderVfxEffect;
 import com.crashinvaders.vfx.framebuffer.VfxFrameBuffer;
-import com.crashinvaders.vfx.gl.VfxGLUtils;
+import com.crashinvaders.vfx.gl.VfxShaderRequest;
 
 /**
  * Simply mixes two frames with a factor of {@link #mixFactor}.
@@ -40,7 +40,7 @@ public class MixEffect extends ShaderVfxEffect {
     private float mixFactor = 0.5f;
 
     public MixEffect(Method method) {
-        super(VfxGLUtils.compileShader(
+        super(new VfxShaderRequest(
                 Gdx.files.classpath("gdxvfx/shaders/screenspace.vert"),
                 Gdx.files.classpath("gdxvfx/shaders/mix.frag"),
                 "#define METHOD " + method.name()));
@@ -50,11 +50,9 @@ public class MixEffect extends ShaderVfxEffect {
     @Override
     public void rebind() {
         super.rebind();
-        program.begin();
-        program.setUniformi(U_TEXTURE0, TEXTURE_HANDLE0);
-        program.setUniformi(U_TEXTURE1, TEXTURE_HANDLE1);
-        program.setUniformf(U_MIX, mixFactor);
-        program.end();
+        uniforms.set(U_TEXTURE0, TEXTURE_HANDLE0);
+        uniforms.set(U_TEXTURE1, TEXTURE_HANDLE1);
+        uniforms.set(U_MIX, mixFactor);
     }
 
     public void render(VfxRenderContext context, VfxFrameBuffer src0, VfxFrameBuffer src1, VfxFrameBuffer dst) {